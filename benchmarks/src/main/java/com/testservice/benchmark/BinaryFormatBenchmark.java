@@ -0,0 +1,105 @@
+package com.testservice.benchmark;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.module.jaxb.JaxbAnnotationModule;
+import com.testservice.domain.Author;
+import com.testservice.domain.Book;
+
+/**
+ * Compares encode and decode time of {@code List<Book>} and {@code List<Author>} in JSON, Smile and CBOR. Payload
+ * sizes of every format are printed at setup.
+ * 
+ * @author taras
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BinaryFormatBenchmark {
+
+    @Param({ "json", "smile", "cbor" })
+    private String format;
+
+    @Param({ "10", "1000" })
+    private int size;
+
+    private List<Book> books;
+    private List<Author> authors;
+    private ObjectWriter booksWriter;
+    private ObjectWriter authorsWriter;
+    private ObjectReader booksReader;
+    private ObjectReader authorsReader;
+    private byte[] encodedBooks;
+    private byte[] encodedAuthors;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper mapper = new ObjectMapper(factory()).registerModule(new JaxbAnnotationModule());
+        books = EmbeddedServiceContext.books(size);
+        authors = EmbeddedServiceContext.authors(size);
+        booksWriter = mapper.writerFor(new TypeReference<List<Book>>() { });
+        authorsWriter = mapper.writerFor(new TypeReference<List<Author>>() { });
+        booksReader = mapper.reader(new TypeReference<List<Book>>() { });
+        authorsReader = mapper.reader(new TypeReference<List<Author>>() { });
+        encodedBooks = booksWriter.writeValueAsBytes(books);
+        encodedAuthors = authorsWriter.writeValueAsBytes(authors);
+        System.out.println("Payload size (" + format + ", " + size + " elements): books " + encodedBooks.length
+                + " bytes, authors " + encodedAuthors.length + " bytes");
+    }
+
+    private JsonFactory factory() {
+        switch (format) {
+        case "smile":
+            return new SmileFactory();
+        case "cbor":
+            return new CBORFactory();
+        default:
+            return new JsonFactory();
+        }
+    }
+
+    @Benchmark
+    public byte[] encodeBooks() throws IOException {
+        return booksWriter.writeValueAsBytes(books);
+    }
+
+    @Benchmark
+    public byte[] encodeAuthors() throws IOException {
+        return authorsWriter.writeValueAsBytes(authors);
+    }
+
+    @Benchmark
+    public List<Book> decodeBooks() throws IOException {
+        return booksReader.readValue(encodedBooks);
+    }
+
+    @Benchmark
+    public List<Author> decodeAuthors() throws IOException {
+        return authorsReader.readValue(encodedAuthors);
+    }
+}
@@ -0,0 +1,119 @@
+package com.testservice.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.testservice.config.RootApplicationContextConfiguration;
+import com.testservice.domain.Author;
+import com.testservice.domain.Book;
+
+/**
+ * Boots the service application context against an embedded H2 database seeded with the requested number of rows.
+ * 
+ * @author taras
+ *
+ */
+public final class EmbeddedServiceContext {
+
+    public static final String USER_NAME = "user";
+    public static final String USER_PASSWORD = "password";
+
+    private static final int BATCH_SIZE = 1000;
+
+    private EmbeddedServiceContext() { }
+
+    /**
+     * Starts the context.
+     * 
+     * @param database name of the in-memory database
+     * @param authors number of authors to seed
+     * @param booksPerAuthor number of books of every author
+     * @return started application context
+     */
+    public static AnnotationConfigApplicationContext start(String database, int authors, int booksPerAuthor) {
+        System.setProperty("jdbc.driverClassName", "org.h2.Driver");
+        System.setProperty("jdbc.url", "jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1;MODE=MySQL");
+        System.setProperty("jdbc.username", "sa");
+        System.setProperty("jdbc.password", "");
+        System.setProperty("jdbc.replica.urls", "");
+        AnnotationConfigApplicationContext context =
+                new AnnotationConfigApplicationContext(RootApplicationContextConfiguration.class);
+        seed(context.getBean(JdbcTemplate.class), authors, booksPerAuthor);
+        return context;
+    }
+
+    private static void seed(JdbcTemplate jdbcTemplate, int authors, int booksPerAuthor) {
+        jdbcTemplate.update("insert into User (name, password, role) values (?, ?, ?)", USER_NAME, USER_PASSWORD,
+                "user");
+        List<Object[]> batch = new ArrayList<>();
+        for (int i = 1; i <= authors; i++) {
+            batch.add(new Object[] { i, "First" + i, "Last" + i, 20 + i % 60, 1000.0 + i });
+            if (batch.size() == BATCH_SIZE) {
+                jdbcTemplate.batchUpdate(
+                        "insert into Author (id, firstName, lastName, age, salary) values (?, ?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate("insert into Author (id, firstName, lastName, age, salary) values (?, ?, ?, ?, ?)",
+                    batch);
+            batch.clear();
+        }
+        int bookId = 0;
+        for (int i = 1; i <= authors; i++) {
+            for (int j = 0; j < booksPerAuthor; j++) {
+                bookId++;
+                batch.add(new Object[] { bookId, "Book " + bookId, 1900 + bookId % 120, i });
+                if (batch.size() == BATCH_SIZE) {
+                    jdbcTemplate.batchUpdate("insert into Book (id, name, year, authorId) values (?, ?, ?, ?)", batch);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate("insert into Book (id, name, year, authorId) values (?, ?, ?, ?)", batch);
+        }
+    }
+
+    /**
+     * Creates authors without touching the database.
+     * 
+     * @param count number of authors
+     * @return List of Author instances
+     */
+    public static List<Author> authors(int count) {
+        List<Author> authors = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            Author author = new Author();
+            author.setId(i);
+            author.setFirstName("First" + i);
+            author.setLastName("Last" + i);
+            author.setAge(20 + i % 60);
+            author.setSalary(1000.0 + i);
+            authors.add(author);
+        }
+        return authors;
+    }
+
+    /**
+     * Creates books without touching the database.
+     * 
+     * @param count number of books
+     * @return List of Book instances
+     */
+    public static List<Book> books(int count) {
+        List<Book> books = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            Book book = new Book();
+            book.setId(i);
+            book.setName("Book " + i);
+            book.setYear(1900 + i % 120);
+            book.setAuthorId(i % 100 + 1);
+            books.add(book);
+        }
+        return books;
+    }
+}
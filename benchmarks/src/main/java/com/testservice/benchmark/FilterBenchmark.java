@@ -0,0 +1,116 @@
+package com.testservice.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+
+import org.glassfish.jersey.internal.MapPropertiesDelegate;
+import org.glassfish.jersey.server.ContainerRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.util.ReflectionUtils;
+
+import com.testservice.filter.AuthorizationRequestFilter;
+import com.testservice.filter.LoggingRequestFilter;
+
+/**
+ * Measures {@link AuthorizationRequestFilter} and {@link LoggingRequestFilter} on a prepared Jersey request.
+ * 
+ * @author taras
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FilterBenchmark {
+
+    private static final URI BASE_URI = URI.create("http://localhost/test-service/");
+    private static final URI REQUEST_URI = URI.create("http://localhost/test-service/books");
+    private static final byte[] ENTITY = "{\"name\":\"Book\",\"year\":2000,\"authorId\":1}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    private AnnotationConfigApplicationContext context;
+    private AuthorizationRequestFilter authorizationFilter;
+    private LoggingRequestFilter loggingFilter;
+    private String authorization;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = EmbeddedServiceContext.start("filters", 0, 0);
+        authorizationFilter = new AuthorizationRequestFilter();
+        context.getAutowireCapableBeanFactory().autowireBean(authorizationFilter);
+        loggingFilter = new LoggingRequestFilter();
+        Field request = ReflectionUtils.findField(LoggingRequestFilter.class, "request");
+        ReflectionUtils.makeAccessible(request);
+        ReflectionUtils.setField(request, loggingFilter, servletRequest());
+        authorization = "Basic " + Base64.getEncoder().encodeToString(
+                (EmbeddedServiceContext.USER_NAME + ":" + EmbeddedServiceContext.USER_PASSWORD)
+                        .getBytes(StandardCharsets.UTF_8));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ContainerRequest authorization() throws IOException {
+        ContainerRequest request = request("GET");
+        request.header(HttpHeaders.AUTHORIZATION, authorization);
+        authorizationFilter.filter(request);
+        return request;
+    }
+
+    @Benchmark
+    public ContainerRequest loggingWithoutEntity() {
+        ContainerRequest request = request("GET");
+        loggingFilter.filter(request);
+        return request;
+    }
+
+    @Benchmark
+    public ContainerRequest loggingWithEntity() {
+        ContainerRequest request = request("POST");
+        request.header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON);
+        request.setEntityStream(new ByteArrayInputStream(ENTITY));
+        loggingFilter.filter(request);
+        return request;
+    }
+
+    private static ContainerRequest request(String method) {
+        return new ContainerRequest(BASE_URI, REQUEST_URI, method, null, new MapPropertiesDelegate());
+    }
+
+    private static HttpServletRequest servletRequest() {
+        return (HttpServletRequest) Proxy.newProxyInstance(FilterBenchmark.class.getClassLoader(),
+                new Class<?>[] { HttpServletRequest.class }, (proxy, method, args) -> {
+                    if (method.getName().equals("getRemoteAddr")) {
+                        return "127.0.0.1";
+                    }
+                    return null;
+                });
+    }
+}
@@ -0,0 +1,148 @@
+package com.testservice.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.core.GenericEntity;
+import javax.ws.rs.core.MediaType;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.jaxb.JaxbAnnotationModule;
+import com.testservice.domain.Author;
+import com.testservice.domain.Book;
+import com.testservice.provider.XmlProvider;
+
+/**
+ * Compares Jackson and JAXB serialization of {@code List<Book>} and {@code List<Author>} the way Jersey writes them:
+ * Jackson with JAXB annotations support and JAXB elements wrapped into a plural root element. The 'xmlProvider'
+ * benchmarks go through {@link XmlProvider} with its cached JAXB contexts.
+ * 
+ * @author taras
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({ "10", "1000" })
+    private int size;
+
+    private List<Author> authors;
+    private List<Book> books;
+    private ObjectMapper objectMapper;
+    private JAXBContext jaxbContext;
+    private XMLOutputFactory xmlOutputFactory;
+    private XmlProvider xmlProvider;
+    private GenericEntity<List<Book>> booksEntity;
+    private GenericEntity<List<Author>> authorsEntity;
+
+    @Setup
+    public void setUp() throws JAXBException {
+        authors = EmbeddedServiceContext.authors(size);
+        books = EmbeddedServiceContext.books(size);
+        objectMapper = new ObjectMapper().registerModule(new JaxbAnnotationModule());
+        jaxbContext = JAXBContext.newInstance(Author.class, Book.class);
+        xmlOutputFactory = XMLOutputFactory.newInstance();
+        xmlProvider = new XmlProvider();
+        booksEntity = new GenericEntity<List<Book>>(books) { };
+        authorsEntity = new GenericEntity<List<Author>>(authors) { };
+    }
+
+    @Benchmark
+    public void jacksonBooks(Blackhole blackhole) throws IOException {
+        objectMapper.writeValue(new BlackholeOutputStream(blackhole), books);
+    }
+
+    @Benchmark
+    public void jacksonAuthors(Blackhole blackhole) throws IOException {
+        objectMapper.writeValue(new BlackholeOutputStream(blackhole), authors);
+    }
+
+    @Benchmark
+    public void jaxbBooks(Blackhole blackhole) throws JAXBException, XMLStreamException {
+        writeXml("books", books, new BlackholeOutputStream(blackhole));
+    }
+
+    @Benchmark
+    public void jaxbAuthors(Blackhole blackhole) throws JAXBException, XMLStreamException {
+        writeXml("authors", authors, new BlackholeOutputStream(blackhole));
+    }
+
+    @Benchmark
+    public void xmlProviderBooks(Blackhole blackhole) throws IOException {
+        writeEntity(booksEntity, new BlackholeOutputStream(blackhole));
+    }
+
+    @Benchmark
+    public void xmlProviderAuthors(Blackhole blackhole) throws IOException {
+        writeEntity(authorsEntity, new BlackholeOutputStream(blackhole));
+    }
+
+    private void writeEntity(GenericEntity<?> entity, OutputStream out) throws IOException {
+        xmlProvider.writeTo(entity.getEntity(), entity.getRawType(), entity.getType(), new Annotation[0],
+                MediaType.APPLICATION_XML_TYPE, null, out);
+    }
+
+    private void writeXml(String root, List<?> elements, OutputStream out) throws JAXBException, XMLStreamException {
+        Marshaller marshaller = jaxbContext.createMarshaller();
+        marshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
+        XMLStreamWriter writer = xmlOutputFactory.createXMLStreamWriter(out, "UTF-8");
+        writer.writeStartDocument("UTF-8", "1.0");
+        writer.writeStartElement(root);
+        for (Object element : elements) {
+            marshaller.marshal(element, writer);
+        }
+        writer.writeEndElement();
+        writer.writeEndDocument();
+        writer.flush();
+    }
+
+    /**
+     * Consumes written bytes without keeping them.
+     */
+    static final class BlackholeOutputStream extends OutputStream {
+
+        private final Blackhole blackhole;
+
+        BlackholeOutputStream(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void write(int b) {
+            blackhole.consume(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            blackhole.consume(b);
+            blackhole.consume(len);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.testservice.benchmark;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import com.testservice.domain.Author;
+import com.testservice.domain.Book;
+import com.testservice.service.AuthorService;
+import com.testservice.service.BookService;
+
+/**
+ * Measures read paths of {@link AuthorService} and {@link BookService} against the embedded database.
+ * 
+ * @author taras
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ServiceBenchmark {
+
+    @Param("1000")
+    private int authors;
+
+    @Param("10")
+    private int booksPerAuthor;
+
+    private AnnotationConfigApplicationContext context;
+    private AuthorService authorService;
+    private BookService bookService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = EmbeddedServiceContext.start("services", authors, booksPerAuthor);
+        authorService = context.getBean(AuthorService.class);
+        bookService = context.getBean(BookService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Author> loadAllAuthors() {
+        return authorService.loadAll();
+    }
+
+    @Benchmark
+    public List<Book> loadAllBooks() {
+        return bookService.loadAll();
+    }
+
+    @Benchmark
+    public Author loadAuthor() {
+        return authorService.load(ThreadLocalRandom.current().nextInt(authors) + 1);
+    }
+
+    @Benchmark
+    public Book loadBook() {
+        return bookService.load(ThreadLocalRandom.current().nextInt(authors * booksPerAuthor) + 1);
+    }
+
+    @Benchmark
+    public List<Book> getBooksByAuthor() {
+        return bookService.getBooksByAuthor(ThreadLocalRandom.current().nextInt(authors) + 1);
+    }
+}
@@ -0,0 +1,120 @@
+package com.testservice.loadtest;
+
+import java.net.URI;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.webapp.WebAppContext;
+
+/**
+ * Boots the service web application from its web.xml in an embedded Jetty against a seeded in-memory H2 database.
+ * 
+ * @author taras
+ *
+ */
+public class EmbeddedServer implements AutoCloseable {
+
+    public static final String CONTEXT_PATH = "/test-service";
+    public static final String USER_NAME = "user";
+    public static final String USER_PASSWORD = "password";
+
+    private static final String JDBC_URL = "jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1;MODE=MySQL";
+    private static final int BATCH_SIZE = 1000;
+
+    private Server server;
+
+    /**
+     * Starts the server and seeds the database.
+     * 
+     * @param webapp directory with WEB-INF/web.xml of the service
+     * @param port HTTP port, 0 to choose a free one
+     * @param authors number of authors to seed
+     * @param booksPerAuthor number of books of every author
+     * @throws Exception if the server cannot be started
+     */
+    public void start(String webapp, int port, int authors, int booksPerAuthor) throws Exception {
+        System.setProperty("jdbc.driverClassName", "org.h2.Driver");
+        System.setProperty("jdbc.url", JDBC_URL);
+        System.setProperty("jdbc.username", "sa");
+        System.setProperty("jdbc.password", "");
+        System.setProperty("jdbc.replica.urls", "");
+
+        WebAppContext context = new WebAppContext();
+        context.setContextPath(CONTEXT_PATH);
+        context.setResourceBase(webapp);
+        context.setDescriptor(webapp + "/WEB-INF/web.xml");
+        context.setParentLoaderPriority(true);
+        context.setThrowUnavailableOnStartupException(true);
+
+        server = new Server(port);
+        server.setHandler(context);
+        server.start();
+        seed(authors, booksPerAuthor);
+    }
+
+    /**
+     * Retrieves base URI of the service.
+     * 
+     * @return base URI such as 'http://localhost:8080/test-service'
+     */
+    public URI getBaseUri() {
+        int port = ((ServerConnector) server.getConnectors()[0]).getLocalPort();
+        return URI.create("http://localhost:" + port + CONTEXT_PATH);
+    }
+
+    private void seed(int authors, int booksPerAuthor) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(JDBC_URL, "sa", "")) {
+            try (PreparedStatement ps = connection.prepareStatement(
+                    "insert into User (name, password, role) values (?, ?, ?)")) {
+                ps.setString(1, USER_NAME);
+                ps.setString(2, USER_PASSWORD);
+                ps.setString(3, "user");
+                ps.executeUpdate();
+            }
+            try (PreparedStatement ps = connection.prepareStatement(
+                    "insert into Author (id, firstName, lastName, age, salary) values (?, ?, ?, ?, ?)")) {
+                for (int i = 1; i <= authors; i++) {
+                    ps.setInt(1, i);
+                    ps.setString(2, "First" + i);
+                    ps.setString(3, "Last" + i);
+                    ps.setInt(4, 20 + i % 60);
+                    ps.setDouble(5, 1000.0 + i);
+                    ps.addBatch();
+                    if (i % BATCH_SIZE == 0) {
+                        ps.executeBatch();
+                    }
+                }
+                ps.executeBatch();
+            }
+            try (PreparedStatement ps = connection.prepareStatement(
+                    "insert into Book (id, name, year, authorId) values (?, ?, ?, ?)")) {
+                int bookId = 0;
+                for (int i = 1; i <= authors; i++) {
+                    for (int j = 0; j < booksPerAuthor; j++) {
+                        bookId++;
+                        ps.setInt(1, bookId);
+                        ps.setString(2, "Book " + bookId);
+                        ps.setInt(3, 1900 + bookId % 120);
+                        ps.setInt(4, i);
+                        ps.addBatch();
+                        if (bookId % BATCH_SIZE == 0) {
+                            ps.executeBatch();
+                        }
+                    }
+                }
+                ps.executeBatch();
+            }
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (server != null) {
+            server.stop();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.testservice.loadtest;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.testservice.metrics.LatencyHistogram;
+
+/**
+ * The Endpoint class represents one entry of the traffic mix with its collected statistics.
+ * 
+ * @author taras
+ *
+ */
+public class Endpoint {
+
+    private final String method;
+    private final String path;
+    private final int weight;
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder errors = new LongAdder();
+    private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+
+    public Endpoint(String method, String path, int weight) {
+        this.method = method;
+        this.path = path;
+        this.weight = weight;
+    }
+
+    /**
+     * Records a completed request.
+     * 
+     * @param status HTTP status code, 0 if the request has failed without response
+     * @param micros latency from the intended start of the request in microseconds
+     */
+    public void record(int status, long micros) {
+        latency.record(micros);
+        statuses.computeIfAbsent(status, key -> new LongAdder()).increment();
+        if (status < 200 || status >= 300) {
+            errors.increment();
+        }
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public Map<Integer, LongAdder> getStatuses() {
+        return statuses;
+    }
+
+    @Override
+    public String toString() {
+        return method + " " + path;
+    }
+}
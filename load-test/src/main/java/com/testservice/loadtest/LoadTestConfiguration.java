@@ -0,0 +1,104 @@
+package com.testservice.loadtest;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * LoadTestConfiguration holds load test settings given as 'key=value' command line arguments.
+ * 
+ * @author taras
+ *
+ */
+public class LoadTestConfiguration {
+
+    private static final String DEFAULT_MIX = "GET:/books=10,GET:/books/{bookId}=35,GET:/authors=5,"
+            + "GET:/authors/{authorId}=20,GET:/authors/{authorId}/books=15,POST:/books=5,POST:/authors=2,"
+            + "DELETE:/books/{createdBookId}=5,DELETE:/authors/{createdAuthorId}=3";
+
+    private final Map<String, String> values = new LinkedHashMap<>();
+
+    public LoadTestConfiguration(String[] args) {
+        values.put("webapp", "../src/main/webapp");
+        values.put("port", "0");
+        values.put("rate", "100");
+        values.put("warmup", "10");
+        values.put("duration", "30");
+        values.put("threads", "200");
+        values.put("authors", "1000");
+        values.put("booksPerAuthor", "10");
+        values.put("mix", DEFAULT_MIX);
+        values.put("report", "load-test-report.json");
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator <= 0 || !values.containsKey(arg.substring(0, separator))) {
+                throw new IllegalArgumentException("Unknown argument: " + arg + ", supported: " + values.keySet());
+            }
+            values.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+    }
+
+    public String getWebapp() {
+        return values.get("webapp");
+    }
+
+    public int getPort() {
+        return Integer.parseInt(values.get("port"));
+    }
+
+    /**
+     * Retrieves constant arrival rate of requests.
+     * 
+     * @return requests per second
+     */
+    public double getRate() {
+        return Double.parseDouble(values.get("rate"));
+    }
+
+    public int getWarmupSeconds() {
+        return Integer.parseInt(values.get("warmup"));
+    }
+
+    public int getDurationSeconds() {
+        return Integer.parseInt(values.get("duration"));
+    }
+
+    public int getThreads() {
+        return Integer.parseInt(values.get("threads"));
+    }
+
+    public int getAuthors() {
+        return Integer.parseInt(values.get("authors"));
+    }
+
+    public int getBooksPerAuthor() {
+        return Integer.parseInt(values.get("booksPerAuthor"));
+    }
+
+    public String getReport() {
+        return values.get("report");
+    }
+
+    /**
+     * Parses traffic mix 'METHOD:/path=weight,...'.
+     * 
+     * @return List of {@link Endpoint} instances
+     */
+    public List<Endpoint> getMix() {
+        List<Endpoint> endpoints = new ArrayList<>();
+        for (String entry : values.get("mix").split(",")) {
+            String[] parts = entry.trim().split("[:=]");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Illegal mix entry: " + entry);
+            }
+            endpoints.add(new Endpoint(parts[0].toUpperCase(), parts[1], Integer.parseInt(parts[2])));
+        }
+        return endpoints;
+    }
+
+    @Override
+    public String toString() {
+        return values.toString();
+    }
+}
@@ -0,0 +1,95 @@
+package com.testservice.loadtest;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.testservice.metrics.LatencyHistogram;
+
+/**
+ * Boots the service in an embedded container against a local database, drives the configured traffic mix at a
+ * constant arrival rate and reports throughput, latency percentiles and error rates per endpoint.
+ * 
+ * <pre>
+ * java -jar load-test.jar rate=500 duration=60 mix=GET:/books/{bookId}=80,POST:/books=20
+ * </pre>
+ * 
+ * @author taras
+ *
+ */
+public final class LoadTestMain {
+
+    private static final double MICROS_PER_MILLI = 1000.0;
+
+    private LoadTestMain() { }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfiguration configuration = new LoadTestConfiguration(args);
+        System.out.println("Configuration: " + configuration);
+        List<Endpoint> endpoints = configuration.getMix();
+        try (EmbeddedServer server = new EmbeddedServer()) {
+            server.start(configuration.getWebapp(), configuration.getPort(), configuration.getAuthors(),
+                    configuration.getBooksPerAuthor());
+            System.out.println("Service started at " + server.getBaseUri());
+            OpenModelLoadGenerator generator = new OpenModelLoadGenerator(server.getBaseUri(), endpoints,
+                    configuration.getAuthors(), configuration.getAuthors() * configuration.getBooksPerAuthor(),
+                    EmbeddedServer.USER_NAME, EmbeddedServer.USER_PASSWORD);
+            generator.run(configuration.getRate(), configuration.getWarmupSeconds(),
+                    configuration.getDurationSeconds(), configuration.getThreads());
+            List<Map<String, Object>> report = report(endpoints, configuration.getDurationSeconds());
+            print(report, generator.getDropped());
+            write(report, configuration.getReport());
+        }
+    }
+
+    private static List<Map<String, Object>> report(List<Endpoint> endpoints, int durationSeconds) {
+        List<Map<String, Object>> report = new ArrayList<>();
+        for (Endpoint endpoint : endpoints) {
+            LatencyHistogram latency = endpoint.getLatency();
+            long requests = latency.getCount();
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("endpoint", endpoint.toString());
+            row.put("requests", requests);
+            row.put("throughput", (double) requests / durationSeconds);
+            row.put("p50Millis", latency.getValueAtQuantile(0.5) / MICROS_PER_MILLI);
+            row.put("p99Millis", latency.getValueAtQuantile(0.99) / MICROS_PER_MILLI);
+            row.put("p999Millis", latency.getValueAtQuantile(0.999) / MICROS_PER_MILLI);
+            row.put("errors", endpoint.getErrors());
+            row.put("errorRate", requests == 0 ? 0.0 : (double) endpoint.getErrors() / requests);
+            Map<String, Long> statuses = new LinkedHashMap<>();
+            for (Map.Entry<Integer, LongAdder> status : endpoint.getStatuses().entrySet()) {
+                statuses.put(String.valueOf(status.getKey()), status.getValue().sum());
+            }
+            row.put("statuses", statuses);
+            report.add(row);
+        }
+        return report;
+    }
+
+    private static void print(List<Map<String, Object>> report, long dropped) {
+        System.out.println(String.format("%-40s %9s %9s %9s %9s %9s %8s", "endpoint", "requests", "req/s",
+                "p50 ms", "p99 ms", "p999 ms", "errors"));
+        for (Map<String, Object> row : report) {
+            System.out.println(String.format("%-40s %9d %9.1f %9.2f %9.2f %9.2f %7.2f%%", row.get("endpoint"),
+                    row.get("requests"), row.get("throughput"), row.get("p50Millis"), row.get("p99Millis"),
+                    row.get("p999Millis"), (Double) row.get("errorRate") * 100));
+        }
+        if (dropped > 0) {
+            System.out.println("Dropped requests: " + dropped);
+        }
+    }
+
+    private static void write(List<Map<String, Object>> report, String file) throws IOException {
+        if (file.isEmpty()) {
+            return;
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(new File(file), report);
+        System.out.println("Report is saved to " + file);
+    }
+}
@@ -0,0 +1,177 @@
+package com.testservice.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.commons.io.IOUtils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * OpenModelLoadGenerator sends requests at a constant arrival rate regardless of how fast the service answers. Latency
+ * is measured from the intended start of every request, so time spent waiting for a free client thread is included
+ * and a stalled service is not hidden by coordinated omission.
+ * 
+ * @author taras
+ *
+ */
+public class OpenModelLoadGenerator {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final URI baseUri;
+    private final List<Endpoint> endpoints;
+    private final int totalWeight;
+    private final int authors;
+    private final int books;
+    private final String authorization;
+    private final Queue<Integer> createdBooks = new ConcurrentLinkedQueue<>();
+    private final Queue<Integer> createdAuthors = new ConcurrentLinkedQueue<>();
+    private final AtomicLong dropped = new AtomicLong();
+
+    public OpenModelLoadGenerator(URI baseUri, List<Endpoint> endpoints, int authors, int books, String user,
+            String password) {
+        this.baseUri = baseUri;
+        this.endpoints = endpoints;
+        this.totalWeight = endpoints.stream().mapToInt(Endpoint::getWeight).sum();
+        this.authors = authors;
+        this.books = books;
+        this.authorization = "Basic " + Base64.getEncoder()
+                .encodeToString((user + ":" + password).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Sends requests during the warm-up without recording them, then during the measured duration.
+     * 
+     * @param rate requests per second
+     * @param warmupSeconds duration of the warm-up
+     * @param durationSeconds measured duration
+     * @param threads maximum number of concurrent requests
+     * @throws InterruptedException if interrupted while waiting for outstanding requests
+     */
+    public void run(double rate, int warmupSeconds, int durationSeconds, int threads) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(durationSeconds);
+        for (long i = 0;; i++) {
+            long intended = start + i * intervalNanos;
+            if (intended >= end) {
+                break;
+            }
+            long delay = intended - System.nanoTime();
+            if (delay > 0) {
+                LockSupport.parkNanos(delay);
+            }
+            Endpoint endpoint = choose();
+            boolean record = intended >= measureFrom;
+            executor.execute(() -> send(endpoint, intended, record));
+        }
+        executor.shutdown();
+        if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+            dropped.addAndGet(executor.shutdownNow().size());
+        }
+    }
+
+    /**
+     * Retrieves number of scheduled requests which were not sent before the deadline.
+     * 
+     * @return number of dropped requests
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    private Endpoint choose() {
+        int value = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Endpoint endpoint : endpoints) {
+            value -= endpoint.getWeight();
+            if (value < 0) {
+                return endpoint;
+            }
+        }
+        return endpoints.get(endpoints.size() - 1);
+    }
+
+    private void send(Endpoint endpoint, long intended, boolean record) {
+        int status = 0;
+        HttpURLConnection connection = null;
+        try {
+            connection = (HttpURLConnection) new URL(baseUri + resolve(endpoint.getPath())).openConnection();
+            connection.setRequestMethod(endpoint.getMethod());
+            connection.setRequestProperty("Authorization", authorization);
+            connection.setRequestProperty("Accept", "application/json");
+            if ("POST".equals(endpoint.getMethod())) {
+                connection.setDoOutput(true);
+                connection.setRequestProperty("Content-Type", "application/json");
+                try (OutputStream out = connection.getOutputStream()) {
+                    out.write(body(endpoint.getPath()).getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            status = connection.getResponseCode();
+            InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+            if (in != null) {
+                try (InputStream body = in) {
+                    byte[] bytes = IOUtils.toByteArray(body);
+                    if ("POST".equals(endpoint.getMethod()) && status == 200) {
+                        remember(endpoint.getPath(), bytes);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+        if (record) {
+            endpoint.record(status, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intended));
+        }
+    }
+
+    private String resolve(String path) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return path.replace("{authorId}", String.valueOf(random.nextInt(authors) + 1))
+                   .replace("{bookId}", String.valueOf(random.nextInt(books) + 1))
+                   .replace("{createdBookId}", String.valueOf(poll(createdBooks, books)))
+                   .replace("{createdAuthorId}", String.valueOf(poll(createdAuthors, authors)));
+    }
+
+    private static int poll(Queue<Integer> created, int existing) {
+        Integer id = created.poll();
+        return id != null ? id : ThreadLocalRandom.current().nextInt(existing) + 1;
+    }
+
+    private String body(String path) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (path.startsWith("/authors")) {
+            return "{\"firstName\":\"Load\",\"lastName\":\"Test\",\"age\":" + (20 + random.nextInt(60))
+                    + ",\"salary\":" + random.nextInt(10000) + "}";
+        }
+        return "{\"name\":\"Load test\",\"year\":" + (1900 + random.nextInt(120)) + ",\"authorId\":"
+                + (random.nextInt(authors) + 1) + "}";
+    }
+
+    private void remember(String path, byte[] body) throws IOException {
+        JsonNode id = MAPPER.readTree(body).get("id");
+        if (id != null) {
+            (path.startsWith("/authors") ? createdAuthors : createdBooks).add(id.asInt());
+        }
+    }
+}
@@ -1,22 +1,97 @@
 package com.testservice.config;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 import org.apache.commons.dbcp.BasicDataSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
 import org.springframework.context.annotation.PropertySource;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
 import org.springframework.core.env.Environment;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.StringUtils;
+
+import com.testservice.datasource.DataSourceRouting;
+import com.testservice.datasource.InstrumentedDataSource;
+import com.testservice.datasource.ReadWriteRoutingDataSource;
+import com.testservice.datasource.ReplicaBalancing;
+import com.testservice.datasource.ResilientDataSource;
+import com.testservice.datasource.ShardRouting;
+import com.testservice.datasource.ShardedDataSource;
+import com.testservice.event.ChangeFeeds;
+import com.testservice.limit.ConcurrencyLimiter;
+import com.testservice.membership.EntityMembership;
+import com.testservice.metrics.MetricsRegistry;
+import com.testservice.metrics.RequestProfiler;
+import com.testservice.metrics.RequestRecording;
+import com.testservice.metrics.ServiceTimingPostProcessor;
+import com.testservice.metrics.SqlMetrics;
+import com.testservice.replica.ColumnarReplica;
+import com.testservice.resilience.CircuitBreaker;
+import com.testservice.resilience.RequestDeadline;
+import com.testservice.schema.SchemaMigrator;
+import com.testservice.search.EntitySearch;
+import com.testservice.service.AccessTokenService;
+import com.testservice.service.AuthorService;
+import com.testservice.service.BookService;
+import com.testservice.service.RequestCoalescer;
+import com.testservice.service.TokenService;
+import com.testservice.service.UserService;
+import com.testservice.stats.EntityStatistics;
+import com.testservice.transfer.DataTransfer;
+import com.testservice.warmup.WarmUp;
 
+/**
+ * Root Spring configuration. Components are imported explicitly instead of scanning 'com.testservice' package to keep
+ * startup fast, new components should be added to {@link Import} list. Jersey resources and filters are not Spring
+ * beans, they are registered in {@link TestServiceApplication} and autowire themselves.
+ * 
+ * @author taras
+ *
+ */
 @Configuration
-@ComponentScan("com.testservice")
+@Import({ DataSourceRouting.class, ShardRouting.class, SqlMetrics.class, MetricsRegistry.class, RequestProfiler.class,
+        RequestRecording.class, ServiceTimingPostProcessor.class, SchemaMigrator.class, RequestCoalescer.class,
+        AuthorService.class, BookService.class, UserService.class, TokenService.class, AccessTokenService.class,
+        ChangeFeeds.class, ConcurrencyLimiter.class, RequestDeadline.class, CircuitBreaker.class,
+        EntityStatistics.class, EntitySearch.class, ColumnarReplica.class, EntityMembership.class, WarmUp.class,
+        DataTransfer.class })
 @PropertySource("classpath:datasource.properties")
 public class RootApplicationContextConfiguration {
 
     @Autowired
     private Environment environment;
 
+    @Autowired
+    private DataSourceRouting dataSourceRouting;
+
+    @Autowired
+    private ShardRouting shardRouting;
+
+    @Autowired
+    private SqlMetrics sqlMetrics;
+
+    @Autowired
+    private RequestProfiler requestProfiler;
+
+    @Autowired
+    private RequestRecording requestRecording;
+
+    @Autowired
+    private CircuitBreaker circuitBreaker;
+
+    @Autowired
+    private RequestDeadline requestDeadline;
+
+    @Bean
+    public static PropertySourcesPlaceholderConfigurer propertySourcesPlaceholderConfigurer() {
+        return new PropertySourcesPlaceholderConfigurer();
+    }
+
     @Bean(destroyMethod = "close")
     public BasicDataSource dataSource() {
         BasicDataSource dataSource = new BasicDataSource();
@@ -24,11 +99,85 @@ public class RootApplicationContextConfiguration {
         dataSource.setUrl(environment.getProperty("jdbc.url"));
         dataSource.setUsername(environment.getProperty("jdbc.username"));
         dataSource.setPassword(environment.getProperty("jdbc.password"));
+        dataSource.setMaxWait(maxWaitMillis());
+        dataSource.setMinIdle(minIdle());
+        dataSource.setPoolPreparedStatements(true);
+        dataSource.setMaxOpenPreparedStatements(maxOpenPreparedStatements());
         return dataSource;
     }
 
+    @Bean
+    public ReadWriteRoutingDataSource routingDataSource() {
+        List<BasicDataSource> replicas = new ArrayList<>();
+        for (String url : StringUtils.commaDelimitedListToStringArray(environment.getProperty("jdbc.replica.urls"))) {
+            BasicDataSource replica = new BasicDataSource();
+            replica.setDriverClassName(environment.getProperty("jdbc.replica.driverClassName",
+                    environment.getProperty("jdbc.driverClassName")));
+            replica.setUrl(url.trim());
+            replica.setUsername(environment.getProperty("jdbc.replica.username",
+                    environment.getProperty("jdbc.username")));
+            replica.setPassword(environment.getProperty("jdbc.replica.password",
+                    environment.getProperty("jdbc.password")));
+            replica.setDefaultReadOnly(true);
+            replica.setMaxWait(maxWaitMillis());
+            replica.setMinIdle(minIdle());
+            replica.setPoolPreparedStatements(true);
+            replica.setMaxOpenPreparedStatements(maxOpenPreparedStatements());
+            replicas.add(replica);
+        }
+        ReplicaBalancing balancing = ReplicaBalancing.fromProperty(
+                environment.getProperty("jdbc.replica.balancing", "round-robin"));
+        return new ReadWriteRoutingDataSource(dataSource(), replicas, balancing, dataSourceRouting);
+    }
+
+    @Bean
+    public ShardedDataSource shardedDataSource() {
+        List<ReadWriteRoutingDataSource> shards = new ArrayList<>();
+        shards.add(routingDataSource());
+        for (String url : StringUtils.commaDelimitedListToStringArray(environment.getProperty("jdbc.shard.urls"))) {
+            BasicDataSource shard = new BasicDataSource();
+            shard.setDriverClassName(environment.getProperty("jdbc.shard.driverClassName",
+                    environment.getProperty("jdbc.driverClassName")));
+            shard.setUrl(url.trim());
+            shard.setUsername(environment.getProperty("jdbc.shard.username",
+                    environment.getProperty("jdbc.username")));
+            shard.setPassword(environment.getProperty("jdbc.shard.password",
+                    environment.getProperty("jdbc.password")));
+            shard.setMaxWait(maxWaitMillis());
+            shard.setMinIdle(minIdle());
+            shard.setPoolPreparedStatements(true);
+            shard.setMaxOpenPreparedStatements(maxOpenPreparedStatements());
+            shards.add(new ReadWriteRoutingDataSource(shard, Collections.<BasicDataSource> emptyList(),
+                    ReplicaBalancing.ROUND_ROBIN, dataSourceRouting));
+        }
+        return new ShardedDataSource(shards, shardRouting);
+    }
+
+    @Bean
+    public InstrumentedDataSource instrumentedDataSource() {
+        return new InstrumentedDataSource(shardedDataSource(), sqlMetrics, requestProfiler, requestRecording,
+                environment.getProperty("jdbc.slowQueryThresholdMillis", Long.class, 500L));
+    }
+
+    @Bean
+    public ResilientDataSource resilientDataSource() {
+        return new ResilientDataSource(instrumentedDataSource(), circuitBreaker, requestDeadline, shardRouting);
+    }
+
     @Bean
     public JdbcTemplate jdbcTemplate() {
-        return new JdbcTemplate(dataSource());
+        return new JdbcTemplate(resilientDataSource());
+    }
+
+    private long maxWaitMillis() {
+        return environment.getProperty("jdbc.maxWaitMillis", Long.class, 1000L);
+    }
+
+    private int minIdle() {
+        return environment.getProperty("jdbc.minIdle", Integer.class, 4);
+    }
+
+    private int maxOpenPreparedStatements() {
+        return environment.getProperty("jdbc.maxOpenPreparedStatements", Integer.class, 32);
     }
-}
\ No newline at end of file
+}
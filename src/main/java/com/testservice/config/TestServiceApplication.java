@@ -0,0 +1,60 @@
+package com.testservice.config;
+
+import org.glassfish.jersey.media.sse.SseFeature;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.glassfish.jersey.server.filter.RolesAllowedDynamicFeature;
+
+import com.testservice.filter.AuthorizationRequestFilter;
+import com.testservice.filter.ConcurrencyLimitFilter;
+import com.testservice.filter.DeadlineFilter;
+import com.testservice.filter.LoggingRequestFilter;
+import com.testservice.filter.RequestCompletionListener;
+import com.testservice.metrics.MetricsFilter;
+import com.testservice.metrics.ProfileAccessFilter;
+import com.testservice.provider.CborProvider;
+import com.testservice.provider.DatabaseUnavailableMapper;
+import com.testservice.provider.SmileProvider;
+import com.testservice.provider.XmlProvider;
+import com.testservice.resource.AdminResource;
+import com.testservice.resource.AuthorResource;
+import com.testservice.resource.BookResource;
+import com.testservice.resource.HealthResource;
+import com.testservice.resource.MetricsResource;
+import com.testservice.resource.TokenResource;
+import com.testservice.resource.TransferResource;
+import com.testservice.warmup.WarmUpListener;
+
+/**
+ * TestServiceApplication registers resources, filters and features of the service explicitly instead of scanning
+ * 'com.testservice' package at startup. New resources and providers should be registered here.
+ * 
+ * @author taras
+ *
+ */
+public class TestServiceApplication extends ResourceConfig {
+
+    public TestServiceApplication() {
+        register(MetricsFilter.class);
+        register(LoggingRequestFilter.class);
+        register(AuthorizationRequestFilter.class);
+        register(ProfileAccessFilter.class);
+        register(ConcurrencyLimitFilter.class);
+        register(DeadlineFilter.class);
+        register(RequestCompletionListener.class);
+        register(RolesAllowedDynamicFeature.class);
+        register(SseFeature.class);
+        register(XmlProvider.class);
+        register(SmileProvider.class);
+        register(CborProvider.class);
+        register(DatabaseUnavailableMapper.class);
+        register(WarmUpListener.class);
+
+        register(AuthorResource.class);
+        register(BookResource.class);
+        register(AdminResource.class);
+        register(MetricsResource.class);
+        register(HealthResource.class);
+        register(TokenResource.class);
+        register(TransferResource.class);
+    }
+}
@@ -0,0 +1,111 @@
+package com.testservice.datasource;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * DataSourceRouting holds the routing state of the current thread: whether the current call is read-only and which
+ * principal issues it. Remembers the time of the last write of every principal to keep its reads on the primary
+ * database during the sticky window.
+ * 
+ * @author taras
+ *
+ */
+@Component
+public class DataSourceRouting {
+
+    private final ThreadLocal<Boolean> readOnly = new ThreadLocal<>();
+    private final ThreadLocal<String> principal = new ThreadLocal<>();
+    private final Map<String, Long> lastWrites = new ConcurrentHashMap<>();
+
+    @Value("${jdbc.replica.stickyWindowMillis:5000}")
+    private long stickyWindowMillis;
+
+    /**
+     * Executes the loader marking all connections it obtains as read-only.
+     * 
+     * @param loader loads the result
+     * @return result of the loader
+     */
+    public <T> T readOnly(Supplier<T> loader) {
+        Boolean previous = readOnly.get();
+        readOnly.set(Boolean.TRUE);
+        try {
+            return loader.get();
+        } finally {
+            if (previous == null) {
+                readOnly.remove();
+            } else {
+                readOnly.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Checks whether the current call is read-only.
+     * 
+     * @return true if the current call is read-only
+     */
+    public boolean isReadOnly() {
+        return Boolean.TRUE.equals(readOnly.get());
+    }
+
+    /**
+     * Binds the principal issuing calls to the current thread.
+     * 
+     * @param name name of the principal, null to unbind
+     */
+    public void setPrincipal(String name) {
+        if (name == null) {
+            principal.remove();
+        } else {
+            principal.set(name);
+        }
+    }
+
+    /**
+     * Retrieves the principal issuing calls on the current thread.
+     * 
+     * @return name of the principal or null
+     */
+    public String getPrincipal() {
+        return principal.get();
+    }
+
+    /**
+     * Remembers that the principal of the current thread has written to the primary database.
+     */
+    public void markWrite() {
+        String name = principal.get();
+        if (name != null) {
+            lastWrites.put(name, System.nanoTime());
+        }
+    }
+
+    /**
+     * Checks whether reads of the current principal should stay on the primary database because it has written
+     * recently.
+     * 
+     * @return true if the principal has written during the sticky window
+     */
+    public boolean isPinnedToPrimary() {
+        String name = principal.get();
+        if (name == null) {
+            return false;
+        }
+        Long lastWrite = lastWrites.get(name);
+        if (lastWrite == null) {
+            return false;
+        }
+        if (System.nanoTime() - lastWrite < TimeUnit.MILLISECONDS.toNanos(stickyWindowMillis)) {
+            return true;
+        }
+        lastWrites.remove(name, lastWrite);
+        return false;
+    }
+}
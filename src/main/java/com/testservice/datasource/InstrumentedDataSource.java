@@ -0,0 +1,275 @@
+package com.testservice.datasource;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.apache.log4j.Logger;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import com.testservice.metrics.RequestProfile;
+import com.testservice.metrics.RequestProfiler;
+import com.testservice.metrics.RequestRecording;
+import com.testservice.metrics.SqlMetrics;
+
+/**
+ * InstrumentedDataSource measures connection acquire time, execution time and returned or updated rows of every
+ * statement executed through the target data source and records them in {@link SqlMetrics} per normalized
+ * statement. Statements running longer than the threshold are written to the slow query log with the types of their
+ * bind parameters. Connection acquisition, statement execution and fetching of rows also count in the database phase
+ * of the {@link RequestProfile} of the current request. Statements of requests which are not recorded, see
+ * {@link RequestRecording}, are neither recorded nor logged.
+ * 
+ * @author taras
+ *
+ */
+public class InstrumentedDataSource extends DelegatingDataSource {
+
+    private static final Logger SLOW_QUERY_LOGGER = Logger.getLogger("com.testservice.sql.slow");
+
+    private final SqlMetrics sqlMetrics;
+    private final RequestProfiler requestProfiler;
+    private final RequestRecording requestRecording;
+    private final long slowQueryThresholdMicros;
+
+    public InstrumentedDataSource(DataSource targetDataSource, SqlMetrics sqlMetrics, RequestProfiler requestProfiler,
+            RequestRecording requestRecording, long slowQueryThresholdMillis) {
+        super(targetDataSource);
+        this.sqlMetrics = sqlMetrics;
+        this.requestProfiler = requestProfiler;
+        this.requestRecording = requestRecording;
+        this.slowQueryThresholdMicros = TimeUnit.MILLISECONDS.toMicros(slowQueryThresholdMillis);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = getTargetDataSource().getConnection();
+        return proxy(Connection.class, new ConnectionHandler(connection, acquired(start)));
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = getTargetDataSource().getConnection(username, password);
+        return proxy(Connection.class, new ConnectionHandler(connection, acquired(start)));
+    }
+
+    private long acquired(long start) {
+        long nanos = System.nanoTime() - start;
+        RequestProfile profile = requestProfiler.current();
+        if (profile != null) {
+            profile.addDatabaseCall(nanos, false);
+        }
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    private static long elapsedMicros(long start) {
+        return TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(InstrumentedDataSource.class.getClassLoader(), new Class<?>[] { type },
+                handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Wraps statements created by the connection. The connection acquire time is attributed to its first statement.
+     */
+    private class ConnectionHandler implements InvocationHandler {
+
+        private final Connection target;
+        private long acquireMicros;
+
+        ConnectionHandler(Connection target, long acquireMicros) {
+            this.target = target;
+            this.acquireMicros = acquireMicros;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = InstrumentedDataSource.invoke(target, method, args);
+            switch (method.getName()) {
+            case "createStatement":
+                return proxy(Statement.class, new StatementHandler((Statement) result, null, takeAcquireMicros()));
+            case "prepareStatement":
+                return proxy(PreparedStatement.class,
+                        new StatementHandler((Statement) result, (String) args[0], takeAcquireMicros()));
+            case "prepareCall":
+                return proxy(CallableStatement.class,
+                        new StatementHandler((Statement) result, (String) args[0], takeAcquireMicros()));
+            default:
+                return result;
+            }
+        }
+
+        private long takeAcquireMicros() {
+            long micros = acquireMicros;
+            acquireMicros = -1;
+            return micros;
+        }
+    }
+
+    /**
+     * Times executions of the statement and remembers types of its bind parameters.
+     */
+    private class StatementHandler implements InvocationHandler {
+
+        private final Statement target;
+        private final String sql;
+        private final List<String> parameterTypes = new ArrayList<>();
+        private long acquireMicros;
+
+        StatementHandler(Statement target, String sql, long acquireMicros) {
+            this.target = target;
+            this.sql = sql;
+            this.acquireMicros = acquireMicros;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("execute")) {
+                return execute(method, args);
+            }
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                rememberParameterType((Integer) args[0], name.equals("setNull") ? "null" : typeOf(args[1]));
+            } else if (name.equals("clearParameters")) {
+                parameterTypes.clear();
+            }
+            return InstrumentedDataSource.invoke(target, method, args);
+        }
+
+        private Object execute(Method method, Object[] args) throws Throwable {
+            String statement = sqlMetrics.normalize(args != null && args.length > 0 && args[0] instanceof String
+                    ? (String) args[0] : String.valueOf(sql));
+            if (acquireMicros >= 0) {
+                if (requestRecording.isRecorded()) {
+                    sqlMetrics.recordConnectionAcquire(statement, acquireMicros);
+                }
+                acquireMicros = -1;
+            }
+            RequestProfile profile = requestProfiler.current();
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = InstrumentedDataSource.invoke(target, method, args);
+            } catch (Throwable e) {
+                record(statement, elapsedMicros(start), -1, true);
+                throw e;
+            } finally {
+                if (profile != null) {
+                    profile.addDatabaseCall(System.nanoTime() - start, true);
+                }
+            }
+            if (result instanceof ResultSet) {
+                return proxy(ResultSet.class, new ResultSetHandler((ResultSet) result, statement, start,
+                        new ArrayList<>(parameterTypes), profile));
+            }
+            long rows = result instanceof Number ? ((Number) result).longValue() : -1;
+            if (result instanceof int[]) {
+                rows = 0;
+                for (int count : (int[]) result) {
+                    rows += Math.max(count, 0);
+                }
+            }
+            record(statement, elapsedMicros(start), rows, false);
+            return result;
+        }
+
+        private void record(String statement, long micros, long rows, boolean failed) {
+            recordExecution(statement, micros, rows, failed, parameterTypes);
+        }
+
+        private void rememberParameterType(int index, String type) {
+            while (parameterTypes.size() < index) {
+                parameterTypes.add("?");
+            }
+            parameterTypes.set(index - 1, type);
+        }
+    }
+
+    /**
+     * Counts rows read from the result set and records the execution when the result set is closed. Fetching of rows
+     * is added to the request profile, mapping of rows is not.
+     */
+    private class ResultSetHandler implements InvocationHandler {
+
+        private final ResultSet target;
+        private final String statement;
+        private final long start;
+        private final List<String> parameterTypes;
+        private final RequestProfile profile;
+        private long rows;
+        private boolean recorded;
+
+        ResultSetHandler(ResultSet target, String statement, long start, List<String> parameterTypes,
+                RequestProfile profile) {
+            this.target = target;
+            this.statement = statement;
+            this.start = start;
+            this.parameterTypes = parameterTypes;
+            this.profile = profile;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result;
+            if (profile != null && method.getName().equals("next")) {
+                long fetchStart = System.nanoTime();
+                try {
+                    result = InstrumentedDataSource.invoke(target, method, args);
+                } finally {
+                    profile.addDatabaseCall(System.nanoTime() - fetchStart, false);
+                }
+            } else {
+                result = InstrumentedDataSource.invoke(target, method, args);
+            }
+            if (method.getName().equals("next") && Boolean.TRUE.equals(result)) {
+                rows++;
+            } else if (method.getName().equals("close") && !recorded) {
+                recorded = true;
+                long micros = elapsedMicros(start);
+                recordExecution(statement, micros, rows, false, parameterTypes);
+            }
+            return result;
+        }
+    }
+
+    private void recordExecution(String statement, long micros, long rows, boolean failed,
+            List<String> parameterTypes) {
+        if (!requestRecording.isRecorded()) {
+            return;
+        }
+        sqlMetrics.recordExecution(statement, micros, rows, failed);
+        if (micros >= slowQueryThresholdMicros) {
+            SLOW_QUERY_LOGGER.warn(TimeUnit.MICROSECONDS.toMillis(micros) + " ms; rows: " + rows + "; parameters: "
+                    + parameterTypes + "; " + statement);
+        }
+    }
+
+    private static String typeOf(Object value) {
+        return value == null ? "null" : value.getClass().getSimpleName();
+    }
+}
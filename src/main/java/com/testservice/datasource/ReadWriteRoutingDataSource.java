@@ -0,0 +1,114 @@
+package com.testservice.datasource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.dbcp.BasicDataSource;
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+/**
+ * ReadWriteRoutingDataSource sends read-only calls to a pool of read replicas and all other calls to the primary
+ * database. Read-only calls of a principal which has written during the sticky window stay on the primary database.
+ * 
+ * @author taras
+ *
+ */
+public class ReadWriteRoutingDataSource extends AbstractDataSource implements DisposableBean {
+
+    private static final Logger LOGGER = Logger.getLogger(ReadWriteRoutingDataSource.class);
+
+    private final BasicDataSource primary;
+    private final List<BasicDataSource> replicas;
+    private final ReplicaBalancing balancing;
+    private final DataSourceRouting routing;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReadWriteRoutingDataSource(BasicDataSource primary, List<BasicDataSource> replicas,
+            ReplicaBalancing balancing, DataSourceRouting routing) {
+        this.primary = primary;
+        this.replicas = new ArrayList<>(replicas);
+        this.balancing = balancing;
+        this.routing = routing;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        BasicDataSource replica = determineReplica();
+        if (replica != null) {
+            try {
+                return replica.getConnection();
+            } catch (SQLException e) {
+                LOGGER.error("Unable to get connection from replica " + replica.getUrl() + ", using primary", e);
+            }
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        BasicDataSource replica = determineReplica();
+        if (replica != null) {
+            try {
+                return replica.getConnection(username, password);
+            } catch (SQLException e) {
+                LOGGER.error("Unable to get connection from replica " + replica.getUrl() + ", using primary", e);
+            }
+        }
+        return primary.getConnection(username, password);
+    }
+
+    /**
+     * Retrieves the primary database all writes go to.
+     * 
+     * @return primary data source
+     */
+    public BasicDataSource getPrimary() {
+        return primary;
+    }
+
+    /**
+     * Retrieves read replicas.
+     * 
+     * @return List of replica data sources
+     */
+    public List<BasicDataSource> getReplicas() {
+        return replicas;
+    }
+
+    private BasicDataSource determineReplica() {
+        if (!routing.isReadOnly()) {
+            routing.markWrite();
+            return null;
+        }
+        if (replicas.isEmpty() || routing.isPinnedToPrimary()) {
+            return null;
+        }
+        if (balancing == ReplicaBalancing.LEAST_CONNECTIONS) {
+            BasicDataSource least = replicas.get(0);
+            for (BasicDataSource replica : replicas) {
+                if (replica.getNumActive() < least.getNumActive()) {
+                    least = replica;
+                }
+            }
+            return least;
+        }
+        return replicas.get((next.getAndIncrement() & Integer.MAX_VALUE) % replicas.size());
+    }
+
+    /**
+     * Closes replica pools. The primary pool is closed by its own bean.
+     * 
+     * @see org.springframework.beans.factory.DisposableBean#destroy()
+     */
+    @Override
+    public void destroy() throws SQLException {
+        for (BasicDataSource replica : replicas) {
+            replica.close();
+        }
+    }
+}
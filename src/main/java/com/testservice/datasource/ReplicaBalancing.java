@@ -0,0 +1,30 @@
+package com.testservice.datasource;
+
+/**
+ * Strategies of choosing a read replica for read-only calls.
+ * 
+ * @author taras
+ *
+ */
+public enum ReplicaBalancing {
+
+    /**
+     * Replicas are used in turn.
+     */
+    ROUND_ROBIN,
+
+    /**
+     * The replica with the least number of active connections is used.
+     */
+    LEAST_CONNECTIONS;
+
+    /**
+     * Parses the strategy from property value such as 'round-robin' or 'least-connections'.
+     * 
+     * @param value property value
+     * @return ReplicaBalancing instance
+     */
+    public static ReplicaBalancing fromProperty(String value) {
+        return valueOf(value.trim().toUpperCase().replace('-', '_'));
+    }
+}
@@ -0,0 +1,208 @@
+package com.testservice.datasource;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLDataException;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.SQLSyntaxErrorException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import com.testservice.resilience.CircuitBreaker;
+import com.testservice.resilience.RequestDeadline;
+
+/**
+ * ResilientDataSource bounds database calls of a request by its {@link RequestDeadline} and guards the database with
+ * the {@link CircuitBreaker} of the shard bound by {@link ShardRouting}. Connections are not requested while the
+ * breaker is open or after the deadline has passed, statements get the time left as their query timeout. Connection
+ * failures and statement executions are reported to the breaker of the shard; errors caused by the statement itself,
+ * e.g. constraint violations, are not counted as failures of the database. Batches are bulk writes which take long by
+ * their size, they are not counted as slow calls.
+ *
+ * @author taras
+ *
+ */
+public class ResilientDataSource extends DelegatingDataSource {
+
+    private final CircuitBreaker circuitBreaker;
+    private final RequestDeadline requestDeadline;
+    private final ShardRouting shards;
+
+    public ResilientDataSource(DataSource targetDataSource, CircuitBreaker circuitBreaker,
+            RequestDeadline requestDeadline, ShardRouting shards) {
+        super(targetDataSource);
+        this.circuitBreaker = circuitBreaker;
+        this.requestDeadline = requestDeadline;
+        this.shards = shards;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        int shard = shards.current();
+        checkPermission(shard);
+        long start = System.nanoTime();
+        Connection connection;
+        try {
+            connection = getTargetDataSource().getConnection();
+        } catch (SQLException e) {
+            circuitBreaker.record(shard, elapsedMicros(start), true);
+            throw e;
+        }
+        return checkAcquired(shard, connection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        int shard = shards.current();
+        checkPermission(shard);
+        long start = System.nanoTime();
+        Connection connection;
+        try {
+            connection = getTargetDataSource().getConnection(username, password);
+        } catch (SQLException e) {
+            circuitBreaker.record(shard, elapsedMicros(start), true);
+            throw e;
+        }
+        return checkAcquired(shard, connection);
+    }
+
+    private void checkPermission(int shard) throws SQLException {
+        if (!circuitBreaker.tryAcquire(shard)) {
+            throw new SQLTransientConnectionException("Database circuit breaker is open");
+        }
+        if (requestDeadline.remainingMillis() <= 0) {
+            throw new SQLTimeoutException("Request deadline exceeded before connection acquire");
+        }
+    }
+
+    private Connection checkAcquired(int shard, Connection connection) throws SQLException {
+        if (requestDeadline.remainingMillis() <= 0) {
+            connection.close();
+            throw new SQLTimeoutException("Request deadline exceeded while waiting for a connection");
+        }
+        return proxy(Connection.class, new ConnectionHandler(shard, connection));
+    }
+
+    private static long elapsedMicros(long start) {
+        return TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(ResilientDataSource.class.getClassLoader(), new Class<?>[] { type },
+                handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Checks whether the error is caused by the statement rather than by the state of the database.
+     */
+    private static boolean isStatementError(Throwable e) {
+        return e instanceof SQLIntegrityConstraintViolationException || e instanceof SQLDataException
+                || e instanceof SQLSyntaxErrorException || e instanceof SQLFeatureNotSupportedException;
+    }
+
+    /**
+     * Wraps statements created by the connection.
+     */
+    private class ConnectionHandler implements InvocationHandler {
+
+        private final int shard;
+        private final Connection target;
+
+        ConnectionHandler(int shard, Connection target) {
+            this.shard = shard;
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = ResilientDataSource.invoke(target, method, args);
+            switch (method.getName()) {
+            case "createStatement":
+                return proxy(Statement.class, new StatementHandler(shard, (Statement) result));
+            case "prepareStatement":
+                return proxy(PreparedStatement.class, new StatementHandler(shard, (Statement) result));
+            case "prepareCall":
+                return proxy(CallableStatement.class, new StatementHandler(shard, (Statement) result));
+            default:
+                return result;
+            }
+        }
+    }
+
+    /**
+     * Applies the time left till the request deadline as query timeout and reports executions to the breaker.
+     */
+    private class StatementHandler implements InvocationHandler {
+
+        private final int shard;
+        private final Statement target;
+
+        StatementHandler(int shard, Statement target) {
+            this.shard = shard;
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (!method.getName().startsWith("execute")) {
+                return ResilientDataSource.invoke(target, method, args);
+            }
+            if (requestDeadline.isSet()) {
+                long remainingMillis = requestDeadline.remainingMillis();
+                if (remainingMillis <= 0) {
+                    throw new SQLTimeoutException("Request deadline exceeded before statement execution");
+                }
+                // JDBC query timeout has a granularity of seconds
+                target.setQueryTimeout((int) Math.min(Integer.MAX_VALUE, (remainingMillis + 999) / 1000));
+            } else {
+                // pooled statements keep the timeout of the previous request
+                target.setQueryTimeout(0);
+            }
+            boolean batch = method.getName().endsWith("Batch");
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = ResilientDataSource.invoke(target, method, args);
+            } catch (SQLTimeoutException e) {
+                // short timeouts come from the request deadline, the breaker counts only slow ones as failures
+                record(batch, start, false);
+                throw e;
+            } catch (Throwable e) {
+                record(batch, start, !isStatementError(e));
+                throw e;
+            }
+            record(batch, start, false);
+            return result;
+        }
+
+        private void record(boolean batch, long start, boolean failed) {
+            if (batch) {
+                circuitBreaker.record(shard, failed);
+            } else {
+                circuitBreaker.record(shard, elapsedMicros(start), failed);
+            }
+        }
+    }
+}
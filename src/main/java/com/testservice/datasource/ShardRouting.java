@@ -0,0 +1,239 @@
+package com.testservice.datasource;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import com.testservice.metrics.RequestProfile;
+import com.testservice.metrics.RequestProfiler;
+import com.testservice.metrics.RequestRecording;
+import com.testservice.resilience.RequestDeadline;
+
+/**
+ * ShardRouting holds the shard of the current thread, which {@link ShardedDataSource} sends calls to. Authors and
+ * books are sharded by identifier ranges: identifiers of shard N start at N * 'jdbc.shard.idRange' + 1, so the shard of
+ * an author or a book is known from its identifier alone. New authors are spread over the shards round-robin, books
+ * are written to the shard of their author. Calls without a bound shard go to shard 0, which also keeps not sharded
+ * tables, e.g. User.
+ *
+ * @author taras
+ *
+ */
+@Component
+public class ShardRouting implements DisposableBean {
+
+    private final ThreadLocal<Integer> shard = new ThreadLocal<>();
+    private final AtomicInteger next = new AtomicInteger();
+
+    @Autowired
+    private DataSourceRouting dataSourceRouting;
+
+    @Autowired
+    private RequestDeadline requestDeadline;
+
+    @Autowired
+    private RequestProfiler requestProfiler;
+
+    @Autowired
+    private RequestRecording requestRecording;
+
+    @Value("${jdbc.shard.urls:}")
+    private String shardUrls;
+
+    @Value("${jdbc.shard.idRange:100000000}")
+    private int idRange;
+
+    private int shardCount;
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        shardCount = 1 + StringUtils.commaDelimitedListToStringArray(shardUrls).length;
+        if ((long) shardCount * idRange > Integer.MAX_VALUE) {
+            throw new IllegalStateException(shardCount + " shards do not fit identifier range " + idRange);
+        }
+        AtomicInteger threads = new AtomicInteger();
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "shard-query-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return number of shards, 1 if sharding is not configured
+     */
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    /**
+     * @return first identifier of authors and books of the shard
+     */
+    public int firstId(int shard) {
+        return shard * idRange + 1;
+    }
+
+    /**
+     * Finds the shard of an author or a book.
+     *
+     * @param id identifier of the author or the book
+     * @return shard which keeps the entity
+     */
+    public int shardOf(int id) {
+        if (id <= 0) {
+            return 0;
+        }
+        return Math.min((id - 1) / idRange, shardCount - 1);
+    }
+
+    /**
+     * Chooses the shard of a new author.
+     *
+     * @return next shard in round-robin order
+     */
+    public int nextShard() {
+        return (next.getAndIncrement() & Integer.MAX_VALUE) % shardCount;
+    }
+
+    /**
+     * @return shard bound to the current thread, 0 if none
+     */
+    public int current() {
+        Integer current = shard.get();
+        return current == null ? 0 : current;
+    }
+
+    /**
+     * Executes the call sending all its database calls to the shard.
+     *
+     * @param shard index of the shard
+     * @param call database calls
+     * @return result of the call
+     */
+    public <T> T on(int shard, Supplier<T> call) {
+        Integer previous = this.shard.get();
+        this.shard.set(shard);
+        try {
+            return call.get();
+        } finally {
+            if (previous == null) {
+                this.shard.remove();
+            } else {
+                this.shard.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Executes the call sending all its database calls to the shard.
+     *
+     * @param shard index of the shard
+     * @param call database calls
+     */
+    public void on(int shard, Runnable call) {
+        on(shard, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    /**
+     * Executes the call on every shard in parallel. Read-only routing, principal, deadline, request profile and
+     * recording of the current thread apply to every shard.
+     *
+     * @param call database calls
+     * @return results of the shards in shard order
+     * @throws RuntimeException thrown by the call on any shard
+     */
+    public <T> List<T> scatter(Supplier<T> call) {
+        List<T> results = new ArrayList<>(shardCount);
+        if (shardCount == 1) {
+            results.add(on(0, call));
+            return results;
+        }
+        boolean readOnly = dataSourceRouting.isReadOnly();
+        String principal = dataSourceRouting.getPrincipal();
+        long remainingMillis = requestDeadline.isSet() ? requestDeadline.remainingMillis() : -1;
+        RequestProfile profile = requestProfiler.current();
+        boolean recorded = requestRecording.isRecorded();
+        List<Future<T>> futures = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            int target = i;
+            futures.add(executor.submit(() -> {
+                dataSourceRouting.setPrincipal(principal);
+                requestProfiler.bind(profile);
+                requestRecording.bind(recorded);
+                if (remainingMillis >= 0) {
+                    requestDeadline.start(remainingMillis);
+                }
+                try {
+                    return readOnly ? dataSourceRouting.readOnly(() -> on(target, call)) : on(target, call);
+                } finally {
+                    dataSourceRouting.setPrincipal(null);
+                    requestProfiler.bind(null);
+                    requestRecording.bind(true);
+                    requestDeadline.clear();
+                }
+            }));
+        }
+        for (Future<T> future : futures) {
+            results.add(await(future));
+        }
+        return results;
+    }
+
+    /**
+     * Executes the query on every shard in parallel and merges the rows.
+     *
+     * @param query query returning rows of one shard
+     * @param order order of merged rows, applied when there are several shards
+     * @return rows of all shards
+     */
+    public <T> List<T> gather(Supplier<List<T>> query, Comparator<? super T> order) {
+        List<List<T>> results = scatter(query);
+        if (results.size() == 1) {
+            return results.get(0);
+        }
+        List<T> rows = new ArrayList<>();
+        for (List<T> result : results) {
+            rows.addAll(result);
+        }
+        // rows of a shard usually come in primary key order, sorting such runs is linear
+        rows.sort(order);
+        return rows;
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for shards", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Shard call has failed", e.getCause());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
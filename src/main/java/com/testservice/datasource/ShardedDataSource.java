@@ -0,0 +1,63 @@
+package com.testservice.datasource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+/**
+ * ShardedDataSource sends calls to the shard bound to the current thread by {@link ShardRouting}. Every shard is a
+ * {@link ReadWriteRoutingDataSource} with its own primary database and read replicas.
+ * 
+ * @author taras
+ *
+ */
+public class ShardedDataSource extends AbstractDataSource implements DisposableBean {
+
+    private final List<ReadWriteRoutingDataSource> shards;
+    private final ShardRouting routing;
+
+    /**
+     * @param shards shards in the order of 'jdbc.shard.urls', the first one is the main database
+     * @param routing routing state of the current thread
+     */
+    public ShardedDataSource(List<ReadWriteRoutingDataSource> shards, ShardRouting routing) {
+        this.shards = new ArrayList<>(shards);
+        this.routing = routing;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return shards.get(routing.current()).getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return shards.get(routing.current()).getConnection(username, password);
+    }
+
+    /**
+     * Retrieves all shards.
+     * 
+     * @return List of shard data sources, index of a shard is its number
+     */
+    public List<ReadWriteRoutingDataSource> getShards() {
+        return shards;
+    }
+
+    /**
+     * Closes pools of additional shards. The main database pools are closed by their own beans.
+     * 
+     * @see org.springframework.beans.factory.DisposableBean#destroy()
+     */
+    @Override
+    public void destroy() throws SQLException {
+        for (ReadWriteRoutingDataSource shard : shards.subList(1, shards.size())) {
+            shard.destroy();
+            shard.getPrimary().close();
+        }
+    }
+}
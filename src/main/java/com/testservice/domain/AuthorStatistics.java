@@ -0,0 +1,75 @@
+package com.testservice.domain;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * The AuthorStatistics class represents aggregates of all {@link Author} instances: count, total and average age and
+ * salary.
+ * 
+ * @author taras
+ *
+ */
+public class AuthorStatistics {
+
+    private int count;
+    private long totalAge;
+    private double averageAge;
+    private double totalSalary;
+    private double averageSalary;
+
+    public AuthorStatistics() { }
+
+    public AuthorStatistics(int count, long totalAge, double averageAge, double totalSalary, double averageSalary) {
+        this.count = count;
+        this.totalAge = totalAge;
+        this.averageAge = averageAge;
+        this.totalSalary = totalSalary;
+        this.averageSalary = averageSalary;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public void setCount(int count) {
+        this.count = count;
+    }
+
+    public long getTotalAge() {
+        return totalAge;
+    }
+
+    public void setTotalAge(long totalAge) {
+        this.totalAge = totalAge;
+    }
+
+    public double getAverageAge() {
+        return averageAge;
+    }
+
+    public void setAverageAge(double averageAge) {
+        this.averageAge = averageAge;
+    }
+
+    public double getTotalSalary() {
+        return totalSalary;
+    }
+
+    public void setTotalSalary(double totalSalary) {
+        this.totalSalary = totalSalary;
+    }
+
+    public double getAverageSalary() {
+        return averageSalary;
+    }
+
+    public void setAverageSalary(double averageSalary) {
+        this.averageSalary = averageSalary;
+    }
+
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this, ToStringStyle.SHORT_PREFIX_STYLE);
+    }
+}
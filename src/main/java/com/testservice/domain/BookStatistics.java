@@ -0,0 +1,57 @@
+package com.testservice.domain;
+
+import java.util.Map;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * The BookStatistics class represents aggregates of all {@link Book} instances: count, number of books per author
+ * identifier and per year.
+ * 
+ * @author taras
+ *
+ */
+public class BookStatistics {
+
+    private int count;
+    private Map<Integer, Integer> booksPerAuthor;
+    private Map<Integer, Integer> booksPerYear;
+
+    public BookStatistics() { }
+
+    public BookStatistics(int count, Map<Integer, Integer> booksPerAuthor, Map<Integer, Integer> booksPerYear) {
+        this.count = count;
+        this.booksPerAuthor = booksPerAuthor;
+        this.booksPerYear = booksPerYear;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public void setCount(int count) {
+        this.count = count;
+    }
+
+    public Map<Integer, Integer> getBooksPerAuthor() {
+        return booksPerAuthor;
+    }
+
+    public void setBooksPerAuthor(Map<Integer, Integer> booksPerAuthor) {
+        this.booksPerAuthor = booksPerAuthor;
+    }
+
+    public Map<Integer, Integer> getBooksPerYear() {
+        return booksPerYear;
+    }
+
+    public void setBooksPerYear(Map<Integer, Integer> booksPerYear) {
+        this.booksPerYear = booksPerYear;
+    }
+
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this, ToStringStyle.SHORT_PREFIX_STYLE);
+    }
+}
@@ -0,0 +1,64 @@
+package com.testservice.domain;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * The ChangeEvent class represents one change of a book or an author sent to change feed subscribers.
+ * 
+ * @author taras
+ *
+ */
+public class ChangeEvent {
+
+    private long id;
+    private String type;
+    private Integer entityId;
+    private long timestamp;
+
+    public ChangeEvent() { }
+
+    public ChangeEvent(long id, String type, Integer entityId, long timestamp) {
+        this.id = id;
+        this.type = type;
+        this.entityId = entityId;
+        this.timestamp = timestamp;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public Integer getEntityId() {
+        return entityId;
+    }
+
+    public void setEntityId(Integer entityId) {
+        this.entityId = entityId;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this, ToStringStyle.SHORT_PREFIX_STYLE);
+    }
+}
@@ -0,0 +1,95 @@
+package com.testservice.domain;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * The CircuitBreakerStatistics class represents the state of the database circuit breaker of a shard.
+ * 
+ * @author taras
+ *
+ */
+public class CircuitBreakerStatistics {
+
+    private int shard;
+    private String state;
+    private int calls;
+    private int failures;
+    private int failureRate;
+    private long rejected;
+    private long opened;
+
+    public CircuitBreakerStatistics() { }
+
+    public CircuitBreakerStatistics(int shard, String state, int calls, int failures, int failureRate, long rejected,
+            long opened) {
+        this.shard = shard;
+        this.state = state;
+        this.calls = calls;
+        this.failures = failures;
+        this.failureRate = failureRate;
+        this.rejected = rejected;
+        this.opened = opened;
+    }
+
+    public int getShard() {
+        return shard;
+    }
+
+    public void setShard(int shard) {
+        this.shard = shard;
+    }
+
+    public String getState() {
+        return state;
+    }
+
+    public void setState(String state) {
+        this.state = state;
+    }
+
+    public int getCalls() {
+        return calls;
+    }
+
+    public void setCalls(int calls) {
+        this.calls = calls;
+    }
+
+    public int getFailures() {
+        return failures;
+    }
+
+    public void setFailures(int failures) {
+        this.failures = failures;
+    }
+
+    public int getFailureRate() {
+        return failureRate;
+    }
+
+    public void setFailureRate(int failureRate) {
+        this.failureRate = failureRate;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(long rejected) {
+        this.rejected = rejected;
+    }
+
+    public long getOpened() {
+        return opened;
+    }
+
+    public void setOpened(long opened) {
+        this.opened = opened;
+    }
+
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this, ToStringStyle.SHORT_PREFIX_STYLE);
+    }
+}
@@ -0,0 +1,64 @@
+package com.testservice.domain;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * The CoalescingStatistics class represents counters of collapsed concurrent reads for one service operation.
+ * 
+ * @author taras
+ *
+ */
+public class CoalescingStatistics {
+
+    private String operation;
+    private long calls;
+    private long collapsed;
+    private int inFlight;
+
+    public CoalescingStatistics() { }
+
+    public CoalescingStatistics(String operation, long calls, long collapsed, int inFlight) {
+        this.operation = operation;
+        this.calls = calls;
+        this.collapsed = collapsed;
+        this.inFlight = inFlight;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public void setOperation(String operation) {
+        this.operation = operation;
+    }
+
+    public long getCalls() {
+        return calls;
+    }
+
+    public void setCalls(long calls) {
+        this.calls = calls;
+    }
+
+    public long getCollapsed() {
+        return collapsed;
+    }
+
+    public void setCollapsed(long collapsed) {
+        this.collapsed = collapsed;
+    }
+
+    public int getInFlight() {
+        return inFlight;
+    }
+
+    public void setInFlight(int inFlight) {
+        this.inFlight = inFlight;
+    }
+
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this, ToStringStyle.SHORT_PREFIX_STYLE);
+    }
+}
@@ -0,0 +1,85 @@
+package com.testservice.domain;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * The ConcurrencyLimitStatistics class represents the adaptive concurrency limit of one principal.
+ * 
+ * @author taras
+ *
+ */
+public class ConcurrencyLimitStatistics {
+
+    private String principal;
+    private String role;
+    private int limit;
+    private int inFlight;
+    private long accepted;
+    private long rejected;
+
+    public ConcurrencyLimitStatistics() { }
+
+    public ConcurrencyLimitStatistics(String principal, String role, int limit, int inFlight, long accepted,
+            long rejected) {
+        this.principal = principal;
+        this.role = role;
+        this.limit = limit;
+        this.inFlight = inFlight;
+        this.accepted = accepted;
+        this.rejected = rejected;
+    }
+
+    public String getPrincipal() {
+        return principal;
+    }
+
+    public void setPrincipal(String principal) {
+        this.principal = principal;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public void setRole(String role) {
+        this.role = role;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+
+    public int getInFlight() {
+        return inFlight;
+    }
+
+    public void setInFlight(int inFlight) {
+        this.inFlight = inFlight;
+    }
+
+    public long getAccepted() {
+        return accepted;
+    }
+
+    public void setAccepted(long accepted) {
+        this.accepted = accepted;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(long rejected) {
+        this.rejected = rejected;
+    }
+
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this, ToStringStyle.SHORT_PREFIX_STYLE);
+    }
+}
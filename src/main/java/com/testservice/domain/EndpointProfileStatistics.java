@@ -0,0 +1,112 @@
+package com.testservice.domain;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * The EndpointProfileStatistics class represents average phases, CPU time and allocated bytes of profiled requests
+ * of one resource method.
+ * 
+ * @author taras
+ *
+ */
+public class EndpointProfileStatistics {
+
+    private String endpoint;
+    private long requests;
+    private double totalMillis;
+    private double authMillis;
+    private double serviceMillis;
+    private double dbMillis;
+    private double dbCalls;
+    private double writeMillis;
+    private double cpuMillis;
+    private long allocatedBytes;
+
+    public EndpointProfileStatistics() { }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public void setEndpoint(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    public long getRequests() {
+        return requests;
+    }
+
+    public void setRequests(long requests) {
+        this.requests = requests;
+    }
+
+    public double getTotalMillis() {
+        return totalMillis;
+    }
+
+    public void setTotalMillis(double totalMillis) {
+        this.totalMillis = totalMillis;
+    }
+
+    public double getAuthMillis() {
+        return authMillis;
+    }
+
+    public void setAuthMillis(double authMillis) {
+        this.authMillis = authMillis;
+    }
+
+    public double getServiceMillis() {
+        return serviceMillis;
+    }
+
+    public void setServiceMillis(double serviceMillis) {
+        this.serviceMillis = serviceMillis;
+    }
+
+    public double getDbMillis() {
+        return dbMillis;
+    }
+
+    public void setDbMillis(double dbMillis) {
+        this.dbMillis = dbMillis;
+    }
+
+    public double getDbCalls() {
+        return dbCalls;
+    }
+
+    public void setDbCalls(double dbCalls) {
+        this.dbCalls = dbCalls;
+    }
+
+    public double getWriteMillis() {
+        return writeMillis;
+    }
+
+    public void setWriteMillis(double writeMillis) {
+        this.writeMillis = writeMillis;
+    }
+
+    public double getCpuMillis() {
+        return cpuMillis;
+    }
+
+    public void setCpuMillis(double cpuMillis) {
+        this.cpuMillis = cpuMillis;
+    }
+
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    public void setAllocatedBytes(long allocatedBytes) {
+        this.allocatedBytes = allocatedBytes;
+    }
+
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this, ToStringStyle.SHORT_PREFIX_STYLE);
+    }
+}
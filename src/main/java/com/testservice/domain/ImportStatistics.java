@@ -0,0 +1,79 @@
+package com.testservice.domain;
+
+import java.util.Map;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * The ImportStatistics class represents the result of a bulk import: committed rows per table, committed batches,
+ * duration and throughput. Error describes malformed input which stopped the import, rows read before it are
+ * committed.
+ * 
+ * @author taras
+ *
+ */
+public class ImportStatistics {
+
+    private Map<String, Long> rows;
+    private long batches;
+    private long durationMillis;
+    private long rowsPerSecond;
+    private String error;
+
+    public ImportStatistics() { }
+
+    public ImportStatistics(Map<String, Long> rows, long batches, long durationMillis, long rowsPerSecond,
+            String error) {
+        this.rows = rows;
+        this.batches = batches;
+        this.durationMillis = durationMillis;
+        this.rowsPerSecond = rowsPerSecond;
+        this.error = error;
+    }
+
+    public Map<String, Long> getRows() {
+        return rows;
+    }
+
+    public void setRows(Map<String, Long> rows) {
+        this.rows = rows;
+    }
+
+    public long getBatches() {
+        return batches;
+    }
+
+    public void setBatches(long batches) {
+        this.batches = batches;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public void setDurationMillis(long durationMillis) {
+        this.durationMillis = durationMillis;
+    }
+
+    public long getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+
+    public void setRowsPerSecond(long rowsPerSecond) {
+        this.rowsPerSecond = rowsPerSecond;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this, ToStringStyle.SHORT_PREFIX_STYLE);
+    }
+}
@@ -0,0 +1,85 @@
+package com.testservice.domain;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * The ReplicaStatistics class represents rows and estimated memory footprint of one table of the columnar in-memory
+ * replica compared with the same rows loaded as a List of entities.
+ * 
+ * @author taras
+ *
+ */
+public class ReplicaStatistics {
+
+    private String table;
+    private boolean loaded;
+    private int rows;
+    private int distinctStrings;
+    private long columnarBytes;
+    private long objectBytes;
+    private long rebuildMillis;
+
+    public ReplicaStatistics() { }
+
+    public String getTable() {
+        return table;
+    }
+
+    public void setTable(String table) {
+        this.table = table;
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public void setLoaded(boolean loaded) {
+        this.loaded = loaded;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public void setRows(int rows) {
+        this.rows = rows;
+    }
+
+    public int getDistinctStrings() {
+        return distinctStrings;
+    }
+
+    public void setDistinctStrings(int distinctStrings) {
+        this.distinctStrings = distinctStrings;
+    }
+
+    public long getColumnarBytes() {
+        return columnarBytes;
+    }
+
+    public void setColumnarBytes(long columnarBytes) {
+        this.columnarBytes = columnarBytes;
+    }
+
+    public long getObjectBytes() {
+        return objectBytes;
+    }
+
+    public void setObjectBytes(long objectBytes) {
+        this.objectBytes = objectBytes;
+    }
+
+    public long getRebuildMillis() {
+        return rebuildMillis;
+    }
+
+    public void setRebuildMillis(long rebuildMillis) {
+        this.rebuildMillis = rebuildMillis;
+    }
+
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this, ToStringStyle.SHORT_PREFIX_STYLE);
+    }
+}
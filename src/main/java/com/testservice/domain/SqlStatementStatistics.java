@@ -0,0 +1,111 @@
+package com.testservice.domain;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * The SqlStatementStatistics class represents execution statistics of one normalized SQL statement.
+ * 
+ * @author taras
+ *
+ */
+public class SqlStatementStatistics {
+
+    private String statement;
+    private long executions;
+    private long errors;
+    private long rows;
+    private double totalMillis;
+    private double p50Millis;
+    private double p99Millis;
+    private double maxMillis;
+    private double acquireP50Millis;
+    private double acquireP99Millis;
+
+    public SqlStatementStatistics() { }
+
+    public String getStatement() {
+        return statement;
+    }
+
+    public void setStatement(String statement) {
+        this.statement = statement;
+    }
+
+    public long getExecutions() {
+        return executions;
+    }
+
+    public void setExecutions(long executions) {
+        this.executions = executions;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    public void setErrors(long errors) {
+        this.errors = errors;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public void setRows(long rows) {
+        this.rows = rows;
+    }
+
+    public double getTotalMillis() {
+        return totalMillis;
+    }
+
+    public void setTotalMillis(double totalMillis) {
+        this.totalMillis = totalMillis;
+    }
+
+    public double getP50Millis() {
+        return p50Millis;
+    }
+
+    public void setP50Millis(double p50Millis) {
+        this.p50Millis = p50Millis;
+    }
+
+    public double getP99Millis() {
+        return p99Millis;
+    }
+
+    public void setP99Millis(double p99Millis) {
+        this.p99Millis = p99Millis;
+    }
+
+    public double getMaxMillis() {
+        return maxMillis;
+    }
+
+    public void setMaxMillis(double maxMillis) {
+        this.maxMillis = maxMillis;
+    }
+
+    public double getAcquireP50Millis() {
+        return acquireP50Millis;
+    }
+
+    public void setAcquireP50Millis(double acquireP50Millis) {
+        this.acquireP50Millis = acquireP50Millis;
+    }
+
+    public double getAcquireP99Millis() {
+        return acquireP99Millis;
+    }
+
+    public void setAcquireP99Millis(double acquireP99Millis) {
+        this.acquireP99Millis = acquireP99Millis;
+    }
+
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this, ToStringStyle.SHORT_PREFIX_STYLE);
+    }
+}
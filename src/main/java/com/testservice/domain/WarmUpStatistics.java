@@ -0,0 +1,98 @@
+package com.testservice.domain;
+
+import java.util.Map;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * The WarmUpStatistics class represents the result of the startup warm-up: its duration, opened connections, prepared
+ * statements, sent requests and latency of every warm-up request on its first (cold) and last (warm) run.
+ * 
+ * @author taras
+ *
+ */
+public class WarmUpStatistics {
+
+    private long durationMillis;
+    private int connections;
+    private int statements;
+    private int requests;
+    private int failedRequests;
+    private Map<String, Long> coldLatencyMicros;
+    private Map<String, Long> warmLatencyMicros;
+
+    public WarmUpStatistics() { }
+
+    public WarmUpStatistics(long durationMillis, int connections, int statements, int requests, int failedRequests,
+            Map<String, Long> coldLatencyMicros, Map<String, Long> warmLatencyMicros) {
+        this.durationMillis = durationMillis;
+        this.connections = connections;
+        this.statements = statements;
+        this.requests = requests;
+        this.failedRequests = failedRequests;
+        this.coldLatencyMicros = coldLatencyMicros;
+        this.warmLatencyMicros = warmLatencyMicros;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public void setDurationMillis(long durationMillis) {
+        this.durationMillis = durationMillis;
+    }
+
+    public int getConnections() {
+        return connections;
+    }
+
+    public void setConnections(int connections) {
+        this.connections = connections;
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public void setStatements(int statements) {
+        this.statements = statements;
+    }
+
+    public int getRequests() {
+        return requests;
+    }
+
+    public void setRequests(int requests) {
+        this.requests = requests;
+    }
+
+    public int getFailedRequests() {
+        return failedRequests;
+    }
+
+    public void setFailedRequests(int failedRequests) {
+        this.failedRequests = failedRequests;
+    }
+
+    public Map<String, Long> getColdLatencyMicros() {
+        return coldLatencyMicros;
+    }
+
+    public void setColdLatencyMicros(Map<String, Long> coldLatencyMicros) {
+        this.coldLatencyMicros = coldLatencyMicros;
+    }
+
+    public Map<String, Long> getWarmLatencyMicros() {
+        return warmLatencyMicros;
+    }
+
+    public void setWarmLatencyMicros(Map<String, Long> warmLatencyMicros) {
+        this.warmLatencyMicros = warmLatencyMicros;
+    }
+
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this, ToStringStyle.SHORT_PREFIX_STYLE);
+    }
+}
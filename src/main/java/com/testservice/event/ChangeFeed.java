@@ -0,0 +1,267 @@
+package com.testservice.event;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import javax.ws.rs.core.MediaType;
+
+import org.apache.log4j.Logger;
+import org.glassfish.jersey.media.sse.EventOutput;
+import org.glassfish.jersey.media.sse.OutboundEvent;
+
+import com.testservice.domain.ChangeEvent;
+
+/**
+ * ChangeFeed fans out changes of one entity type to Server-Sent Events subscribers. Published events are kept in a
+ * ring buffer shared by all subscribers, every subscriber only keeps its position in the buffer. Subscribers are
+ * drained on the sender executor, at most one task per subscriber at a time, so a slow client does not hold up the
+ * others. A subscriber which falls behind by more than the buffer capacity, or resumes from an event which is no
+ * longer buffered, receives a 'reset' event and continues from the latest change: it should reload the resource.
+ * Heartbeats are sent by the drain tasks too. A subscriber whose write has taken longer than the write timeout is
+ * closed and its sender thread is interrupted, so clients which stop reading do not hold up the sender threads.
+ *
+ * @author taras
+ *
+ */
+public class ChangeFeed {
+
+    private static final String RESET_EVENT = "reset";
+
+    private static final Logger LOGGER = Logger.getLogger(ChangeFeed.class);
+
+    private final String name;
+    private final AtomicReferenceArray<ChangeEvent> buffer;
+    private final int mask;
+    private final long firstId;
+    private final Executor sender;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    /** Identifier of the latest published event. */
+    private volatile long head;
+
+    /**
+     * @param name name of the feed used in logs, e.g. 'books'
+     * @param capacity number of buffered events, rounded up to a power of two
+     * @param firstId identifiers of events start after this value, it should grow across restarts so identifiers of
+     *            previous runs are recognized as stale
+     * @param sender executor which writes events to subscribers
+     */
+    public ChangeFeed(String name, int capacity, long firstId, Executor sender) {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        this.name = name;
+        this.buffer = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.firstId = firstId;
+        this.head = firstId;
+        this.sender = sender;
+    }
+
+    /**
+     * Appends the change to the buffer and notifies subscribers.
+     *
+     * @param type kind of the change
+     * @param entityId identifier of the changed entity, may be null
+     */
+    public void publish(ChangeType type, Integer entityId) {
+        synchronized (this) {
+            long id = head + 1;
+            buffer.set(index(id), new ChangeEvent(id, type.name(), entityId, System.currentTimeMillis()));
+            head = id;
+        }
+        for (Subscriber subscriber : subscribers) {
+            subscriber.schedule();
+        }
+    }
+
+    /**
+     * Opens a new subscription.
+     *
+     * @param lastEventId identifier of the last event received by the client, negative to receive only new events
+     * @return event stream of the subscription
+     */
+    public EventOutput subscribe(long lastEventId) {
+        EventOutput output = new EventOutput();
+        long current = head;
+        Subscriber subscriber;
+        if (lastEventId < 0) {
+            subscriber = new Subscriber(output, current, false);
+        } else if (lastEventId < firstId || lastEventId > current || lastEventId < current - buffer.length()) {
+            subscriber = new Subscriber(output, current, true);
+        } else {
+            subscriber = new Subscriber(output, lastEventId, false);
+        }
+        subscribers.add(subscriber);
+        subscriber.schedule();
+        return output;
+    }
+
+    /**
+     * Sends a comment to every subscriber to detect closed connections.
+     */
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.heartbeatPending = true;
+            subscriber.schedule();
+        }
+    }
+
+    /**
+     * Closes subscribers whose write has taken longer than the timeout.
+     *
+     * @param timeoutNanos longest time of one write
+     */
+    public void closeStalled(long timeoutNanos) {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.closeIfStalled(timeoutNanos);
+        }
+    }
+
+    /**
+     * Closes all subscriptions.
+     */
+    public void close() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.close();
+        }
+    }
+
+    private int index(long id) {
+        return (int) (id & mask);
+    }
+
+    private static OutboundEvent event(ChangeEvent event) {
+        return new OutboundEvent.Builder()
+                .id(String.valueOf(event.getId()))
+                .name(event.getType().toLowerCase())
+                .mediaType(MediaType.APPLICATION_JSON_TYPE)
+                .data(ChangeEvent.class, event)
+                .build();
+    }
+
+    private static OutboundEvent heartbeatEvent() {
+        return new OutboundEvent.Builder().comment("heartbeat").build();
+    }
+
+    private OutboundEvent reset(long id) {
+        return new OutboundEvent.Builder().id(String.valueOf(id)).name(RESET_EVENT).data(String.class, name).build();
+    }
+
+    /**
+     * Position of one client in the buffer. The position is read and changed only by the drain task, which runs for
+     * one subscriber at a time.
+     */
+    private final class Subscriber implements Runnable {
+
+        private final EventOutput output;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private long position;
+        private boolean resetPending;
+        private volatile boolean heartbeatPending;
+
+        // thread of the write in progress and its start, guarded by this
+        private Thread writer;
+        private long writeStart;
+
+        Subscriber(EventOutput output, long position, boolean resetPending) {
+            this.output = output;
+            this.position = position;
+            this.resetPending = resetPending;
+        }
+
+        void schedule() {
+            if (output.isClosed()) {
+                subscribers.remove(this);
+                return;
+            }
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    sender.execute(this);
+                } catch (RejectedExecutionException e) {
+                    draining.set(false);
+                    close();
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (heartbeatPending) {
+                    heartbeatPending = false;
+                    write(heartbeatEvent());
+                }
+                if (resetPending) {
+                    resetPending = false;
+                    write(reset(position));
+                }
+                long latest;
+                while ((latest = head) > position) {
+                    long next = position + 1;
+                    ChangeEvent event = buffer.get(index(next));
+                    if (event == null || event.getId() != next) {
+                        LOGGER.debug("Subscriber of " + name + " feed fell behind, resetting to event " + latest);
+                        position = latest;
+                        write(reset(latest));
+                        continue;
+                    }
+                    write(event(event));
+                    position = next;
+                }
+            } catch (IOException e) {
+                LOGGER.debug("Subscriber of " + name + " feed disconnected: " + e.getMessage());
+                close();
+                return;
+            } finally {
+                draining.set(false);
+            }
+            if (head > position || heartbeatPending) {
+                schedule();
+            }
+        }
+
+        private void write(OutboundEvent event) throws IOException {
+            synchronized (this) {
+                writer = Thread.currentThread();
+                writeStart = System.nanoTime();
+            }
+            try {
+                output.write(event);
+            } finally {
+                synchronized (this) {
+                    writer = null;
+                }
+                // the write may have finished right when it was interrupted
+                Thread.interrupted();
+            }
+        }
+
+        /**
+         * Interrupting the sender thread fails a write blocked on the connection with an InterruptedIOException.
+         */
+        void closeIfStalled(long timeoutNanos) {
+            synchronized (this) {
+                if (writer == null || System.nanoTime() - writeStart <= timeoutNanos) {
+                    return;
+                }
+                writer.interrupt();
+                writer = null;
+            }
+            LOGGER.info("Subscriber of " + name + " feed is closed, it does not read events");
+            close();
+        }
+
+        void close() {
+            subscribers.remove(this);
+            try {
+                output.close();
+            } catch (IOException e) {
+                LOGGER.debug("Unable to close subscriber of " + name + " feed", e);
+            }
+        }
+    }
+}
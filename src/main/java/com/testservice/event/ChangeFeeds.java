@@ -0,0 +1,99 @@
+package com.testservice.event;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+
+import org.glassfish.jersey.media.sse.EventOutput;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+import com.testservice.domain.Author;
+import com.testservice.domain.Book;
+
+/**
+ * ChangeFeeds keeps a {@link ChangeFeed} for books and authors and fills them with {@link EntityChangedEvent}s
+ * published by the services.
+ *
+ * @author taras
+ *
+ */
+@Component
+public class ChangeFeeds implements ApplicationListener<EntityChangedEvent>, DisposableBean {
+
+    @Value("${changes.bufferSize:1024}")
+    private int bufferSize;
+
+    @Value("${changes.senderThreads:4}")
+    private int senderThreads;
+
+    @Value("${changes.heartbeatSeconds:15}")
+    private int heartbeatSeconds;
+
+    @Value("${changes.writeTimeoutSeconds:10}")
+    private int writeTimeoutSeconds;
+
+    private final Map<Class<?>, ChangeFeed> feeds = new HashMap<>();
+
+    private ExecutorService sender;
+    private ScheduledExecutorService heartbeat;
+
+    @PostConstruct
+    public void init() {
+        sender = Executors.newFixedThreadPool(senderThreads, threadFactory("change-feed-sender"));
+        heartbeat = Executors.newSingleThreadScheduledExecutor(threadFactory("change-feed-heartbeat"));
+        // identifiers of every run start above the ones of previous runs
+        long firstId = System.currentTimeMillis() * 1000;
+        feeds.put(Book.class, new ChangeFeed("books", bufferSize, firstId, sender));
+        feeds.put(Author.class, new ChangeFeed("authors", bufferSize, firstId, sender));
+        heartbeat.scheduleWithFixedDelay(() -> feeds.values().forEach(ChangeFeed::heartbeat),
+                heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+        long writeTimeoutNanos = TimeUnit.SECONDS.toNanos(writeTimeoutSeconds);
+        heartbeat.scheduleWithFixedDelay(() -> feeds.values().forEach(feed -> feed.closeStalled(writeTimeoutNanos)),
+                1, 1, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void onApplicationEvent(EntityChangedEvent event) {
+        ChangeFeed feed = feeds.get(event.getEntityType());
+        if (feed != null) {
+            feed.publish(event.getChangeType(), event.getEntityId());
+        }
+    }
+
+    /**
+     * Subscribes to changes of the entity type.
+     *
+     * @param entityType {@code Book.class} or {@code Author.class}
+     * @param lastEventId value of 'Last-Event-ID' header, negative if the client has not received events yet
+     * @return event stream of the subscription
+     */
+    public EventOutput subscribe(Class<?> entityType, long lastEventId) {
+        return feeds.get(entityType).subscribe(lastEventId);
+    }
+
+    @Override
+    public void destroy() {
+        heartbeat.shutdownNow();
+        feeds.values().forEach(ChangeFeed::close);
+        sender.shutdownNow();
+    }
+
+    private static ThreadFactory threadFactory(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,12 @@
+package com.testservice.event;
+
+/**
+ * Kinds of changes made by service write operations.
+ * 
+ * @author taras
+ *
+ */
+public enum ChangeType {
+
+    CREATE, UPDATE, DELETE, DELETE_ALL
+}
@@ -0,0 +1,51 @@
+package com.testservice.event;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * EntityChangedEvent is published by services after an entity has been written to the database.
+ * 
+ * @author taras
+ *
+ */
+public class EntityChangedEvent extends ApplicationEvent {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Class<?> entityType;
+    private final ChangeType changeType;
+    private final Integer entityId;
+    private final Object entity;
+
+    /**
+     * @param source service which made the change
+     * @param entityType class of the changed entity, e.g. {@code Book.class}
+     * @param changeType kind of the change
+     * @param entityId identifier of the changed entity, null for {@link ChangeType#DELETE_ALL}
+     * @param entity state of the entity after {@link ChangeType#CREATE} or {@link ChangeType#UPDATE}, otherwise null
+     */
+    public EntityChangedEvent(Object source, Class<?> entityType, ChangeType changeType, Integer entityId,
+            Object entity) {
+        super(source);
+        this.entityType = entityType;
+        this.changeType = changeType;
+        this.entityId = entityId;
+        this.entity = entity;
+    }
+
+    public Class<?> getEntityType() {
+        return entityType;
+    }
+
+    public ChangeType getChangeType() {
+        return changeType;
+    }
+
+    public Integer getEntityId() {
+        return entityId;
+    }
+
+    public Object getEntity() {
+        return entity;
+    }
+}
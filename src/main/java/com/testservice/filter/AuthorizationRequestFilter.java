@@ -10,6 +10,8 @@ import javax.annotation.Priority;
 import javax.ws.rs.Priorities;
 import javax.ws.rs.container.ContainerRequestContext;
 import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
 import javax.ws.rs.container.PreMatching;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.SecurityContext;
@@ -21,12 +23,16 @@ import org.springframework.stereotype.Component;
 import org.springframework.util.CollectionUtils;
 import org.springframework.web.context.support.SpringBeanAutowiringSupport;
 
+import com.testservice.datasource.DataSourceRouting;
 import com.testservice.domain.User;
+import com.testservice.service.AccessTokenService;
 import com.testservice.service.TokenService;
+import com.testservice.warmup.WarmUp;
 
 /**
- * Checks Authorization header or Authorization query parameter to authorize user. Uses Basic access authentication to
- * authenticate users.
+ * Checks Authorization header or Authorization query parameter to authorize user. Uses Basic access authentication or
+ * signed access tokens issued by '/tokens' (Bearer scheme) to authenticate users. Health checks ('/health/...') do not
+ * require authentication.
  * 
  * @author taras
  *
@@ -35,15 +41,23 @@ import com.testservice.service.TokenService;
 @PreMatching
 @Component
 @Priority(Priorities.AUTHORIZATION)
-public class AuthorizationRequestFilter implements ContainerRequestFilter {
+public class AuthorizationRequestFilter implements ContainerRequestFilter, ContainerResponseFilter {
 
     private static final String TOKEN_NAME = "Authorization";
     private static final String AUTHENTICATION_SCHEME = "Basic";
+    private static final String BEARER_SCHEME = "Bearer";
+    private static final String HEALTH_PATH = "health/";
     private static final Logger LOGGER = Logger.getLogger(AuthorizationRequestFilter.class);
 
     @Autowired
     private TokenService tokenService;
 
+    @Autowired
+    private AccessTokenService accessTokenService;
+
+    @Autowired
+    private DataSourceRouting dataSourceRouting;
+
     @PostConstruct
     private void init() {
         SpringBeanAutowiringSupport.processInjectionBasedOnCurrentContext(this);
@@ -57,53 +71,95 @@ public class AuthorizationRequestFilter implements ContainerRequestFilter {
      */
     @Override
     public void filter(ContainerRequestContext requestContext) throws IOException {
+        dataSourceRouting.setPrincipal(null);
+        if (requestContext.getUriInfo().getPath().startsWith(HEALTH_PATH)) {
+            return;
+        }
         String token = requestContext.getHeaderString(TOKEN_NAME);
-        LOGGER.info("headed token: " + token);
+        log(requestContext, "headed token: " + token);
         if (token == null) {
             Map<String, List<String>> map = requestContext.getUriInfo().getQueryParameters();
             if (!CollectionUtils.isEmpty(map)) {
                 token = map.get(TOKEN_NAME).get(0);
-                LOGGER.info("query param token: " + token);
+                log(requestContext, "query param token: " + token);
             }
         }
         if (token == null) {
-            LOGGER.info("token not found");
+            log(requestContext, "token not found");
             requestContext.abortWith(Response.status(Response.Status.UNAUTHORIZED)
                                              .entity("User cannot access the resource.")
                                              .build());
+        } else if (token.startsWith(BEARER_SCHEME + " ")) {
+            User user = accessTokenService.verify(token.substring(BEARER_SCHEME.length() + 1));
+            log(requestContext, "bearer user: " + user);
+            if (user == null) {
+                requestContext.abortWith(Response.status(Response.Status.UNAUTHORIZED)
+                                                 .entity("User cannot access the resource.")
+                                                 .build());
+                return;
+            }
+            dataSourceRouting.setPrincipal(user.getName());
+            requestContext.setSecurityContext(securityContext(user, BEARER_SCHEME));
         } else {
             token = token.replaceFirst(AUTHENTICATION_SCHEME + " ", "");
             if (!tokenService.contains(token) && !tokenService.tryAuthenticate(token)) {
-                LOGGER.info("user not authenticated");
+                log(requestContext, "user not authenticated");
                 requestContext.abortWith(Response.status(Response.Status.UNAUTHORIZED)
                                                  .entity("User cannot access the resource.")
                                                  .build());
             }
             User user = tokenService.get(token);
-            LOGGER.info("user: " + user);
-            requestContext.setSecurityContext(new SecurityContext() {
-
-                @Override
-                public Principal getUserPrincipal() {
-                    return user;
-                }
-
-                @Override
-                public boolean isUserInRole(String role) {
-                    return user.getRole().equals(role);
-                }
-
-                @Override
-                public boolean isSecure() {
-                    return false;
-                }
-
-                @Override
-                public String getAuthenticationScheme() {
-                    return SecurityContext.BASIC_AUTH;
-                }
-
-            });
+            log(requestContext, "user: " + user);
+            if (user != null) {
+                dataSourceRouting.setPrincipal(user.getName());
+            }
+            requestContext.setSecurityContext(securityContext(user, SecurityContext.BASIC_AUTH));
+        }
+    }
+
+    /**
+     * Warm-up requests are not logged.
+     */
+    private static void log(ContainerRequestContext requestContext, String message) {
+        if (!WarmUp.isWarmUpRequest(requestContext)) {
+            LOGGER.info(message);
         }
     }
-}
\ No newline at end of file
+
+    private static SecurityContext securityContext(User user, String scheme) {
+        return new SecurityContext() {
+
+            @Override
+            public Principal getUserPrincipal() {
+                return user;
+            }
+
+            @Override
+            public boolean isUserInRole(String role) {
+                return user.getRole().equals(role);
+            }
+
+            @Override
+            public boolean isSecure() {
+                return false;
+            }
+
+            @Override
+            public String getAuthenticationScheme() {
+                return scheme;
+            }
+
+        };
+    }
+
+    /**
+     * Unbinds the principal from the request thread.
+     * 
+     * @see javax.ws.rs.container.ContainerResponseFilter#filter(javax.ws.rs.container.ContainerRequestContext,
+     *      javax.ws.rs.container.ContainerResponseContext)
+     */
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        dataSourceRouting.setPrincipal(null);
+    }
+}
@@ -0,0 +1,104 @@
+package com.testservice.filter;
+
+import java.io.IOException;
+import java.security.Principal;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Priority;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.PreMatching;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.Provider;
+
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.support.SpringBeanAutowiringSupport;
+
+import com.testservice.domain.User;
+import com.testservice.limit.AdaptiveLimit;
+import com.testservice.limit.ConcurrencyLimiter;
+import com.testservice.warmup.WarmUp;
+
+/**
+ * Limits concurrent requests of every authenticated principal. Runs right after {@link AuthorizationRequestFilter}
+ * and rejects requests over the adaptive limit of the principal with HTTP_STATUS 429 before they reach the database.
+ * Warm-up requests are not limited, so their latency does not adapt the limits.
+ * 
+ * @author taras
+ *
+ */
+@Provider
+@PreMatching
+@Component
+@Priority(Priorities.AUTHORIZATION + 1)
+public class ConcurrencyLimitFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+    private static final String PERMIT_PROPERTY = ConcurrencyLimitFilter.class.getName() + ".permit";
+    private static final int TOO_MANY_REQUESTS = 429;
+    private static final String RETRY_AFTER_SECONDS = "1";
+    private static final Logger LOGGER = Logger.getLogger(ConcurrencyLimitFilter.class);
+
+    @Autowired
+    private ConcurrencyLimiter limiter;
+
+    @PostConstruct
+    private void init() {
+        SpringBeanAutowiringSupport.processInjectionBasedOnCurrentContext(this);
+    }
+
+    /**
+     * Takes a slot of the principal or rejects the request.
+     * 
+     * @see javax.ws.rs.container.ContainerRequestFilter#filter(javax.ws.rs.container.ContainerRequestContext)
+     */
+    @Override
+    public void filter(ContainerRequestContext requestContext) throws IOException {
+        Principal principal = requestContext.getSecurityContext().getUserPrincipal();
+        if (!limiter.isEnabled() || !(principal instanceof User) || WarmUp.isWarmUpRequest(requestContext)) {
+            return;
+        }
+        User user = (User) principal;
+        AdaptiveLimit.Permit permit = limiter.tryAcquire(user.getName(), user.getRole());
+        if (permit == null) {
+            LOGGER.info("concurrency limit exceeded by user: " + user.getName());
+            requestContext.abortWith(Response.status(TOO_MANY_REQUESTS)
+                                             .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                                             .entity("Too many concurrent requests.")
+                                             .build());
+        } else {
+            requestContext.setProperty(PERMIT_PROPERTY, permit);
+        }
+    }
+
+    /**
+     * Releases the slot of the principal. Requests failed with an unmapped exception skip response filters, their
+     * slots are released by {@link RequestCompletionListener}.
+     * 
+     * @see javax.ws.rs.container.ContainerResponseFilter#filter(javax.ws.rs.container.ContainerRequestContext,
+     *      javax.ws.rs.container.ContainerResponseContext)
+     */
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        release(requestContext, responseContext.getStatus() >= 500);
+    }
+
+    /**
+     * Releases the slot taken by the request, if it is still taken.
+     * 
+     * @param requestContext the request
+     * @param failed whether the request has failed on the server side
+     */
+    static void release(ContainerRequestContext requestContext, boolean failed) {
+        AdaptiveLimit.Permit permit = (AdaptiveLimit.Permit) requestContext.getProperty(PERMIT_PROPERTY);
+        if (permit != null) {
+            requestContext.removeProperty(PERMIT_PROPERTY);
+            permit.release(failed);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.testservice.filter;
+
+import java.lang.reflect.Method;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Priority;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.ext.Provider;
+
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.support.SpringBeanAutowiringSupport;
+
+import com.testservice.resilience.Deadline;
+import com.testservice.resilience.RequestDeadline;
+
+/**
+ * Sets the deadline of the request. Clients may ask for a shorter or longer deadline with 'X-Request-Timeout' header
+ * in milliseconds (capped by 'deadline.maxMillis'), otherwise the {@link Deadline} of the resource method or the
+ * default deadline is used. Malformed and non-positive values of the header are ignored.
+ * 
+ * @author taras
+ *
+ */
+@Provider
+@Component
+@Priority(Priorities.USER)
+public class DeadlineFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+    private static final String TIMEOUT_HEADER = "X-Request-Timeout";
+    private static final Logger LOGGER = Logger.getLogger(DeadlineFilter.class);
+
+    private @Context ResourceInfo resourceInfo;
+
+    @Autowired
+    private RequestDeadline requestDeadline;
+
+    @Value("${deadline.defaultMillis:5000}")
+    private long defaultMillis;
+
+    @Value("${deadline.maxMillis:30000}")
+    private long maxMillis;
+
+    @PostConstruct
+    private void init() {
+        SpringBeanAutowiringSupport.processInjectionBasedOnCurrentContext(this);
+    }
+
+    /**
+     * Binds the deadline of the request to the request thread.
+     * 
+     * @see javax.ws.rs.container.ContainerRequestFilter#filter(javax.ws.rs.container.ContainerRequestContext)
+     */
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        long timeoutMillis = defaultMillis;
+        Method method = resourceInfo.getResourceMethod();
+        Deadline deadline = method == null ? null : method.getAnnotation(Deadline.class);
+        if (deadline != null) {
+            timeoutMillis = deadline.millis();
+        }
+        String header = requestContext.getHeaderString(TIMEOUT_HEADER);
+        if (header != null) {
+            long requestedMillis = parseMillis(header);
+            if (requestedMillis > 0) {
+                timeoutMillis = Math.min(requestedMillis, maxMillis);
+            } else {
+                LOGGER.info("invalid " + TIMEOUT_HEADER + " header: " + header);
+            }
+        }
+        requestDeadline.start(timeoutMillis);
+    }
+
+    /**
+     * @return milliseconds of the header or 0 if it is not a number
+     */
+    private static long parseMillis(String header) {
+        try {
+            return Long.parseLong(header.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Unbinds the deadline from the request thread, {@link RequestCompletionListener} does it for requests which skip
+     * response filters.
+     * 
+     * @see javax.ws.rs.container.ContainerResponseFilter#filter(javax.ws.rs.container.ContainerRequestContext,
+     *      javax.ws.rs.container.ContainerResponseContext)
+     */
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        requestDeadline.clear();
+    }
+}
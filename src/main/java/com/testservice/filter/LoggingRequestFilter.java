@@ -20,8 +20,10 @@ import org.apache.log4j.Logger;
 import org.springframework.stereotype.Component;
 import org.springframework.web.context.support.SpringBeanAutowiringSupport;
 
+import com.testservice.warmup.WarmUp;
+
 /**
- * Logs all incoming requests.
+ * Logs all incoming requests except the warm-up ones.
  * 
  * @author taras
  *
@@ -50,7 +52,10 @@ public class LoggingRequestFilter implements ContainerRequestFilter {
     */
     @Override
     public void filter(ContainerRequestContext requestContext) {
-        String ipAddress = request.getHeader(IP_ADDRESS_HEADER);
+        if (WarmUp.isWarmUpRequest(requestContext)) {
+            return;
+        }
+        String ipAddress = requestContext.getHeaderString(IP_ADDRESS_HEADER);
         if (ipAddress == null) {
             ipAddress = request.getRemoteAddr();
         }
@@ -0,0 +1,55 @@
+package com.testservice.filter;
+
+import javax.annotation.PostConstruct;
+import javax.ws.rs.ext.Provider;
+
+import org.glassfish.jersey.server.ContainerResponse;
+import org.glassfish.jersey.server.monitoring.ApplicationEvent;
+import org.glassfish.jersey.server.monitoring.ApplicationEventListener;
+import org.glassfish.jersey.server.monitoring.RequestEvent;
+import org.glassfish.jersey.server.monitoring.RequestEventListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.support.SpringBeanAutowiringSupport;
+
+import com.testservice.resilience.RequestDeadline;
+
+/**
+ * Releases what the request filters have bound to a request when the request is finished. Response filters are not
+ * run when a request fails with an exception which has no mapper, so the concurrency limit permit and the deadline
+ * of such a request would otherwise stay taken and bound to the request thread.
+ * 
+ * @author taras
+ *
+ */
+@Provider
+@Component
+public class RequestCompletionListener implements ApplicationEventListener {
+
+    private static final int SERVER_ERROR = 500;
+
+    @Autowired
+    private RequestDeadline requestDeadline;
+
+    @PostConstruct
+    private void init() {
+        SpringBeanAutowiringSupport.processInjectionBasedOnCurrentContext(this);
+    }
+
+    @Override
+    public void onEvent(ApplicationEvent event) {
+        // only requests are of interest
+    }
+
+    @Override
+    public RequestEventListener onRequest(RequestEvent requestEvent) {
+        return event -> {
+            if (event.getType() == RequestEvent.Type.FINISHED) {
+                ContainerResponse response = event.getContainerResponse();
+                ConcurrencyLimitFilter.release(event.getContainerRequest(),
+                        response == null || response.getStatus() >= SERVER_ERROR);
+                requestDeadline.clear();
+            }
+        };
+    }
+}
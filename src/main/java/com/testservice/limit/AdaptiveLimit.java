@@ -0,0 +1,140 @@
+package com.testservice.limit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * AdaptiveLimit is the concurrency limit of one principal. The limit follows the gradient between the long-term and
+ * the recent round trip time of requests: while latency stays near its long-term level the limit grows by a small
+ * queue allowance, when latency rises the limit shrinks proportionally. Failed requests (5xx) shrink the limit
+ * multiplicatively. The limit only grows while the principal actually uses at least half of it.
+ *
+ * @author taras
+ *
+ */
+public class AdaptiveLimit {
+
+    /** Weight of a sample in the recent round trip time. */
+    private static final double SHORT_RTT_WEIGHT = 0.1;
+
+    /** Weight of a sample in the long-term round trip time. */
+    private static final double LONG_RTT_WEIGHT = 1.0 / 600;
+
+    private final String principal;
+    private final String role;
+    private final ConcurrencyLimiter.Settings settings;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    private volatile int limit;
+
+    // guarded by this
+    private double estimatedLimit;
+    private double shortRtt;
+    private double longRtt;
+
+    AdaptiveLimit(String principal, String role, ConcurrencyLimiter.Settings settings) {
+        this.principal = principal;
+        this.role = role;
+        this.settings = settings;
+        this.estimatedLimit = settings.initialLimit;
+        this.limit = settings.initialLimit;
+    }
+
+    /**
+     * Takes a slot if the principal has fewer requests in flight than its limit.
+     *
+     * @return permit to release when the request completes, or null if the request should be rejected
+     */
+    Permit tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                rejected.increment();
+                return null;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                accepted.increment();
+                return new Permit(this, current + 1);
+            }
+        }
+    }
+
+    /**
+     * Frees the slot and adjusts the limit with the completed request.
+     *
+     * @param rttNanos duration of the request
+     * @param inFlightAtStart requests of the principal in flight when the request started, including it
+     * @param failed whether the request failed on the server side
+     */
+    synchronized void release(long rttNanos, int inFlightAtStart, boolean failed) {
+        inFlight.decrementAndGet();
+        double newLimit;
+        if (failed) {
+            newLimit = estimatedLimit * settings.backoffRatio;
+        } else {
+            shortRtt = shortRtt == 0 ? rttNanos : shortRtt + (rttNanos - shortRtt) * SHORT_RTT_WEIGHT;
+            longRtt = longRtt == 0 ? rttNanos : longRtt + (rttNanos - longRtt) * LONG_RTT_WEIGHT;
+            double gradient = Math.max(0.5, Math.min(1.0, settings.rttTolerance * longRtt / shortRtt));
+            newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+            if (newLimit > estimatedLimit && inFlightAtStart * 2 < estimatedLimit) {
+                return;
+            }
+            newLimit = estimatedLimit * (1 - settings.smoothing) + newLimit * settings.smoothing;
+        }
+        estimatedLimit = Math.max(settings.minLimit, Math.min(settings.maxLimit, newLimit));
+        limit = (int) estimatedLimit;
+    }
+
+    public String getPrincipal() {
+        return principal;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getAccepted() {
+        return accepted.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * Slot of one request. Releasing the permit more than once has no effect.
+     */
+    public static final class Permit {
+
+        private final AdaptiveLimit limit;
+        private final int inFlightAtStart;
+        private final long start = System.nanoTime();
+        private boolean released;
+
+        private Permit(AdaptiveLimit limit, int inFlightAtStart) {
+            this.limit = limit;
+            this.inFlightAtStart = inFlightAtStart;
+        }
+
+        /**
+         * @param failed whether the request failed on the server side
+         */
+        public void release(boolean failed) {
+            if (!released) {
+                released = true;
+                limit.release(System.nanoTime() - start, inFlightAtStart, failed);
+            }
+        }
+    }
+}
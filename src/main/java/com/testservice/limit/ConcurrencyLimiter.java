@@ -0,0 +1,105 @@
+package com.testservice.limit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.testservice.domain.ConcurrencyLimitStatistics;
+
+/**
+ * ConcurrencyLimiter keeps an {@link AdaptiveLimit} per authenticated principal, so a client sending more requests
+ * than the service can serve is throttled without affecting other principals.
+ *
+ * @author taras
+ *
+ */
+@Component
+public class ConcurrencyLimiter {
+
+    @Value("${limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${limit.initial:20}")
+    private int initialLimit;
+
+    @Value("${limit.min:2}")
+    private int minLimit;
+
+    @Value("${limit.max:200}")
+    private int maxLimit;
+
+    @Value("${limit.rttTolerance:1.5}")
+    private double rttTolerance;
+
+    @Value("${limit.smoothing:0.2}")
+    private double smoothing;
+
+    @Value("${limit.backoffRatio:0.9}")
+    private double backoffRatio;
+
+    private final ConcurrentMap<String, AdaptiveLimit> limits = new ConcurrentHashMap<>();
+
+    private Settings settings;
+
+    @PostConstruct
+    public void init() {
+        settings = new Settings(initialLimit, minLimit, maxLimit, rttTolerance, smoothing, backoffRatio);
+    }
+
+    /**
+     * Takes a slot for a request of the principal.
+     *
+     * @param principal name of the principal
+     * @param role role of the principal
+     * @return permit to release when the request completes, or null if the principal exceeds its limit
+     */
+    public AdaptiveLimit.Permit tryAcquire(String principal, String role) {
+        return limits.computeIfAbsent(role + ':' + principal, key -> new AdaptiveLimit(principal, role, settings))
+                     .tryAcquire();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return limits, requests in flight and counters of accepted and rejected requests per principal
+     */
+    public List<ConcurrencyLimitStatistics> getStatistics() {
+        List<ConcurrencyLimitStatistics> statistics = new ArrayList<>(limits.size());
+        for (AdaptiveLimit limit : limits.values()) {
+            statistics.add(new ConcurrencyLimitStatistics(limit.getPrincipal(), limit.getRole(), limit.getLimit(),
+                    limit.getInFlight(), limit.getAccepted(), limit.getRejected()));
+        }
+        return statistics;
+    }
+
+    /**
+     * Parameters shared by limits of all principals.
+     */
+    static final class Settings {
+
+        final int initialLimit;
+        final int minLimit;
+        final int maxLimit;
+        final double rttTolerance;
+        final double smoothing;
+        final double backoffRatio;
+
+        Settings(int initialLimit, int minLimit, int maxLimit, double rttTolerance, double smoothing,
+                double backoffRatio) {
+            this.initialLimit = initialLimit;
+            this.minLimit = minLimit;
+            this.maxLimit = maxLimit;
+            this.rttTolerance = rttTolerance;
+            this.smoothing = smoothing;
+            this.backoffRatio = backoffRatio;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.testservice.membership;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * BloomFilter answers whether an identifier may have been added: 'false' is definite, 'true' may be a false positive.
+ * Identifiers are hashed with two mixed 64-bit hashes combined into the bit positions (double hashing), so neither
+ * adds nor lookups allocate. Adds and lookups run in parallel; identifiers cannot be removed.
+ *
+ * @author taras
+ *
+ */
+final class BloomFilter {
+
+    private static final double LN2 = Math.log(2);
+
+    private final AtomicLongArray words;
+    private final long bits;
+    private final int hashes;
+
+    /**
+     * Sizes the filter for the false positive probability at the number of identifiers.
+     *
+     * @param expectedIds number of identifiers the filter is sized for
+     * @param falsePositiveRate false positive probability at that number, e.g. 0.01
+     */
+    BloomFilter(long expectedIds, double falsePositiveRate) {
+        long n = Math.max(expectedIds, 1);
+        long optimalBits = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (LN2 * LN2));
+        this.words = new AtomicLongArray((int) Math.min((optimalBits + 63) / 64, Integer.MAX_VALUE));
+        this.bits = words.length() * 64L;
+        this.hashes = Math.max(1, (int) Math.round((double) bits / n * LN2));
+    }
+
+    void add(int id) {
+        long h1 = mix(id);
+        long h2 = mix(h1) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = ((h1 + i * h2) & Long.MAX_VALUE) % bits;
+            int index = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long word = words.get(index);
+            while ((word & mask) == 0 && !words.compareAndSet(index, word, word | mask)) {
+                word = words.get(index);
+            }
+        }
+    }
+
+    boolean mightContain(int id) {
+        long h1 = mix(id);
+        long h2 = mix(h1) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = ((h1 + i * h2) & Long.MAX_VALUE) % bits;
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    long getBits() {
+        return bits;
+    }
+
+    int getHashes() {
+        return hashes;
+    }
+
+    /**
+     * Finalization step of MurmurHash3, spreads every input bit over the whole hash.
+     */
+    private static long mix(long value) {
+        long h = value;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
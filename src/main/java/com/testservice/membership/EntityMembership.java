@@ -0,0 +1,285 @@
+package com.testservice.membership;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.testservice.datasource.ShardRouting;
+import com.testservice.domain.Author;
+import com.testservice.domain.Book;
+import com.testservice.event.EntityChangedEvent;
+import com.testservice.schema.SchemaMigrator;
+
+/**
+ * EntityMembership keeps {@link BloomFilter}s of existing author and book identifiers when 'membership.enabled' is set,
+ * so lookups of identifiers which certainly do not exist are answered without the database. Filters are built from the
+ * primary database of every shard in background at startup and periodically, saved entities are added by
+ * {@link EntityChangedEvent}s of the services and deleting all entities clears the filter. A filter only knows the
+ * identifiers up to the highest identifier of every shard at its build: identifiers above it may belong to entities
+ * created later by other nodes, they are looked up in the database and added to the filter if found. Deleted
+ * identifiers stay in the filter till the next rebuild, they only cost a database query. Every identifier may exist
+ * while a filter is not built yet.
+ *
+ * @author taras
+ *
+ */
+@Component
+public class EntityMembership implements ApplicationListener<EntityChangedEvent>, DisposableBean {
+
+    private static final Logger LOGGER = Logger.getLogger(EntityMembership.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SchemaMigrator schemaMigrator;
+
+    @Autowired
+    private ShardRouting shards;
+
+    @Value("${membership.enabled:false}")
+    private boolean enabled;
+
+    @Value("${membership.expectedIds:1000000}")
+    private long expectedIds;
+
+    @Value("${membership.falsePositiveRate:0.01}")
+    private double falsePositiveRate;
+
+    @Value("${membership.rebuildMinutes:10}")
+    private int rebuildMinutes;
+
+    private ScheduledExecutorService rebuilder;
+
+    // null till built, replaced under this, filters synchronize their own content
+    private volatile Identifiers books;
+    private volatile Identifiers authors;
+
+    // filters being rebuilt, guarded by this: they receive changes made during the rebuild
+    private BloomFilter rebuiltBooks;
+    private BloomFilter rebuiltAuthors;
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        rebuilder = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "membership-rebuilder");
+            thread.setDaemon(true);
+            return thread;
+        });
+        rebuilder.scheduleWithFixedDelay(this::rebuild, 0, rebuildMinutes, TimeUnit.MINUTES);
+    }
+
+    @Override
+    public synchronized void onApplicationEvent(EntityChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (event.getEntityType() == Book.class) {
+            switch (event.getChangeType()) {
+            case CREATE:
+                add(books, rebuiltBooks, event.getEntityId());
+                break;
+            case DELETE_ALL:
+                books = books == null ? null : new Identifiers(newFilter(0), books.maxIds);
+                rebuiltBooks = rebuiltBooks == null ? null : newFilter(0);
+                break;
+            default:
+                break;
+            }
+        } else if (event.getEntityType() == Author.class) {
+            switch (event.getChangeType()) {
+            case CREATE:
+                add(authors, rebuiltAuthors, event.getEntityId());
+                break;
+            case DELETE_ALL:
+                authors = authors == null ? null : new Identifiers(newFilter(0), authors.maxIds);
+                rebuiltAuthors = rebuiltAuthors == null ? null : newFilter(0);
+                break;
+            default:
+                break;
+            }
+        }
+    }
+
+    private static void add(Identifiers current, BloomFilter rebuilt, int id) {
+        if (current != null) {
+            current.filter.add(id);
+        }
+        if (rebuilt != null) {
+            rebuilt.add(id);
+        }
+    }
+
+    /**
+     * Checks the identifier without the database. The check itself does not allocate, but the request still creates
+     * its resource instance and the 404 response.
+     *
+     * @param id identifier of the book
+     * @return false if the book certainly does not exist
+     */
+    public boolean mightContainBook(int id) {
+        return mightContain(books, id);
+    }
+
+    /**
+     * Checks the identifier without the database. The check itself does not allocate, but the request still creates
+     * its resource instance and the 404 response.
+     *
+     * @param id identifier of the author
+     * @return false if the author certainly does not exist
+     */
+    public boolean mightContainAuthor(int id) {
+        return mightContain(authors, id);
+    }
+
+    private boolean mightContain(Identifiers identifiers, int id) {
+        return identifiers == null || id > identifiers.maxIds[shards.shardOf(id)]
+                || identifiers.filter.mightContain(id);
+    }
+
+    /**
+     * Adds the identifier of a book found in the database, e.g. a book created by another node.
+     *
+     * @param id identifier of the book
+     */
+    public void foundBook(int id) {
+        found(books, id);
+    }
+
+    /**
+     * Adds the identifier of an author found in the database, e.g. an author created by another node.
+     *
+     * @param id identifier of the author
+     */
+    public void foundAuthor(int id) {
+        found(authors, id);
+    }
+
+    private static void found(Identifiers identifiers, int id) {
+        if (identifiers != null && !identifiers.filter.mightContain(id)) {
+            identifiers.filter.add(id);
+        }
+    }
+
+    /**
+     * Rebuilds filters from the database, does nothing if the filters are disabled.
+     */
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            schemaMigrator.awaitCompletion();
+            rebuildBooks();
+            rebuildAuthors();
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                rebuiltBooks = null;
+                rebuiltAuthors = null;
+            }
+            LOGGER.error("Unable to rebuild identifier filters", e);
+        }
+    }
+
+    private void rebuildBooks() {
+        long rows = count("select count(*) from Book");
+        BloomFilter filter = newFilter(rows);
+        synchronized (this) {
+            rebuiltBooks = filter;
+        }
+        int[] maxIds = load("select id from Book", filter);
+        synchronized (this) {
+            // a deletion of all books has replaced the filter
+            books = new Identifiers(rebuiltBooks, maxIds);
+            rebuiltBooks = null;
+        }
+        LOGGER.info("Book identifier filter is built: " + rows + " books, " + describe(filter));
+    }
+
+    private void rebuildAuthors() {
+        long rows = count("select count(*) from Author");
+        BloomFilter filter = newFilter(rows);
+        synchronized (this) {
+            rebuiltAuthors = filter;
+        }
+        int[] maxIds = load("select id from Author", filter);
+        synchronized (this) {
+            authors = new Identifiers(rebuiltAuthors, maxIds);
+            rebuiltAuthors = null;
+        }
+        LOGGER.info("Author identifier filter is built: " + rows + " authors, " + describe(filter));
+    }
+
+    private long count(String sql) {
+        long rows = 0;
+        for (int shard = 0; shard < shards.getShardCount(); shard++) {
+            Long count = shards.on(shard, () -> jdbcTemplate.queryForObject(sql, Long.class));
+            rows += count == null ? 0 : count;
+        }
+        return rows;
+    }
+
+    /**
+     * Adds identifiers of every shard to the filter.
+     *
+     * @return highest identifier of every shard, 0 for an empty shard
+     */
+    private int[] load(String sql, BloomFilter filter) {
+        int[] maxIds = new int[shards.getShardCount()];
+        for (int shard = 0; shard < maxIds.length; shard++) {
+            int target = shard;
+            shards.on(shard, () -> jdbcTemplate.query(sql, rs -> {
+                int id = rs.getInt(1);
+                filter.add(id);
+                maxIds[target] = Math.max(maxIds[target], id);
+            }));
+        }
+        return maxIds;
+    }
+
+    /**
+     * Sizes a filter for twice the current rows, at least for 'membership.expectedIds', so it keeps its false
+     * positive rate while entities are added till the next rebuild.
+     */
+    private BloomFilter newFilter(long rows) {
+        return new BloomFilter(Math.max(expectedIds, 2 * rows), falsePositiveRate);
+    }
+
+    private static String describe(BloomFilter filter) {
+        return filter.getBits() / 8 / 1024 + " KB, " + filter.getHashes() + " hashes";
+    }
+
+    /**
+     * Filter with the highest identifier of every shard at its build, deletion of all entities keeps them.
+     */
+    private static final class Identifiers {
+
+        private final BloomFilter filter;
+        private final int[] maxIds;
+
+        Identifiers(BloomFilter filter, int[] maxIds) {
+            this.filter = filter;
+            this.maxIds = maxIds;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (rebuilder != null) {
+            rebuilder.shutdownNow();
+        }
+    }
+}
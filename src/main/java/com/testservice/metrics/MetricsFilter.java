@@ -0,0 +1,181 @@
+package com.testservice.metrics;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Priority;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.PreMatching;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.SecurityContext;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.support.SpringBeanAutowiringSupport;
+
+import com.testservice.warmup.WarmUp;
+
+/**
+ * Measures latency of every request from its arrival till its entity is written and records it with the response
+ * status code for the matched resource method. Sampled requests and requests of admins with 'X-Profile: true' header
+ * are profiled by {@link RequestProfiler}: the complete profile including entity writing is added to the statistics of
+ * the resource method, phases measured before the entity is written are sent in Server-Timing response header to admins
+ * only, as they disclose the inner workings of the service. Profiles asked for by other principals are dropped by
+ * {@link ProfileAccessFilter} once the request is authenticated. Warm-up requests are not recorded.
+ * 
+ * @author taras
+ *
+ */
+@Provider
+@PreMatching
+@Component
+@Priority(1)
+public class MetricsFilter implements ContainerRequestFilter, ContainerResponseFilter, WriterInterceptor {
+
+    private static final String START_PROPERTY = MetricsFilter.class.getName() + ".start";
+    private static final String ENDPOINT_PROPERTY = MetricsFilter.class.getName() + ".endpoint";
+    private static final String STATUS_PROPERTY = MetricsFilter.class.getName() + ".status";
+    static final String PROFILE_PROPERTY = MetricsFilter.class.getName() + ".profile";
+    private static final String SERVER_TIMING_HEADER = "Server-Timing";
+    private static final String PROFILE_HEADER = "X-Profile";
+    private static final String ADMIN_ROLE = "admin";
+    private static final String UNMATCHED = "unmatched";
+
+    private final Map<Method, String> endpointNames = new ConcurrentHashMap<>();
+
+    private @Context ResourceInfo resourceInfo;
+
+    @Autowired
+    private MetricsRegistry metricsRegistry;
+
+    @Autowired
+    private RequestProfiler requestProfiler;
+
+    @Autowired
+    private RequestRecording requestRecording;
+
+    @PostConstruct
+    private void init() {
+        SpringBeanAutowiringSupport.processInjectionBasedOnCurrentContext(this);
+    }
+
+    /**
+     * Remembers arrival time of the request and starts its profile if it is asked for or sampled. Binds whether the
+     * request is recorded to the request thread.
+     * 
+     * @see javax.ws.rs.container.ContainerRequestFilter#filter(javax.ws.rs.container.ContainerRequestContext)
+     */
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        boolean recorded = !WarmUp.isWarmUpRequest(requestContext);
+        requestRecording.bind(recorded);
+        if (!recorded) {
+            requestProfiler.bind(null);
+            return;
+        }
+        requestContext.setProperty(START_PROPERTY, System.nanoTime());
+        RequestProfile profile = requestProfiler.start(
+                Boolean.parseBoolean(requestContext.getHeaderString(PROFILE_HEADER)));
+        if (profile != null) {
+            requestContext.setProperty(PROFILE_PROPERTY, profile);
+        }
+    }
+
+    /**
+     * Records the request unless its entity should be written yet. Adds Server-Timing header to profiled responses of
+     * admins.
+     * 
+     * @see javax.ws.rs.container.ContainerResponseFilter#filter(javax.ws.rs.container.ContainerRequestContext,
+     *      javax.ws.rs.container.ContainerResponseContext)
+     */
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        Long start = (Long) requestContext.getProperty(START_PROPERTY);
+        if (start == null) {
+            return;
+        }
+        String endpoint = endpointName();
+        RequestProfile profile = (RequestProfile) requestContext.getProperty(PROFILE_PROPERTY);
+        boolean admin = isAdmin(requestContext.getSecurityContext());
+        if (profile != null && profile.isRequested() && !admin) {
+            // rejected before ProfileAccessFilter has run
+            requestContext.removeProperty(PROFILE_PROPERTY);
+            requestProfiler.bind(null);
+            profile = null;
+        }
+        if (profile != null && admin) {
+            responseContext.getHeaders().add(SERVER_TIMING_HEADER, profile.toServerTiming());
+        }
+        if (responseContext.hasEntity()) {
+            requestContext.setProperty(ENDPOINT_PROPERTY, endpoint);
+            requestContext.setProperty(STATUS_PROPERTY, responseContext.getStatus());
+        } else {
+            metricsRegistry.recordRequest(endpoint, responseContext.getStatus(), elapsedMicros(start));
+            if (profile != null) {
+                requestProfiler.finish(profile, endpoint);
+            }
+        }
+    }
+
+    /**
+     * Records the request after its entity is written.
+     * 
+     * @see javax.ws.rs.ext.WriterInterceptor#aroundWriteTo(javax.ws.rs.ext.WriterInterceptorContext)
+     */
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+        long writeStart = System.nanoTime();
+        try {
+            context.proceed();
+        } finally {
+            Long start = (Long) context.getProperty(START_PROPERTY);
+            String endpoint = (String) context.getProperty(ENDPOINT_PROPERTY);
+            if (start != null && endpoint != null) {
+                context.removeProperty(START_PROPERTY);
+                metricsRegistry.recordRequest(endpoint, (Integer) context.getProperty(STATUS_PROPERTY),
+                        elapsedMicros(start));
+                RequestProfile profile = (RequestProfile) context.getProperty(PROFILE_PROPERTY);
+                if (profile != null) {
+                    profile.addWrite(System.nanoTime() - writeStart);
+                    requestProfiler.finish(profile, endpoint);
+                }
+            }
+        }
+    }
+
+    /**
+     * Rejected requests may have a security context without a principal.
+     */
+    static boolean isAdmin(SecurityContext securityContext) {
+        return securityContext != null && securityContext.getUserPrincipal() != null
+                && securityContext.isUserInRole(ADMIN_ROLE);
+    }
+
+    private String endpointName() {
+        Method method = resourceInfo.getResourceMethod();
+        if (method == null) {
+            return UNMATCHED;
+        }
+        String name = endpointNames.get(method);
+        if (name == null) {
+            name = resourceInfo.getResourceClass().getSimpleName() + "." + method.getName();
+            endpointNames.put(method, name);
+        }
+        return name;
+    }
+
+    private static long elapsedMicros(long start) {
+        return TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+    }
+}
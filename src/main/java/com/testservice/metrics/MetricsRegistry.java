@@ -0,0 +1,81 @@
+package com.testservice.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * MetricsRegistry keeps latency histograms and status code counters of resource methods and latency histograms of
+ * service calls.
+ * 
+ * @author taras
+ *
+ */
+@Component
+public class MetricsRegistry {
+
+    private final ConcurrentMap<String, EndpointMetrics> endpoints = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LatencyHistogram> serviceCalls = new ConcurrentHashMap<>();
+
+    /**
+     * Records a handled request.
+     * 
+     * @param endpoint name of resource method, e.g. 'BookResource.getBook'
+     * @param status HTTP status code of the response
+     * @param micros latency in microseconds
+     */
+    public void recordRequest(String endpoint, int status, long micros) {
+        EndpointMetrics metrics = endpoints.get(endpoint);
+        if (metrics == null) {
+            metrics = endpoints.computeIfAbsent(endpoint, key -> new EndpointMetrics());
+        }
+        metrics.latency.record(micros);
+        LongAdder counter = metrics.statuses.get(status);
+        if (counter == null) {
+            counter = metrics.statuses.computeIfAbsent(status, key -> new LongAdder());
+        }
+        counter.increment();
+    }
+
+    /**
+     * Records a service call.
+     * 
+     * @param operation name of service method, e.g. 'BookService.load'
+     * @param micros latency in microseconds
+     */
+    public void recordServiceCall(String operation, long micros) {
+        LatencyHistogram histogram = serviceCalls.get(operation);
+        if (histogram == null) {
+            histogram = serviceCalls.computeIfAbsent(operation, key -> new LatencyHistogram());
+        }
+        histogram.record(micros);
+    }
+
+    public Map<String, EndpointMetrics> getEndpoints() {
+        return endpoints;
+    }
+
+    public Map<String, LatencyHistogram> getServiceCalls() {
+        return serviceCalls;
+    }
+
+    /**
+     * Latency histogram and status code counters of one resource method.
+     */
+    public static final class EndpointMetrics {
+
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final ConcurrentMap<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+
+        public Map<Integer, LongAdder> getStatuses() {
+            return statuses;
+        }
+    }
+}
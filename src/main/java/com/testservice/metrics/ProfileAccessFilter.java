@@ -0,0 +1,50 @@
+package com.testservice.metrics;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Priority;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.PreMatching;
+import javax.ws.rs.ext.Provider;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.support.SpringBeanAutowiringSupport;
+
+/**
+ * Stops profiling of requests which asked for it with 'X-Profile: true' header but are not sent by admins. The profile
+ * is started by {@link MetricsFilter} before authentication to measure it, this filter runs once the principal is
+ * known. Sampled requests keep their profiles.
+ * 
+ * @author taras
+ *
+ */
+@Provider
+@PreMatching
+@Component
+@Priority(Priorities.AUTHORIZATION + 1)
+public class ProfileAccessFilter implements ContainerRequestFilter {
+
+    @Autowired
+    private RequestProfiler requestProfiler;
+
+    @PostConstruct
+    private void init() {
+        SpringBeanAutowiringSupport.processInjectionBasedOnCurrentContext(this);
+    }
+
+    /**
+     * Drops the profile of the request unless it is sampled or sent by an admin.
+     * 
+     * @see javax.ws.rs.container.ContainerRequestFilter#filter(javax.ws.rs.container.ContainerRequestContext)
+     */
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        RequestProfile profile = (RequestProfile) requestContext.getProperty(MetricsFilter.PROFILE_PROPERTY);
+        if (profile != null && profile.isRequested() && !MetricsFilter.isAdmin(requestContext.getSecurityContext())) {
+            requestContext.removeProperty(MetricsFilter.PROFILE_PROPERTY);
+            requestProfiler.bind(null);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.testservice.metrics;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.testservice.domain.CircuitBreakerStatistics;
+import com.testservice.domain.CoalescingStatistics;
+import com.testservice.domain.ConcurrencyLimitStatistics;
+import com.testservice.resilience.CircuitBreaker;
+
+/**
+ * PrometheusWriter renders collected metrics in Prometheus text exposition format.
+ * 
+ * @author taras
+ *
+ */
+public class PrometheusWriter {
+
+    private static final double[] QUANTILES = { 0.5, 0.9, 0.99, 0.999 };
+    private static final double MICROS_PER_SECOND = 1000000.0;
+
+    private final StringBuilder out = new StringBuilder(4096);
+
+    /**
+     * Writes latency summaries and status code counters of resource methods.
+     * 
+     * @param endpoints metrics of resource methods
+     * @return this writer
+     */
+    public PrometheusWriter writeEndpoints(Map<String, MetricsRegistry.EndpointMetrics> endpoints) {
+        header("http_request_duration_seconds", "Latency of requests per resource method", "summary");
+        for (Map.Entry<String, MetricsRegistry.EndpointMetrics> entry : endpoints.entrySet()) {
+            summary("http_request_duration_seconds", "endpoint", entry.getKey(), entry.getValue().getLatency());
+        }
+        header("http_responses_total", "Responses per resource method and status code", "counter");
+        for (Map.Entry<String, MetricsRegistry.EndpointMetrics> entry : endpoints.entrySet()) {
+            for (Map.Entry<Integer, LongAdder> status : entry.getValue().getStatuses().entrySet()) {
+                out.append("http_responses_total{endpoint=\"").append(escape(entry.getKey()))
+                   .append("\",status=\"").append(status.getKey()).append("\"} ")
+                   .append(status.getValue().sum()).append('\n');
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Writes latency summaries of service calls.
+     * 
+     * @param serviceCalls latency histograms of service methods
+     * @return this writer
+     */
+    public PrometheusWriter writeServiceCalls(Map<String, LatencyHistogram> serviceCalls) {
+        header("service_call_duration_seconds", "Latency of service calls per service method", "summary");
+        for (Map.Entry<String, LatencyHistogram> entry : serviceCalls.entrySet()) {
+            summary("service_call_duration_seconds", "operation", entry.getKey(), entry.getValue());
+        }
+        return this;
+    }
+
+    /**
+     * Writes counters of coalesced reads.
+     * 
+     * @param statistics coalescing statistics per operation
+     * @return this writer
+     */
+    public PrometheusWriter writeCoalescing(List<CoalescingStatistics> statistics) {
+        header("coalesced_reads_total", "Reads per operation", "counter");
+        for (CoalescingStatistics operation : statistics) {
+            counter("coalesced_reads_total", "operation", operation.getOperation(), operation.getCalls());
+        }
+        header("coalesced_reads_collapsed_total", "Reads which shared an identical in-flight query", "counter");
+        for (CoalescingStatistics operation : statistics) {
+            counter("coalesced_reads_collapsed_total", "operation", operation.getOperation(),
+                    operation.getCollapsed());
+        }
+        return this;
+    }
+
+    /**
+     * Writes adaptive concurrency limits per principal.
+     * 
+     * @param statistics concurrency limit statistics per principal
+     * @return this writer
+     */
+    public PrometheusWriter writeConcurrencyLimits(List<ConcurrencyLimitStatistics> statistics) {
+        header("concurrency_limit", "Adaptive concurrency limit per principal", "gauge");
+        for (ConcurrencyLimitStatistics principal : statistics) {
+            principalSample("concurrency_limit", principal, principal.getLimit());
+        }
+        header("concurrency_in_flight", "Requests in flight per principal", "gauge");
+        for (ConcurrencyLimitStatistics principal : statistics) {
+            principalSample("concurrency_in_flight", principal, principal.getInFlight());
+        }
+        header("concurrency_rejected_total", "Requests rejected with 429 per principal", "counter");
+        for (ConcurrencyLimitStatistics principal : statistics) {
+            principalSample("concurrency_rejected_total", principal, principal.getRejected());
+        }
+        return this;
+    }
+
+    /**
+     * Writes state and counters of the database circuit breakers per shard.
+     * 
+     * @param breakers circuit breaker statistics of the shards
+     * @return this writer
+     */
+    public PrometheusWriter writeCircuitBreakers(List<CircuitBreakerStatistics> breakers) {
+        header("db_circuit_breaker_state", "State of the database circuit breaker, 1 for the current state", "gauge");
+        for (CircuitBreakerStatistics breaker : breakers) {
+            for (CircuitBreaker.State state : CircuitBreaker.State.values()) {
+                out.append("db_circuit_breaker_state{shard=\"").append(breaker.getShard())
+                   .append("\",state=\"").append(state.name().toLowerCase()).append("\"} ")
+                   .append(state.name().equals(breaker.getState()) ? 1 : 0).append('\n');
+            }
+        }
+        header("db_circuit_breaker_failure_rate", "Failure rate of recent database calls in percent", "gauge");
+        for (CircuitBreakerStatistics breaker : breakers) {
+            shardSample("db_circuit_breaker_failure_rate", breaker, breaker.getFailureRate());
+        }
+        header("db_circuit_breaker_rejected_total", "Database calls rejected by the open breaker", "counter");
+        for (CircuitBreakerStatistics breaker : breakers) {
+            shardSample("db_circuit_breaker_rejected_total", breaker, breaker.getRejected());
+        }
+        header("db_circuit_breaker_opened_total", "Transitions of the breaker to open state", "counter");
+        for (CircuitBreakerStatistics breaker : breakers) {
+            shardSample("db_circuit_breaker_opened_total", breaker, breaker.getOpened());
+        }
+        return this;
+    }
+
+    private void shardSample(String name, CircuitBreakerStatistics breaker, long value) {
+        out.append(name).append("{shard=\"").append(breaker.getShard()).append("\"} ").append(value).append('\n');
+    }
+
+    private void principalSample(String name, ConcurrencyLimitStatistics principal, long value) {
+        out.append(name).append("{principal=\"").append(escape(principal.getPrincipal()))
+           .append("\",role=\"").append(escape(principal.getRole())).append("\"} ")
+           .append(value).append('\n');
+    }
+
+    private void header(String name, String help, String type) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private void summary(String name, String label, String value, LatencyHistogram histogram) {
+        String escaped = escape(value);
+        for (double quantile : QUANTILES) {
+            out.append(name).append('{').append(label).append("=\"").append(escaped)
+               .append("\",quantile=\"").append(quantile).append("\"} ")
+               .append(histogram.getValueAtQuantile(quantile) / MICROS_PER_SECOND).append('\n');
+        }
+        out.append(name).append("_sum{").append(label).append("=\"").append(escaped).append("\"} ")
+           .append(histogram.getSum() / MICROS_PER_SECOND).append('\n');
+        out.append(name).append("_count{").append(label).append("=\"").append(escaped).append("\"} ")
+           .append(histogram.getCount()).append('\n');
+    }
+
+    private void counter(String name, String label, String value, long count) {
+        out.append(name).append('{').append(label).append("=\"").append(escape(value)).append("\"} ")
+           .append(count).append('\n');
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    @Override
+    public String toString() {
+        return out.toString();
+    }
+}
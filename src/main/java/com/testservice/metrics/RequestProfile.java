@@ -0,0 +1,180 @@
+package com.testservice.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * RequestProfile accounts time of one request by phase: authentication, service calls, database calls and entity
+ * writing, with CPU time and bytes allocated by the request thread. Phases overlap: database calls of services and
+ * authentication count in their phases and in the database phase. Service phases are measured by the outermost
+ * {@link Timed} call only. Database calls may come from shard query threads, the other phases are measured on the
+ * request thread.
+ *
+ * @author taras
+ *
+ */
+public class RequestProfile {
+
+    /** Phase of {@link Timed} calls authenticating the request. */
+    public static final String AUTH_PHASE = "auth";
+
+    /** Phase of {@link Timed} calls handling the request. */
+    public static final String SERVICE_PHASE = "service";
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final com.sun.management.ThreadMXBean ALLOCATIONS =
+            THREADS instanceof com.sun.management.ThreadMXBean ? (com.sun.management.ThreadMXBean) THREADS : null;
+
+    private final long thread = Thread.currentThread().getId();
+    private final long startNanos = System.nanoTime();
+    private final long startCpuNanos = cpuNanos();
+    private final long startAllocatedBytes = allocatedBytes();
+    private final LongAdder dbNanos = new LongAdder();
+    private final LongAdder dbCalls = new LongAdder();
+    private final boolean requested;
+    private long authNanos;
+    private long serviceNanos;
+    private long writeNanos;
+    private int depth;
+
+    /**
+     * @param requested whether the request is profiled only because the client asks for it
+     */
+    RequestProfile(boolean requested) {
+        this.requested = requested;
+    }
+
+    /**
+     * @return true if the request is profiled only because the client asks for it, false if it is sampled
+     */
+    boolean isRequested() {
+        return requested;
+    }
+
+    /**
+     * Marks the start of a {@link Timed} call on the request thread.
+     */
+    void enter() {
+        depth++;
+    }
+
+    /**
+     * Marks the end of a {@link Timed} call on the request thread, the outermost call is added to its phase.
+     *
+     * @param phase phase of the call
+     * @param nanos duration of the call
+     */
+    void exit(String phase, long nanos) {
+        if (--depth > 0) {
+            return;
+        }
+        if (AUTH_PHASE.equals(phase)) {
+            authNanos += nanos;
+        } else {
+            serviceNanos += nanos;
+        }
+    }
+
+    /**
+     * Adds a database call: connection acquisition, statement execution or fetching of result set rows.
+     *
+     * @param nanos duration of the call
+     * @param statement whether the call executes a statement
+     */
+    public void addDatabaseCall(long nanos, boolean statement) {
+        dbNanos.add(nanos);
+        if (statement) {
+            dbCalls.increment();
+        }
+    }
+
+    void addWrite(long nanos) {
+        writeNanos += nanos;
+    }
+
+    long getElapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    long getAuthNanos() {
+        return authNanos;
+    }
+
+    long getServiceNanos() {
+        return serviceNanos;
+    }
+
+    long getDbNanos() {
+        return dbNanos.sum();
+    }
+
+    long getDbCalls() {
+        return dbCalls.sum();
+    }
+
+    long getWriteNanos() {
+        return writeNanos;
+    }
+
+    /**
+     * @return CPU time of the request thread since the start of the request, -1 if it is not measured
+     */
+    long getCpuNanos() {
+        long now = cpuNanos();
+        return now < 0 || startCpuNanos < 0 ? -1 : now - startCpuNanos;
+    }
+
+    /**
+     * @return bytes allocated by the request thread since the start of the request, -1 if they are not measured
+     */
+    long getAllocatedBytes() {
+        long now = allocatedBytes();
+        return now < 0 || startAllocatedBytes < 0 ? -1 : now - startAllocatedBytes;
+    }
+
+    /**
+     * Formats the phases measured so far as a Server-Timing header value, e.g.
+     * 'auth;dur=0.102, service;dur=1.950, db;dur=1.204;desc="statements: 2", cpu;dur=1.100, alloc;desc="81920 bytes",
+     * total;dur=2.300'.
+     *
+     * @return Server-Timing header value
+     */
+    String toServerTiming() {
+        StringBuilder out = new StringBuilder();
+        metric(out, AUTH_PHASE, authNanos);
+        metric(out, SERVICE_PHASE, serviceNanos);
+        metric(out, "db", getDbNanos()).append(";desc=\"statements: ").append(getDbCalls()).append("\"");
+        long cpuNanos = getCpuNanos();
+        if (cpuNanos >= 0) {
+            metric(out, "cpu", cpuNanos);
+        }
+        long allocatedBytes = getAllocatedBytes();
+        if (allocatedBytes >= 0) {
+            out.append(", alloc;desc=\"").append(allocatedBytes).append(" bytes\"");
+        }
+        return metric(out, "total", getElapsedNanos()).toString();
+    }
+
+    private static StringBuilder metric(StringBuilder out, String name, long nanos) {
+        if (out.length() > 0) {
+            out.append(", ");
+        }
+        return out.append(name).append(";dur=")
+                  .append(String.format(Locale.ROOT, "%.3f", nanos / (double) TimeUnit.MILLISECONDS.toNanos(1)));
+    }
+
+    /**
+     * CPU time and allocations are read for the thread which has started the request, resources run synchronously.
+     */
+    private long cpuNanos() {
+        return THREADS.isThreadCpuTimeEnabled() ? THREADS.getThreadCpuTime(thread) : -1;
+    }
+
+    private long allocatedBytes() {
+        return ALLOCATIONS != null && ALLOCATIONS.isThreadAllocatedMemoryEnabled()
+                ? ALLOCATIONS.getThreadAllocatedBytes(thread) : -1;
+    }
+}
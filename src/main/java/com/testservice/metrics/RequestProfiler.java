@@ -0,0 +1,152 @@
+package com.testservice.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.testservice.domain.EndpointProfileStatistics;
+
+/**
+ * RequestProfiler holds the {@link RequestProfile} of the current thread for a sampled share of requests and for
+ * requests which ask to be profiled, and aggregates finished profiles per resource method.
+ *
+ * @author taras
+ *
+ */
+@Component
+public class RequestProfiler {
+
+    private static final double NANOS_PER_MILLI = 1000000.0;
+
+    private final ThreadLocal<RequestProfile> profile = new ThreadLocal<>();
+    private final ConcurrentMap<String, EndpointProfile> endpoints = new ConcurrentHashMap<>();
+
+    @Value("${profiling.enabled:true}")
+    private boolean enabled;
+
+    @Value("${profiling.sampleRate:0.01}")
+    private double sampleRate;
+
+    /**
+     * Starts profiling of the request on the current thread if it is requested or sampled.
+     *
+     * @param requested whether the client asks for the profile of the request
+     * @return profile of the request or null if the request is not profiled
+     */
+    public RequestProfile start(boolean requested) {
+        boolean sampled = isSampled();
+        if (!enabled || !requested && !sampled) {
+            profile.remove();
+            return null;
+        }
+        RequestProfile started = new RequestProfile(!sampled);
+        profile.set(started);
+        return started;
+    }
+
+    private boolean isSampled() {
+        return sampleRate >= 1 || sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    /**
+     * @return profile of the request handled by the current thread, null if the request is not profiled
+     */
+    public RequestProfile current() {
+        return profile.get();
+    }
+
+    /**
+     * Binds the profile to the current thread, e.g. a shard query thread working for the request.
+     *
+     * @param bound profile of the request or null to unbind
+     */
+    public void bind(RequestProfile bound) {
+        if (bound == null) {
+            profile.remove();
+        } else {
+            profile.set(bound);
+        }
+    }
+
+    /**
+     * Unbinds the profile from the current thread and adds it to the statistics of the resource method.
+     *
+     * @param finished profile of the request
+     * @param endpoint name of resource method, e.g. 'BookResource.getBook'
+     */
+    public void finish(RequestProfile finished, String endpoint) {
+        profile.remove();
+        EndpointProfile metrics = endpoints.get(endpoint);
+        if (metrics == null) {
+            metrics = endpoints.computeIfAbsent(endpoint, key -> new EndpointProfile());
+        }
+        metrics.requests.increment();
+        metrics.totalNanos.add(finished.getElapsedNanos());
+        metrics.authNanos.add(finished.getAuthNanos());
+        metrics.serviceNanos.add(finished.getServiceNanos());
+        metrics.dbNanos.add(finished.getDbNanos());
+        metrics.dbCalls.add(finished.getDbCalls());
+        metrics.writeNanos.add(finished.getWriteNanos());
+        metrics.cpuNanos.add(Math.max(finished.getCpuNanos(), 0));
+        metrics.allocatedBytes.add(Math.max(finished.getAllocatedBytes(), 0));
+    }
+
+    /**
+     * Retrieves average phases of profiled requests per resource method.
+     *
+     * @return List of {@link EndpointProfileStatistics} instances
+     */
+    public List<EndpointProfileStatistics> getStatistics() {
+        List<EndpointProfileStatistics> statistics = new ArrayList<>();
+        for (Map.Entry<String, EndpointProfile> entry : endpoints.entrySet()) {
+            EndpointProfile metrics = entry.getValue();
+            long requests = metrics.requests.sum();
+            if (requests == 0) {
+                continue;
+            }
+            EndpointProfileStatistics endpoint = new EndpointProfileStatistics();
+            endpoint.setEndpoint(entry.getKey());
+            endpoint.setRequests(requests);
+            endpoint.setTotalMillis(average(metrics.totalNanos, requests) / NANOS_PER_MILLI);
+            endpoint.setAuthMillis(average(metrics.authNanos, requests) / NANOS_PER_MILLI);
+            endpoint.setServiceMillis(average(metrics.serviceNanos, requests) / NANOS_PER_MILLI);
+            endpoint.setDbMillis(average(metrics.dbNanos, requests) / NANOS_PER_MILLI);
+            endpoint.setDbCalls(average(metrics.dbCalls, requests));
+            endpoint.setWriteMillis(average(metrics.writeNanos, requests) / NANOS_PER_MILLI);
+            endpoint.setCpuMillis(average(metrics.cpuNanos, requests) / NANOS_PER_MILLI);
+            endpoint.setAllocatedBytes(Math.round(average(metrics.allocatedBytes, requests)));
+            statistics.add(endpoint);
+        }
+        return statistics;
+    }
+
+    /**
+     * Drops statistics of all resource methods.
+     */
+    public void reset() {
+        endpoints.clear();
+    }
+
+    private static double average(LongAdder sum, long requests) {
+        return sum.sum() / (double) requests;
+    }
+
+    private static final class EndpointProfile {
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAdder authNanos = new LongAdder();
+        private final LongAdder serviceNanos = new LongAdder();
+        private final LongAdder dbNanos = new LongAdder();
+        private final LongAdder dbCalls = new LongAdder();
+        private final LongAdder writeNanos = new LongAdder();
+        private final LongAdder cpuNanos = new LongAdder();
+        private final LongAdder allocatedBytes = new LongAdder();
+    }
+}
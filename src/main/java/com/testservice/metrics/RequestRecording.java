@@ -0,0 +1,37 @@
+package com.testservice.metrics;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * RequestRecording tells whether the request processed by the current thread is recorded by the statistics and the
+ * logs of the service: request and service call metrics, SQL statistics, profiles, the slow query log and the
+ * authentication log. Requests sent by the warm-up are not recorded, so the statistics describe client traffic only.
+ *
+ * @author taras
+ *
+ */
+@Component
+public class RequestRecording {
+
+    private final ThreadLocal<Boolean> unrecorded = new ThreadLocal<>();
+
+    /**
+     * Binds to the current thread whether its request is recorded.
+     *
+     * @param recorded false to leave the request out of the statistics and the logs
+     */
+    public void bind(boolean recorded) {
+        if (recorded) {
+            unrecorded.remove();
+        } else {
+            unrecorded.set(Boolean.TRUE);
+        }
+    }
+
+    /**
+     * @return true unless the request of the current thread is left out of the statistics and the logs
+     */
+    public boolean isRecorded() {
+        return unrecorded.get() == null;
+    }
+}
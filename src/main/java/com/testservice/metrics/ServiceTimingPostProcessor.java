@@ -0,0 +1,77 @@
+package com.testservice.metrics;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.stereotype.Component;
+
+/**
+ * Wraps beans annotated with {@link Timed} into proxies which record latency of every public method call in
+ * {@link MetricsRegistry} and in the {@link RequestProfile} of the current request.
+ * 
+ * @author taras
+ *
+ */
+@Component
+public class ServiceTimingPostProcessor implements BeanPostProcessor {
+
+    @Lazy
+    @Autowired
+    private MetricsRegistry metricsRegistry;
+
+    @Lazy
+    @Autowired
+    private RequestProfiler requestProfiler;
+
+    @Lazy
+    @Autowired
+    private RequestRecording requestRecording;
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        return bean;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        Class<?> beanClass = bean.getClass();
+        Timed timed = AnnotationUtils.findAnnotation(beanClass, Timed.class);
+        if (timed == null) {
+            return bean;
+        }
+        String phase = timed.phase();
+        String prefix = beanClass.getSimpleName() + ".";
+        Map<Method, String> operations = new ConcurrentHashMap<>();
+        ProxyFactory proxyFactory = new ProxyFactory(bean);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvice((MethodInterceptor) invocation -> {
+            RequestProfile profile = requestProfiler.current();
+            if (profile != null) {
+                profile.enter();
+            }
+            long start = System.nanoTime();
+            try {
+                return invocation.proceed();
+            } finally {
+                long nanos = System.nanoTime() - start;
+                if (profile != null) {
+                    profile.exit(phase, nanos);
+                }
+                String operation = operations.computeIfAbsent(invocation.getMethod(),
+                        method -> prefix + method.getName());
+                if (requestRecording.isRecorded()) {
+                    metricsRegistry.recordServiceCall(operation, TimeUnit.NANOSECONDS.toMicros(nanos));
+                }
+            }
+        });
+        return proxyFactory.getProxy();
+    }
+}
@@ -0,0 +1,128 @@
+package com.testservice.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.stereotype.Component;
+
+import com.testservice.domain.SqlStatementStatistics;
+
+/**
+ * SqlMetrics keeps execution time, rows, errors and connection acquire time per normalized SQL statement.
+ * 
+ * @author taras
+ *
+ */
+@Component
+public class SqlMetrics {
+
+    private static final int MAX_CACHED_STATEMENTS = 1000;
+    private static final double MICROS_PER_MILLI = 1000.0;
+
+    private final ConcurrentMap<String, StatementMetrics> statements = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, String> normalized = new ConcurrentHashMap<>();
+
+    /**
+     * Records execution of the statement.
+     * 
+     * @param sql normalized SQL statement
+     * @param micros execution time in microseconds
+     * @param rows rows returned or updated, negative if unknown
+     * @param failed whether the execution has thrown an exception
+     */
+    public void recordExecution(String sql, long micros, long rows, boolean failed) {
+        StatementMetrics metrics = metrics(sql);
+        metrics.latency.record(micros);
+        metrics.maxMicros.accumulate(micros);
+        if (rows > 0) {
+            metrics.rows.add(rows);
+        }
+        if (failed) {
+            metrics.errors.increment();
+        }
+    }
+
+    /**
+     * Records time the statement has waited for its connection.
+     * 
+     * @param sql normalized SQL statement
+     * @param micros connection acquire time in microseconds
+     */
+    public void recordConnectionAcquire(String sql, long micros) {
+        metrics(sql).acquire.record(micros);
+    }
+
+    /**
+     * Normalizes SQL statement: collapses whitespace and replaces literals with '?'.
+     * 
+     * @param sql SQL statement
+     * @return normalized SQL statement
+     */
+    public String normalize(String sql) {
+        String result = normalized.get(sql);
+        if (result == null) {
+            result = sql.trim()
+                        .replaceAll("\\s+", " ")
+                        .replaceAll("'(?:[^']|'')*'", "?")
+                        .replaceAll("\\b\\d+(?:\\.\\d+)?\\b", "?");
+            if (normalized.size() < MAX_CACHED_STATEMENTS) {
+                normalized.put(sql, result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Retrieves statistics of all executed statements.
+     * 
+     * @return List of {@link SqlStatementStatistics} instances
+     */
+    public List<SqlStatementStatistics> getStatistics() {
+        List<SqlStatementStatistics> statistics = new ArrayList<>();
+        for (Map.Entry<String, StatementMetrics> entry : statements.entrySet()) {
+            StatementMetrics metrics = entry.getValue();
+            SqlStatementStatistics statement = new SqlStatementStatistics();
+            statement.setStatement(entry.getKey());
+            statement.setExecutions(metrics.latency.getCount());
+            statement.setErrors(metrics.errors.sum());
+            statement.setRows(metrics.rows.sum());
+            statement.setTotalMillis(metrics.latency.getSum() / MICROS_PER_MILLI);
+            long maxMicros = metrics.maxMicros.get();
+            statement.setP50Millis(Math.min(metrics.latency.getValueAtQuantile(0.5), maxMicros) / MICROS_PER_MILLI);
+            statement.setP99Millis(Math.min(metrics.latency.getValueAtQuantile(0.99), maxMicros) / MICROS_PER_MILLI);
+            statement.setMaxMillis(maxMicros / MICROS_PER_MILLI);
+            statement.setAcquireP50Millis(metrics.acquire.getValueAtQuantile(0.5) / MICROS_PER_MILLI);
+            statement.setAcquireP99Millis(metrics.acquire.getValueAtQuantile(0.99) / MICROS_PER_MILLI);
+            statistics.add(statement);
+        }
+        return statistics;
+    }
+
+    /**
+     * Drops statistics of all statements.
+     */
+    public void reset() {
+        statements.clear();
+    }
+
+    private StatementMetrics metrics(String sql) {
+        StatementMetrics metrics = statements.get(sql);
+        if (metrics == null) {
+            metrics = statements.computeIfAbsent(sql, key -> new StatementMetrics());
+        }
+        return metrics;
+    }
+
+    private static final class StatementMetrics {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LatencyHistogram acquire = new LatencyHistogram();
+        private final LongAccumulator maxMicros = new LongAccumulator(Math::max, 0);
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+    }
+}
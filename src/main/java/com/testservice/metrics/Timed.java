@@ -0,0 +1,25 @@
+package com.testservice.metrics;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a Spring bean which public method calls are timed by {@link MetricsRegistry} and added to the phase of the
+ * {@link RequestProfile} of the request.
+ * 
+ * @author taras
+ *
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Timed {
+
+    /**
+     * @return phase of the request profile which calls of the bean belong to
+     */
+    String phase() default RequestProfile.SERVICE_PHASE;
+}
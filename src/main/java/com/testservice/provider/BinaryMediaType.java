@@ -0,0 +1,22 @@
+package com.testservice.provider;
+
+/**
+ * Media types of compact binary representations of resources.
+ * 
+ * @author taras
+ *
+ */
+public final class BinaryMediaType {
+
+    /**
+     * Binary JSON encoding of Jackson (Smile).
+     */
+    public static final String APPLICATION_SMILE = "application/x-jackson-smile";
+
+    /**
+     * Concise Binary Object Representation (RFC 7049).
+     */
+    public static final String APPLICATION_CBOR = "application/cbor";
+
+    private BinaryMediaType() { }
+}
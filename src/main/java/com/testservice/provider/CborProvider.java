@@ -0,0 +1,23 @@
+package com.testservice.provider;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.Produces;
+import javax.ws.rs.ext.Provider;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+
+/**
+ * Reads and writes entities as CBOR ({@value BinaryMediaType#APPLICATION_CBOR}).
+ * 
+ * @author taras
+ *
+ */
+@Provider
+@Consumes(BinaryMediaType.APPLICATION_CBOR)
+@Produces(BinaryMediaType.APPLICATION_CBOR)
+public class CborProvider extends BinaryJacksonProvider {
+
+    public CborProvider() {
+        super(new CBORFactory());
+    }
+}
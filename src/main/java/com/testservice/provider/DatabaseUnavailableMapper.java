@@ -0,0 +1,44 @@
+package com.testservice.provider;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.ExceptionMapper;
+import javax.ws.rs.ext.Provider;
+
+import org.apache.log4j.Logger;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+
+/**
+ * Maps database errors to responses. Calls rejected by the open circuit breaker, connections not acquired in time and
+ * statements cancelled by the request deadline are answered with HTTP_STATUS 503 and 'Retry-After' header, so clients
+ * back off instead of waiting; other database errors result in HTTP_STATUS 500.
+ * 
+ * @author taras
+ *
+ */
+@Provider
+public class DatabaseUnavailableMapper implements ExceptionMapper<DataAccessException> {
+
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    private static final Logger LOGGER = Logger.getLogger(DatabaseUnavailableMapper.class);
+
+    @Override
+    public Response toResponse(DataAccessException exception) {
+        if (exception instanceof CannotGetJdbcConnectionException || exception instanceof QueryTimeoutException
+                || exception instanceof TransientDataAccessResourceException) {
+            LOGGER.info("database unavailable: " + exception.getMostSpecificCause().getMessage());
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                           .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                           .type(MediaType.TEXT_PLAIN_TYPE)
+                           .entity("Database is unavailable.")
+                           .build();
+        }
+        LOGGER.error("database error", exception);
+        return Response.status(Response.Status.INTERNAL_SERVER_ERROR).build();
+    }
+}
@@ -0,0 +1,23 @@
+package com.testservice.provider;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.Produces;
+import javax.ws.rs.ext.Provider;
+
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * Reads and writes entities as Smile ({@value BinaryMediaType#APPLICATION_SMILE}).
+ * 
+ * @author taras
+ *
+ */
+@Provider
+@Consumes(BinaryMediaType.APPLICATION_SMILE)
+@Produces(BinaryMediaType.APPLICATION_SMILE)
+public class SmileProvider extends BinaryJacksonProvider {
+
+    public SmileProvider() {
+        super(new SmileFactory());
+    }
+}
@@ -0,0 +1,166 @@
+package com.testservice.provider;
+
+import java.beans.BeanInfo;
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Writes a flat {@link XmlRootElement} bean to a {@link XMLStreamWriter} the way JAXB maps it by default: every
+ * read/write property becomes a child element, properties are ordered by name and null values are omitted. Bean
+ * properties are introspected once per type. Only beans with primitive, wrapper and String properties and without
+ * other JAXB annotations are supported, {@link #forType(Class)} returns null for the rest.
+ *
+ * @author taras
+ *
+ */
+final class XmlBeanWriter {
+
+    private static final String JAXB_ANNOTATIONS = "javax.xml.bind.annotation.";
+
+    private static final Set<Class<?>> SIMPLE_TYPES = new HashSet<>(Arrays.<Class<?>>asList(
+            boolean.class, Boolean.class, byte.class, Byte.class, short.class, Short.class, int.class, Integer.class,
+            long.class, Long.class, float.class, Float.class, double.class, Double.class, String.class));
+
+    private final String rootName;
+    private final List<String> names;
+    private final List<Method> getters;
+
+    private XmlBeanWriter(String rootName, List<String> names, List<Method> getters) {
+        this.rootName = rootName;
+        this.names = names;
+        this.getters = getters;
+    }
+
+    /**
+     * Creates a writer for the given type.
+     *
+     * @param type
+     *            {@link XmlRootElement} bean class
+     * @return writer or null if the type is mapped in a way this writer does not support
+     */
+    static XmlBeanWriter forType(Class<?> type) {
+        XmlRootElement root = type.getAnnotation(XmlRootElement.class);
+        if (root == null || !XmlProvider.DEFAULT_NAME.equals(root.namespace()) || type.getSuperclass() != Object.class
+                || hasJaxbAnnotations(type)) {
+            return null;
+        }
+        BeanInfo beanInfo;
+        try {
+            beanInfo = Introspector.getBeanInfo(type, Object.class);
+        } catch (IntrospectionException e) {
+            return null;
+        }
+        List<PropertyDescriptor> properties = new ArrayList<>();
+        for (PropertyDescriptor property : beanInfo.getPropertyDescriptors()) {
+            Method getter = property.getReadMethod();
+            if (getter == null || property.getWriteMethod() == null) {
+                continue;
+            }
+            if (!SIMPLE_TYPES.contains(property.getPropertyType()) || hasJaxbAnnotations(getter)
+                    || hasJaxbAnnotations(property.getWriteMethod())) {
+                return null;
+            }
+            properties.add(property);
+        }
+        for (Field field : type.getDeclaredFields()) {
+            if (Modifier.isPublic(field.getModifiers()) && !Modifier.isStatic(field.getModifiers())
+                    || hasJaxbAnnotations(field.getAnnotations())) {
+                return null;
+            }
+        }
+        Collections.sort(properties, (left, right) -> left.getName().compareTo(right.getName()));
+        List<String> names = new ArrayList<>(properties.size());
+        List<Method> getters = new ArrayList<>(properties.size());
+        for (PropertyDescriptor property : properties) {
+            names.add(property.getName());
+            getters.add(property.getReadMethod());
+        }
+        return new XmlBeanWriter(XmlProvider.rootName(type), names, getters);
+    }
+
+    /**
+     * Writes the bean as an element.
+     *
+     * @param bean
+     *            bean to write
+     * @param writer
+     *            target writer
+     * @throws XMLStreamException
+     *             if the writer fails
+     */
+    void write(Object bean, XMLStreamWriter writer) throws XMLStreamException {
+        writer.writeStartElement(rootName);
+        for (int i = 0; i < getters.size(); i++) {
+            Object value = value(getters.get(i), bean);
+            if (value == null) {
+                continue;
+            }
+            writer.writeStartElement(names.get(i));
+            writer.writeCharacters(print(value));
+            writer.writeEndElement();
+        }
+        writer.writeEndElement();
+    }
+
+    private static Object value(Method getter, Object bean) throws XMLStreamException {
+        try {
+            return getter.invoke(bean);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new XMLStreamException("Cannot read property " + getter.getName(), e);
+        }
+    }
+
+    private static String print(Object value) {
+        if (value instanceof Double) {
+            double number = (Double) value;
+            return Double.isInfinite(number) ? (number > 0 ? "INF" : "-INF") : Double.toString(number);
+        }
+        if (value instanceof Float) {
+            float number = (Float) value;
+            return Float.isInfinite(number) ? (number > 0 ? "INF" : "-INF") : Float.toString(number);
+        }
+        return value.toString();
+    }
+
+    private static boolean hasJaxbAnnotations(Class<?> type) {
+        for (Annotation annotation : type.getAnnotations()) {
+            if (!(annotation instanceof XmlRootElement) && isJaxb(annotation)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasJaxbAnnotations(Method method) {
+        return hasJaxbAnnotations(method.getAnnotations());
+    }
+
+    private static boolean hasJaxbAnnotations(Annotation[] annotations) {
+        for (Annotation annotation : annotations) {
+            if (isJaxb(annotation)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isJaxb(Annotation annotation) {
+        return annotation.annotationType().getName().startsWith(JAXB_ANNOTATIONS);
+    }
+}
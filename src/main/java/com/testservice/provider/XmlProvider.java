@@ -0,0 +1,232 @@
+package com.testservice.provider;
+
+import java.beans.Introspector;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.ws.rs.BadRequestException;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.apache.log4j.Logger;
+import org.codehaus.stax2.XMLOutputFactory2;
+
+import com.ctc.wstx.api.WstxOutputProperties;
+import com.ctc.wstx.stax.WstxOutputFactory;
+
+/**
+ * XmlProvider reads and writes {@link XmlRootElement} beans and collections of them as XML. Writers are created once
+ * per type and cached: flat beans are written by {@link XmlBeanWriter}, other types are marshalled by a cached JAXB
+ * context. Collections are written element by element through StAX into a plural root element (e.g. 'books' for
+ * {@code List<Book>}), so the whole document is never built in memory.
+ *
+ * @author taras
+ *
+ */
+@Provider
+@Consumes(MediaType.APPLICATION_XML)
+@Produces(MediaType.APPLICATION_XML)
+public class XmlProvider implements MessageBodyReader<Object>, MessageBodyWriter<Object> {
+
+    private static final byte[] XML_DECLARATION =
+            "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>".getBytes(StandardCharsets.UTF_8);
+
+    static final String DEFAULT_NAME = "##default";
+
+    private static final String UTF_8 = StandardCharsets.UTF_8.name();
+
+    /** Elements written between flushes of the stream writer. */
+    private static final int FLUSH_INTERVAL = 64;
+
+    private static final Logger LOGGER = Logger.getLogger(XmlProvider.class);
+
+    private final ConcurrentMap<Class<?>, JAXBContext> contexts = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<Class<?>, XmlBeanWriter> beanWriters = new ConcurrentHashMap<>();
+
+    /** Types {@link XmlBeanWriter} does not support, they are marshalled by JAXB. */
+    private final Set<Class<?>> jaxbTypes = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+    private final XMLOutputFactory outputFactory;
+
+    private final XMLInputFactory inputFactory;
+
+    public XmlProvider() {
+        outputFactory = new WstxOutputFactory();
+        outputFactory.setProperty(WstxOutputProperties.P_OUTPUT_VALIDATE_STRUCTURE, false);
+        outputFactory.setProperty(WstxOutputProperties.P_OUTPUT_VALIDATE_CONTENT, false);
+        outputFactory.setProperty(WstxOutputProperties.P_OUTPUT_FIX_CONTENT, false);
+        outputFactory.setProperty(XMLOutputFactory2.P_AUTOMATIC_EMPTY_ELEMENTS, false);
+        inputFactory = XMLInputFactory.newInstance();
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    @Override
+    public boolean isReadable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return type.isAnnotationPresent(XmlRootElement.class);
+    }
+
+    @Override
+    public Object readFrom(Class<Object> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+            MultivaluedMap<String, String> httpHeaders, InputStream entityStream) throws IOException {
+        try {
+            XMLStreamReader reader = inputFactory.createXMLStreamReader(entityStream);
+            try {
+                return context(type).createUnmarshaller().unmarshal(reader, type).getValue();
+            } finally {
+                reader.close();
+            }
+        } catch (JAXBException | XMLStreamException e) {
+            LOGGER.warn("Cannot read " + type.getName() + " from XML: " + e);
+            throw new BadRequestException(e);
+        }
+    }
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        if (Collection.class.isAssignableFrom(type)) {
+            Class<?> elementType = elementType(genericType);
+            return elementType != null && elementType.isAnnotationPresent(XmlRootElement.class);
+        }
+        return type.isAnnotationPresent(XmlRootElement.class);
+    }
+
+    @Override
+    public long getSize(Object entity, Class<?> type, Type genericType, Annotation[] annotations,
+            MediaType mediaType) {
+        return -1;
+    }
+
+    @Override
+    public void writeTo(Object entity, Class<?> type, Type genericType, Annotation[] annotations,
+            MediaType mediaType, MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream)
+            throws IOException {
+        entityStream.write(XML_DECLARATION);
+        try {
+            if (entity instanceof Collection) {
+                writeCollection((Collection<?>) entity, elementType(genericType), entityStream);
+            } else {
+                writeElement(entity, type, entityStream);
+            }
+        } catch (JAXBException | XMLStreamException e) {
+            LOGGER.error("Cannot write " + type.getName() + " as XML", e);
+            throw new IOException(e);
+        }
+    }
+
+    private void writeElement(Object entity, Class<?> type, OutputStream entityStream)
+            throws JAXBException, XMLStreamException {
+        XmlBeanWriter beanWriter = beanWriter(type);
+        if (beanWriter == null) {
+            marshaller(type).marshal(entity, entityStream);
+            return;
+        }
+        XMLStreamWriter writer = outputFactory.createXMLStreamWriter(entityStream, UTF_8);
+        try {
+            beanWriter.write(entity, writer);
+            writer.flush();
+        } finally {
+            writer.close();
+        }
+    }
+
+    private void writeCollection(Collection<?> elements, Class<?> elementType, OutputStream entityStream)
+            throws JAXBException, XMLStreamException {
+        XmlBeanWriter beanWriter = beanWriter(elementType);
+        Marshaller marshaller = beanWriter == null ? marshaller(elementType) : null;
+        XMLStreamWriter writer = outputFactory.createXMLStreamWriter(entityStream, UTF_8);
+        try {
+            writer.writeStartElement(rootName(elementType) + "s");
+            int written = 0;
+            for (Object element : elements) {
+                if (element == null) {
+                    continue;
+                }
+                if (beanWriter != null) {
+                    beanWriter.write(element, writer);
+                } else {
+                    marshaller.marshal(element, writer);
+                }
+                if (++written % FLUSH_INTERVAL == 0) {
+                    writer.flush();
+                }
+            }
+            writer.writeEndElement();
+            writer.flush();
+        } finally {
+            writer.close();
+        }
+    }
+
+    private XmlBeanWriter beanWriter(Class<?> type) {
+        XmlBeanWriter beanWriter = beanWriters.get(type);
+        if (beanWriter == null && !jaxbTypes.contains(type)) {
+            beanWriter = XmlBeanWriter.forType(type);
+            if (beanWriter == null) {
+                LOGGER.debug(type.getName() + " is written by JAXB");
+                jaxbTypes.add(type);
+            } else {
+                beanWriters.putIfAbsent(type, beanWriter);
+            }
+        }
+        return beanWriter;
+    }
+
+    private Marshaller marshaller(Class<?> type) throws JAXBException {
+        Marshaller marshaller = context(type).createMarshaller();
+        marshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
+        return marshaller;
+    }
+
+    private JAXBContext context(Class<?> type) throws JAXBException {
+        JAXBContext context = contexts.get(type);
+        if (context == null) {
+            context = JAXBContext.newInstance(type);
+            JAXBContext existing = contexts.putIfAbsent(type, context);
+            if (existing != null) {
+                context = existing;
+            }
+        }
+        return context;
+    }
+
+    static String rootName(Class<?> type) {
+        String name = type.getAnnotation(XmlRootElement.class).name();
+        return DEFAULT_NAME.equals(name) ? Introspector.decapitalize(type.getSimpleName()) : name;
+    }
+
+    private static Class<?> elementType(Type genericType) {
+        if (genericType instanceof ParameterizedType) {
+            Type[] arguments = ((ParameterizedType) genericType).getActualTypeArguments();
+            if (arguments.length == 1 && arguments[0] instanceof Class) {
+                return (Class<?>) arguments[0];
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,89 @@
+package com.testservice.replica;
+
+import java.util.Arrays;
+
+import com.testservice.domain.Author;
+
+/**
+ * AuthorColumns keeps authors as 'age' int column, 'salary' double column and 'firstName' and 'lastName' columns
+ * encoded with one dictionary of names.
+ *
+ * @author taras
+ *
+ */
+final class AuthorColumns extends ColumnarTable<Author> {
+
+    /** Author object: header, id, two name references, age, salary. */
+    private static final long AUTHOR_BYTES =
+            Footprint.align(Footprint.OBJECT_HEADER + 4 + 2 * Footprint.REFERENCE + 4 + 8);
+
+    private StringDictionary names;
+    private int[] firstNameCodes;
+    private int[] lastNameCodes;
+    private int[] ages;
+    private double[] salaries;
+
+    AuthorColumns() {
+        reset(INITIAL_CAPACITY);
+    }
+
+    @Override
+    protected void resize(int capacity) {
+        firstNameCodes = Arrays.copyOf(firstNameCodes, capacity);
+        lastNameCodes = Arrays.copyOf(lastNameCodes, capacity);
+        ages = Arrays.copyOf(ages, capacity);
+        salaries = Arrays.copyOf(salaries, capacity);
+    }
+
+    @Override
+    protected void reset(int capacity) {
+        names = new StringDictionary();
+        firstNameCodes = new int[capacity];
+        lastNameCodes = new int[capacity];
+        ages = new int[capacity];
+        salaries = new double[capacity];
+    }
+
+    @Override
+    protected void move(int from, int to, int length) {
+        System.arraycopy(firstNameCodes, from, firstNameCodes, to, length);
+        System.arraycopy(lastNameCodes, from, lastNameCodes, to, length);
+        System.arraycopy(ages, from, ages, to, length);
+        System.arraycopy(salaries, from, salaries, to, length);
+    }
+
+    @Override
+    protected void write(int row, Author author) {
+        firstNameCodes[row] = names.encode(author.getFirstName());
+        lastNameCodes[row] = names.encode(author.getLastName());
+        ages[row] = author.getAge();
+        salaries[row] = author.getSalary();
+    }
+
+    @Override
+    protected Author read(int row, int id) {
+        Author author = new Author();
+        author.setId(id);
+        author.setFirstName(names.decode(firstNameCodes[row]));
+        author.setLastName(names.decode(lastNameCodes[row]));
+        author.setAge(ages[row]);
+        author.setSalary(salaries[row]);
+        return author;
+    }
+
+    @Override
+    protected int dictionarySize() {
+        return names.size();
+    }
+
+    @Override
+    protected long columnBytes() {
+        return 3 * Footprint.intArray(ages.length) + Footprint.doubleArray(salaries.length) + names.estimateBytes();
+    }
+
+    @Override
+    protected long entityBytes(int row) {
+        return AUTHOR_BYTES + Footprint.string(names.decode(firstNameCodes[row]))
+                + Footprint.string(names.decode(lastNameCodes[row]));
+    }
+}
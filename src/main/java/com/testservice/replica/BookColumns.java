@@ -0,0 +1,89 @@
+package com.testservice.replica;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.testservice.domain.Book;
+
+/**
+ * BookColumns keeps books as 'year' and 'authorId' int columns and dictionary encoded 'name' column.
+ *
+ * @author taras
+ *
+ */
+final class BookColumns extends ColumnarTable<Book> {
+
+    /** Book object: header, id, name reference, year, authorId. */
+    private static final long BOOK_BYTES = Footprint.align(Footprint.OBJECT_HEADER + 4 + Footprint.REFERENCE + 4 + 4);
+
+    private StringDictionary names;
+    private int[] nameCodes;
+    private int[] years;
+    private int[] authorIds;
+
+    BookColumns() {
+        reset(INITIAL_CAPACITY);
+    }
+
+    /**
+     * @param authorId identifier of the author
+     * @return books of the author in identifier order
+     */
+    List<Book> selectByAuthor(int authorId) {
+        return select(row -> authorIds[row] == authorId);
+    }
+
+    @Override
+    protected void resize(int capacity) {
+        nameCodes = Arrays.copyOf(nameCodes, capacity);
+        years = Arrays.copyOf(years, capacity);
+        authorIds = Arrays.copyOf(authorIds, capacity);
+    }
+
+    @Override
+    protected void reset(int capacity) {
+        names = new StringDictionary();
+        nameCodes = new int[capacity];
+        years = new int[capacity];
+        authorIds = new int[capacity];
+    }
+
+    @Override
+    protected void move(int from, int to, int length) {
+        System.arraycopy(nameCodes, from, nameCodes, to, length);
+        System.arraycopy(years, from, years, to, length);
+        System.arraycopy(authorIds, from, authorIds, to, length);
+    }
+
+    @Override
+    protected void write(int row, Book book) {
+        nameCodes[row] = names.encode(book.getName());
+        years[row] = book.getYear();
+        authorIds[row] = book.getAuthorId();
+    }
+
+    @Override
+    protected Book read(int row, int id) {
+        Book book = new Book();
+        book.setId(id);
+        book.setName(names.decode(nameCodes[row]));
+        book.setYear(years[row]);
+        book.setAuthorId(authorIds[row]);
+        return book;
+    }
+
+    @Override
+    protected int dictionarySize() {
+        return names.size();
+    }
+
+    @Override
+    protected long columnBytes() {
+        return 3 * Footprint.intArray(years.length) + names.estimateBytes();
+    }
+
+    @Override
+    protected long entityBytes(int row) {
+        return BOOK_BYTES + Footprint.string(names.decode(nameCodes[row]));
+    }
+}
@@ -0,0 +1,330 @@
+package com.testservice.replica;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.testservice.datasource.ShardRouting;
+import com.testservice.domain.Author;
+import com.testservice.domain.Book;
+import com.testservice.domain.ReplicaStatistics;
+import com.testservice.event.ChangeType;
+import com.testservice.event.EntityChangedEvent;
+import com.testservice.schema.SchemaMigrator;
+
+/**
+ * ColumnarReplica keeps Author and Book tables in memory as {@link ColumnarTable}s when 'replica.enabled' is set, so
+ * AuthorService and BookService serve reads without the database. Tables are loaded from the primary database of
+ * every shard in background at startup, writes of the services go to the database and then to the replica through
+ * {@link EntityChangedEvent}s, and tables are periodically rebuilt to pick up changes made by other nodes or by bulk
+ * imports; changes applied while a rebuild is running are applied to the table being built too, so the rebuilt table
+ * replaces the current one. Reads go to the database till a table is loaded.
+ *
+ * @author taras
+ *
+ */
+@Component
+public class ColumnarReplica implements ApplicationListener<EntityChangedEvent>, DisposableBean {
+
+    private static final Logger LOGGER = Logger.getLogger(ColumnarReplica.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SchemaMigrator schemaMigrator;
+
+    @Autowired
+    private ShardRouting shards;
+
+    @Value("${replica.enabled:false}")
+    private boolean enabled;
+
+    @Value("${replica.rebuildMinutes:30}")
+    private int rebuildMinutes;
+
+    private ScheduledExecutorService rebuilder;
+
+    // null till loaded, replaced under this, tables synchronize their own content
+    private volatile BookColumns books;
+    private volatile AuthorColumns authors;
+
+    // tables being rebuilt, guarded by this: they receive changes made during the rebuild
+    private Rebuild<Book> rebuiltBooks;
+    private Rebuild<Author> rebuiltAuthors;
+
+    // guarded by this
+    private long bookRebuildMillis;
+    private long authorRebuildMillis;
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        rebuilder = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "columnar-replica-rebuilder");
+            thread.setDaemon(true);
+            return thread;
+        });
+        rebuilder.scheduleWithFixedDelay(this::rebuild, 0, rebuildMinutes, TimeUnit.MINUTES);
+    }
+
+    @Override
+    public synchronized void onApplicationEvent(EntityChangedEvent event) {
+        if (event.getEntityType() == Book.class) {
+            apply(books, event);
+            if (rebuiltBooks != null) {
+                rebuiltBooks.apply(event);
+            }
+        } else if (event.getEntityType() == Author.class) {
+            apply(authors, event);
+            if (rebuiltAuthors != null) {
+                rebuiltAuthors.apply(event);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void apply(ColumnarTable<T> table, EntityChangedEvent event) {
+        if (table == null) {
+            return;
+        }
+        switch (event.getChangeType()) {
+        case CREATE:
+        case UPDATE:
+            table.put(event.getEntityId(), (T) event.getEntity());
+            break;
+        case DELETE:
+            table.remove(event.getEntityId());
+            break;
+        case DELETE_ALL:
+            table.clear();
+            break;
+        default:
+            break;
+        }
+    }
+
+    /**
+     * @return true if reads of books are served by the replica
+     */
+    public boolean hasBooks() {
+        return books != null;
+    }
+
+    /**
+     * @return true if reads of authors are served by the replica
+     */
+    public boolean hasAuthors() {
+        return authors != null;
+    }
+
+    /**
+     * @return all books in identifier order, null if the table is not loaded
+     */
+    public List<Book> getBooks() {
+        BookColumns table = books;
+        return table == null ? null : table.getAll();
+    }
+
+    /**
+     * @param id identifier of the book
+     * @return book or null if there is no such book or the table is not loaded
+     */
+    public Book getBook(int id) {
+        BookColumns table = books;
+        return table == null ? null : table.get(id);
+    }
+
+    /**
+     * @param authorId identifier of the author
+     * @return books of the author in identifier order, null if the table is not loaded
+     */
+    public List<Book> getBooksByAuthor(int authorId) {
+        BookColumns table = books;
+        return table == null ? null : table.selectByAuthor(authorId);
+    }
+
+    /**
+     * @return all authors in identifier order, null if the table is not loaded
+     */
+    public List<Author> getAuthors() {
+        AuthorColumns table = authors;
+        return table == null ? null : table.getAll();
+    }
+
+    /**
+     * @param id identifier of the author
+     * @return author or null if there is no such author or the table is not loaded
+     */
+    public Author getAuthor(int id) {
+        AuthorColumns table = authors;
+        return table == null ? null : table.get(id);
+    }
+
+    /**
+     * Retrieves rows and memory footprint of the tables.
+     *
+     * @return List of {@link ReplicaStatistics} instances
+     */
+    public List<ReplicaStatistics> getStatistics() {
+        List<ReplicaStatistics> statistics = new ArrayList<>();
+        synchronized (this) {
+            statistics.add(statistics("Author", authors, authorRebuildMillis));
+            statistics.add(statistics("Book", books, bookRebuildMillis));
+        }
+        return statistics;
+    }
+
+    private static ReplicaStatistics statistics(String name, ColumnarTable<?> table, long rebuildMillis) {
+        ReplicaStatistics statistics = new ReplicaStatistics();
+        statistics.setTable(name);
+        statistics.setLoaded(table != null);
+        if (table != null) {
+            statistics.setRows(table.size());
+            statistics.setDistinctStrings(table.distinctStrings());
+            statistics.setColumnarBytes(table.columnarBytes());
+            statistics.setObjectBytes(table.objectBytes());
+            statistics.setRebuildMillis(rebuildMillis);
+        }
+        return statistics;
+    }
+
+    /**
+     * @return true if the replica is enabled by 'replica.enabled'
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Rebuilds the tables from the database, does nothing if the replica is disabled.
+     */
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            schemaMigrator.awaitCompletion();
+            rebuildBooks();
+            rebuildAuthors();
+        } catch (RuntimeException e) {
+            LOGGER.error("Unable to rebuild columnar replica", e);
+        }
+    }
+
+    private void rebuildBooks() {
+        long start = System.nanoTime();
+        BookColumns table = new BookColumns();
+        Rebuild<Book> rebuild = new Rebuild<>(table);
+        synchronized (this) {
+            rebuiltBooks = rebuild;
+        }
+        try {
+            // rows are copied into the columns, one Book carries the values of the current row
+            Book book = new Book();
+            for (int shard = 0; shard < shards.getShardCount(); shard++) {
+                shards.on(shard, () -> jdbcTemplate.query("select id, name, year, authorId from Book", rs -> {
+                    book.setName(rs.getString(2));
+                    book.setYear(rs.getInt(3));
+                    book.setAuthorId(rs.getInt(4));
+                    rebuild.load(rs.getInt(1), book);
+                }));
+            }
+            synchronized (this) {
+                books = table;
+                bookRebuildMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                LOGGER.info("Book columnar replica is built in " + bookRebuildMillis + " ms, books: "
+                        + table.size());
+            }
+        } finally {
+            synchronized (this) {
+                rebuiltBooks = null;
+            }
+        }
+    }
+
+    private void rebuildAuthors() {
+        long start = System.nanoTime();
+        AuthorColumns table = new AuthorColumns();
+        Rebuild<Author> rebuild = new Rebuild<>(table);
+        synchronized (this) {
+            rebuiltAuthors = rebuild;
+        }
+        try {
+            Author author = new Author();
+            for (int shard = 0; shard < shards.getShardCount(); shard++) {
+                shards.on(shard, () -> jdbcTemplate.query(
+                        "select id, firstName, lastName, age, salary from Author", rs -> {
+                            author.setFirstName(rs.getString(2));
+                            author.setLastName(rs.getString(3));
+                            author.setAge(rs.getInt(4));
+                            author.setSalary(rs.getDouble(5));
+                            rebuild.load(rs.getInt(1), author);
+                        }));
+            }
+            synchronized (this) {
+                authors = table;
+                authorRebuildMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                LOGGER.info("Author columnar replica is built in " + authorRebuildMillis + " ms, authors: "
+                        + table.size());
+            }
+        } finally {
+            synchronized (this) {
+                rebuiltAuthors = null;
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (rebuilder != null) {
+            rebuilder.shutdownNow();
+        }
+    }
+
+    /**
+     * Table being rebuilt from the database. Changes applied during the rebuild win over loaded rows, which may have
+     * been read before the change.
+     */
+    private static final class Rebuild<T> {
+
+        private final ColumnarTable<T> table;
+        private final Set<Integer> changed = new HashSet<>();
+        private boolean cleared;
+
+        Rebuild(ColumnarTable<T> table) {
+            this.table = table;
+        }
+
+        synchronized void load(int id, T entity) {
+            if (!cleared && !changed.contains(id)) {
+                table.put(id, entity);
+            }
+        }
+
+        synchronized void apply(EntityChangedEvent event) {
+            if (event.getChangeType() == ChangeType.DELETE_ALL) {
+                cleared = true;
+            } else {
+                changed.add(event.getEntityId());
+            }
+            ColumnarReplica.apply(table, event);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.testservice.replica;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+
+/**
+ * ColumnarTable keeps rows of a table in primitive column arrays sorted by identifier: a row is found by binary search
+ * over the identifier column, scans read one column sequentially. Rows are materialized as entities only when they are
+ * read. Reads run in parallel, changes are exclusive.
+ *
+ * @param <T> type of entities stored in the table
+ *
+ * @author taras
+ *
+ */
+abstract class ColumnarTable<T> {
+
+    protected static final int INITIAL_CAPACITY = 64;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // guarded by lock
+    private int[] ids = new int[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Adds a row or replaces the row with the same identifier. Rows coming in identifier order are appended.
+     *
+     * @param id identifier of the entity
+     * @param entity values of the row
+     */
+    void put(int id, T entity) {
+        lock.writeLock().lock();
+        try {
+            int row = size > 0 && ids[size - 1] < id ? -size - 1 : Arrays.binarySearch(ids, 0, size, id);
+            if (row < 0) {
+                row = -row - 1;
+                if (size == ids.length) {
+                    int capacity = ids.length * 2;
+                    ids = Arrays.copyOf(ids, capacity);
+                    resize(capacity);
+                }
+                System.arraycopy(ids, row, ids, row + 1, size - row);
+                move(row, row + 1, size - row);
+                ids[row] = id;
+                size++;
+            }
+            write(row, entity);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the row of the entity.
+     *
+     * @param id identifier of the entity
+     */
+    void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            int row = Arrays.binarySearch(ids, 0, size, id);
+            if (row >= 0) {
+                System.arraycopy(ids, row + 1, ids, row, size - row - 1);
+                move(row + 1, row, size - row - 1);
+                size--;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes all rows and releases the column arrays.
+     */
+    void clear() {
+        lock.writeLock().lock();
+        try {
+            ids = new int[INITIAL_CAPACITY];
+            size = 0;
+            reset(INITIAL_CAPACITY);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param id identifier of the entity
+     * @return entity or null if there is no row with the identifier
+     */
+    T get(int id) {
+        lock.readLock().lock();
+        try {
+            int row = Arrays.binarySearch(ids, 0, size, id);
+            return row < 0 ? null : read(row, id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return all entities in identifier order
+     */
+    List<T> getAll() {
+        return select(row -> true);
+    }
+
+    /**
+     * Scans the rows.
+     *
+     * @param filter condition on the row index, reads the columns it needs
+     * @return entities of matching rows in identifier order
+     */
+    List<T> select(IntPredicate filter) {
+        lock.readLock().lock();
+        try {
+            List<T> entities = new ArrayList<>();
+            for (int row = 0; row < size; row++) {
+                if (filter.test(row)) {
+                    entities.add(read(row, ids[row]));
+                }
+            }
+            return entities;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return number of rows
+     */
+    int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Estimates heap bytes of the columns, including the identifier column and string dictionaries.
+     *
+     * @return estimated bytes
+     */
+    long columnarBytes() {
+        lock.readLock().lock();
+        try {
+            return Footprint.intArray(ids.length) + columnBytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Estimates heap bytes of the same rows loaded as a List of entities.
+     *
+     * @return estimated bytes
+     */
+    long objectBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = Footprint.ARRAY_LIST + Footprint.referenceArray(size);
+            for (int row = 0; row < size; row++) {
+                bytes += entityBytes(row);
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return number of distinct strings in the dictionaries of the table
+     */
+    int distinctStrings() {
+        lock.readLock().lock();
+        try {
+            return dictionarySize();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Grows the columns to the capacity keeping their values.
+     */
+    protected abstract void resize(int capacity);
+
+    /**
+     * Replaces the columns and dictionaries with empty ones, columns get the capacity.
+     */
+    protected abstract void reset(int capacity);
+
+    /**
+     * Moves values of the rows within every column, like {@link System#arraycopy}.
+     */
+    protected abstract void move(int from, int to, int length);
+
+    protected abstract void write(int row, T entity);
+
+    protected abstract T read(int row, int id);
+
+    protected abstract int dictionarySize();
+
+    protected abstract long columnBytes();
+
+    /**
+     * Estimates heap bytes of the entity of the row with its strings.
+     */
+    protected abstract long entityBytes(int row);
+}
@@ -0,0 +1,49 @@
+package com.testservice.replica;
+
+/**
+ * Footprint estimates heap bytes of objects on a 64-bit JVM with compressed references: 12 bytes object headers,
+ * 16 bytes array headers, 4 bytes references, objects aligned to 8 bytes and strings backed by char arrays.
+ *
+ * @author taras
+ *
+ */
+final class Footprint {
+
+    static final int OBJECT_HEADER = 12;
+    static final int ARRAY_HEADER = 16;
+    static final int REFERENCE = 4;
+
+    /** ArrayList object: header, size, modification count and reference to its array. */
+    static final long ARRAY_LIST = align(OBJECT_HEADER + 4 + 4 + REFERENCE);
+
+    /** HashMap entry with a boxed value: node (hash, key, value, next) and Integer. */
+    static final long MAP_ENTRY = align(OBJECT_HEADER + 4 + 3 * REFERENCE) + align(OBJECT_HEADER + 4);
+
+    private Footprint() { }
+
+    static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    static long intArray(int length) {
+        return align(ARRAY_HEADER + 4L * length);
+    }
+
+    static long doubleArray(int length) {
+        return align(ARRAY_HEADER + 8L * length);
+    }
+
+    static long referenceArray(int length) {
+        return align(ARRAY_HEADER + (long) REFERENCE * length);
+    }
+
+    /**
+     * @return bytes of the string with its char array, 0 for null
+     */
+    static long string(String value) {
+        if (value == null) {
+            return 0;
+        }
+        return align(OBJECT_HEADER + REFERENCE + 4) + align(ARRAY_HEADER + 2L * value.length());
+    }
+}
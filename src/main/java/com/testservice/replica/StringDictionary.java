@@ -0,0 +1,71 @@
+package com.testservice.replica;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * StringDictionary encodes strings of a column as int codes, so equal strings are kept once. Codes are never reused:
+ * strings of removed rows stay in the dictionary till the table is rebuilt.
+ *
+ * @author taras
+ *
+ */
+final class StringDictionary {
+
+    static final int NULL = -1;
+
+    private final Map<String, Integer> codes = new HashMap<>();
+    private String[] values = new String[16];
+    private int size;
+
+    /**
+     * @return code of the string, {@link #NULL} for null
+     */
+    int encode(String value) {
+        if (value == null) {
+            return NULL;
+        }
+        Integer code = codes.get(value);
+        if (code == null) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            code = size;
+            values[size++] = value;
+            codes.put(value, code);
+        }
+        return code;
+    }
+
+    /**
+     * @return string of the code, null for {@link #NULL}
+     */
+    String decode(int code) {
+        return code == NULL ? null : values[code];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return estimated bytes of the strings, the code array and the lookup map
+     */
+    long estimateBytes() {
+        long bytes = Footprint.referenceArray(values.length) + Footprint.referenceArray(tableSize(size))
+                + size * Footprint.MAP_ENTRY;
+        for (int code = 0; code < size; code++) {
+            bytes += Footprint.string(values[code]);
+        }
+        return bytes;
+    }
+
+    private static int tableSize(int entries) {
+        int table = 16;
+        while (table * 3 / 4 < entries) {
+            table *= 2;
+        }
+        return table;
+    }
+}
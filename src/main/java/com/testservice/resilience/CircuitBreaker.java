@@ -0,0 +1,234 @@
+package com.testservice.resilience;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.PostConstruct;
+
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.testservice.datasource.ShardRouting;
+import com.testservice.domain.CircuitBreakerStatistics;
+
+/**
+ * CircuitBreaker protects the database from calls which cannot succeed. Outcomes of the last database calls are kept
+ * in a sliding window; a call fails if it throws a server side error or runs longer than the slow call threshold.
+ * When the failure rate of the window crosses the threshold the breaker opens and calls fail fast. After the open
+ * interval the breaker half-opens and lets a few probe calls through: it closes if they all succeed and opens again
+ * otherwise. Every shard has its own breaker, so a failing shard does not stop calls to the others.
+ * 
+ * @author taras
+ *
+ */
+@Component
+public class CircuitBreaker {
+
+    /**
+     * States of the breaker.
+     */
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private static final Logger LOGGER = Logger.getLogger(CircuitBreaker.class);
+
+    @Value("${breaker.enabled:true}")
+    private boolean enabled;
+
+    @Value("${breaker.windowSize:50}")
+    private int windowSize;
+
+    @Value("${breaker.minimumCalls:20}")
+    private int minimumCalls;
+
+    @Value("${breaker.failureRateThreshold:50}")
+    private int failureRateThreshold;
+
+    @Value("${breaker.slowCallMillis:2000}")
+    private long slowCallMillis;
+
+    @Value("${breaker.openMillis:5000}")
+    private long openMillis;
+
+    @Value("${breaker.halfOpenProbes:3}")
+    private int halfOpenProbes;
+
+    @Autowired
+    private ShardRouting shards;
+
+    private Breaker[] breakers;
+
+    @PostConstruct
+    public void init() {
+        breakers = new Breaker[shards.getShardCount()];
+        for (int shard = 0; shard < breakers.length; shard++) {
+            breakers[shard] = new Breaker(shard);
+        }
+    }
+
+    /**
+     * Asks for permission to call the database of the shard.
+     * 
+     * @param shard index of the shard
+     * @return true if the call may proceed, false if it should fail fast
+     */
+    public boolean tryAcquire(int shard) {
+        return !enabled || breakers[shard].tryAcquire();
+    }
+
+    /**
+     * Records the outcome of a database call.
+     * 
+     * @param shard index of the shard
+     * @param micros duration of the call
+     * @param failed whether the call failed on the database side
+     */
+    public void record(int shard, long micros, boolean failed) {
+        record(shard, failed || micros >= TimeUnit.MILLISECONDS.toMicros(slowCallMillis));
+    }
+
+    /**
+     * Records the outcome of a database call whose duration is not a sign of the database health, e.g. of a bulk
+     * write; the call fails only if it throws a server side error.
+     * 
+     * @param shard index of the shard
+     * @param failed whether the call failed on the database side
+     */
+    public void record(int shard, boolean failed) {
+        if (!enabled) {
+            return;
+        }
+        breakers[shard].record(failed);
+    }
+
+    /**
+     * @param shard index of the shard
+     * @return state of the breaker of the shard
+     */
+    public State getState(int shard) {
+        return breakers[shard].state;
+    }
+
+    /**
+     * @return state, failure rate of the sliding window and counters of the breaker of every shard
+     */
+    public List<CircuitBreakerStatistics> getStatistics() {
+        List<CircuitBreakerStatistics> statistics = new ArrayList<>(breakers.length);
+        for (Breaker breaker : breakers) {
+            statistics.add(breaker.getStatistics());
+        }
+        return statistics;
+    }
+
+    /**
+     * Breaker of one shard.
+     */
+    private final class Breaker {
+
+        private final int shard;
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder opened = new LongAdder();
+
+        private volatile State state = State.CLOSED;
+
+        // guarded by this
+        private final boolean[] window = new boolean[windowSize];
+        private int windowIndex;
+        private int windowCalls;
+        private int windowFailures;
+        private long stateChangedAt;
+        private int probesStarted;
+        private int probesSucceeded;
+
+        Breaker(int shard) {
+            this.shard = shard;
+        }
+
+        boolean tryAcquire() {
+            if (state == State.CLOSED) {
+                return true;
+            }
+            synchronized (this) {
+                long now = System.nanoTime();
+                if (state == State.OPEN && now - stateChangedAt >= TimeUnit.MILLISECONDS.toNanos(openMillis)) {
+                    transition(State.HALF_OPEN, now);
+                }
+                if (state == State.HALF_OPEN) {
+                    // probes which never report an outcome must not keep the breaker half-open forever
+                    if (probesStarted >= halfOpenProbes
+                            && now - stateChangedAt >= TimeUnit.MILLISECONDS.toNanos(openMillis)) {
+                        transition(State.HALF_OPEN, now);
+                    }
+                    if (probesStarted < halfOpenProbes) {
+                        probesStarted++;
+                        return true;
+                    }
+                }
+                if (state == State.CLOSED) {
+                    return true;
+                }
+            }
+            rejected.increment();
+            return false;
+        }
+
+        synchronized void record(boolean failure) {
+            long now = System.nanoTime();
+            switch (state) {
+            case HALF_OPEN:
+                if (failure) {
+                    transition(State.OPEN, now);
+                } else if (++probesSucceeded >= halfOpenProbes) {
+                    transition(State.CLOSED, now);
+                }
+                break;
+            case CLOSED:
+                if (windowCalls == windowSize) {
+                    if (window[windowIndex]) {
+                        windowFailures--;
+                    }
+                } else {
+                    windowCalls++;
+                }
+                window[windowIndex] = failure;
+                windowIndex = (windowIndex + 1) % windowSize;
+                if (failure) {
+                    windowFailures++;
+                }
+                if (windowCalls >= minimumCalls && windowFailures * 100 >= failureRateThreshold * windowCalls) {
+                    transition(State.OPEN, now);
+                }
+                break;
+            default:
+                break;
+            }
+        }
+
+        private void transition(State target, long now) {
+            if (state != target) {
+                LOGGER.warn("Database circuit breaker of shard " + shard + " " + state + " -> " + target);
+            }
+            if (target == State.OPEN) {
+                opened.increment();
+            }
+            state = target;
+            stateChangedAt = now;
+            probesStarted = 0;
+            probesSucceeded = 0;
+            windowIndex = 0;
+            windowCalls = 0;
+            windowFailures = 0;
+        }
+
+        synchronized CircuitBreakerStatistics getStatistics() {
+            int failureRate = windowCalls == 0 ? 0 : windowFailures * 100 / windowCalls;
+            return new CircuitBreakerStatistics(shard, state.name(), windowCalls, windowFailures, failureRate,
+                    rejected.sum(), opened.sum());
+        }
+    }
+}
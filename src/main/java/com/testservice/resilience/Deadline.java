@@ -0,0 +1,24 @@
+package com.testservice.resilience;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Overrides the default deadline of requests handled by a resource method.
+ * 
+ * @author taras
+ *
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Deadline {
+
+    /**
+     * @return time in milliseconds the request may take unless the client asks for less
+     */
+    long millis();
+}
@@ -0,0 +1,57 @@
+package com.testservice.resilience;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * RequestDeadline holds the deadline of the request processed by the current thread. Database calls use the time
+ * left to bound connection acquisition and statement execution.
+ * 
+ * @author taras
+ *
+ */
+@Component
+public class RequestDeadline {
+
+    private final ThreadLocal<Long> deadline = new ThreadLocal<>();
+
+    /**
+     * Binds a deadline to the current thread.
+     * 
+     * @param timeoutMillis time in milliseconds from now
+     */
+    public void start(long timeoutMillis) {
+        deadline.set(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis));
+    }
+
+    /**
+     * Unbinds the deadline from the current thread.
+     */
+    public void clear() {
+        deadline.remove();
+    }
+
+    /**
+     * Checks whether the current thread has a deadline.
+     * 
+     * @return true if a deadline is bound to the current thread
+     */
+    public boolean isSet() {
+        return deadline.get() != null;
+    }
+
+    /**
+     * Returns time left till the deadline.
+     * 
+     * @return milliseconds left, zero or negative if the deadline has passed, {@link Long#MAX_VALUE} if there is no
+     *         deadline
+     */
+    public long remainingMillis() {
+        Long nanos = deadline.get();
+        if (nanos == null) {
+            return Long.MAX_VALUE;
+        }
+        return TimeUnit.NANOSECONDS.toMillis(nanos - System.nanoTime());
+    }
+}
@@ -0,0 +1,190 @@
+package com.testservice.resource;
+
+import java.util.List;
+
+import javax.annotation.security.RolesAllowed;
+import javax.ws.rs.DELETE;
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.GenericEntity;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.testservice.domain.CircuitBreakerStatistics;
+import com.testservice.domain.CoalescingStatistics;
+import com.testservice.domain.ConcurrencyLimitStatistics;
+import com.testservice.domain.EndpointProfileStatistics;
+import com.testservice.domain.ReplicaStatistics;
+import com.testservice.domain.SqlStatementStatistics;
+import com.testservice.limit.ConcurrencyLimiter;
+import com.testservice.metrics.RequestProfiler;
+import com.testservice.metrics.SqlMetrics;
+import com.testservice.replica.ColumnarReplica;
+import com.testservice.resilience.CircuitBreaker;
+import com.testservice.service.RequestCoalescer;
+
+/**
+ * AdminResource handles requests, which URL starts with '/admin'. Exposes runtime statistics of the service.
+ * 
+ * @author taras
+ *
+ */
+@Path("/admin")
+@RolesAllowed("admin")
+@Component
+public class AdminResource extends GeneralResource {
+
+    @Autowired
+    private RequestCoalescer coalescer;
+
+    @Autowired
+    private SqlMetrics sqlMetrics;
+
+    @Autowired
+    private RequestProfiler requestProfiler;
+
+    @Autowired
+    private ColumnarReplica replica;
+
+    @Autowired
+    private ConcurrencyLimiter concurrencyLimiter;
+
+    @Autowired
+    private CircuitBreaker circuitBreaker;
+
+    /**
+     * Retrieves number of calls and collapsed calls of coalesced read operations.
+     * 
+     * @return {@link Response} entity with CoalescingStatistics List
+     */
+    @GET
+    @Path("/coalescing")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getCoalescingStatistics() {
+        List<CoalescingStatistics> statistics = coalescer.getStatistics();
+        GenericEntity<List<CoalescingStatistics>> entity =
+                new GenericEntity<List<CoalescingStatistics>>(statistics) { };
+        return ok(entity);
+    }
+
+    /**
+     * Retrieves execution statistics per normalized SQL statement.
+     * 
+     * @return {@link Response} entity with SqlStatementStatistics List
+     */
+    @GET
+    @Path("/sql")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getSqlStatistics() {
+        List<SqlStatementStatistics> statistics = sqlMetrics.getStatistics();
+        GenericEntity<List<SqlStatementStatistics>> entity =
+                new GenericEntity<List<SqlStatementStatistics>>(statistics) { };
+        return ok(entity);
+    }
+
+    /**
+     * Retrieves average authentication, service, database and entity writing time, CPU time and allocated bytes of
+     * profiled requests per resource method.
+     * 
+     * @return {@link Response} entity with EndpointProfileStatistics List
+     */
+    @GET
+    @Path("/profiles")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getProfiles() {
+        List<EndpointProfileStatistics> statistics = requestProfiler.getStatistics();
+        GenericEntity<List<EndpointProfileStatistics>> entity =
+                new GenericEntity<List<EndpointProfileStatistics>>(statistics) { };
+        return ok(entity);
+    }
+
+    /**
+     * Retrieves rows and estimated memory footprint of the columnar replica tables compared with Lists of entities.
+     * 
+     * @return {@link Response} entity with ReplicaStatistics List
+     */
+    @GET
+    @Path("/replica")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getReplicaStatistics() {
+        List<ReplicaStatistics> statistics = replica.getStatistics();
+        GenericEntity<List<ReplicaStatistics>> entity = new GenericEntity<List<ReplicaStatistics>>(statistics) { };
+        return ok(entity);
+    }
+
+    /**
+     * Rebuilds the columnar replica from the database.
+     * 
+     * @return {@link Response} entity with ReplicaStatistics List after the rebuild, HTTP_STATUS 409 if the replica is
+     *         disabled
+     */
+    @POST
+    @Path("/replica")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response rebuildReplica() {
+        if (!replica.isEnabled()) {
+            return conflict();
+        }
+        replica.rebuild();
+        return getReplicaStatistics();
+    }
+
+    /**
+     * Retrieves adaptive concurrency limits, requests in flight and rejected requests per principal.
+     * 
+     * @return {@link Response} entity with ConcurrencyLimitStatistics List
+     */
+    @GET
+    @Path("/limits")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getConcurrencyLimits() {
+        List<ConcurrencyLimitStatistics> statistics = concurrencyLimiter.getStatistics();
+        GenericEntity<List<ConcurrencyLimitStatistics>> entity =
+                new GenericEntity<List<ConcurrencyLimitStatistics>>(statistics) { };
+        return ok(entity);
+    }
+
+    /**
+     * Retrieves state and failure rate of the database circuit breaker of every shard.
+     * 
+     * @return {@link Response} entity with list of CircuitBreakerStatistics
+     */
+    @GET
+    @Path("/breaker")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getCircuitBreaker() {
+        List<CircuitBreakerStatistics> statistics = circuitBreaker.getStatistics();
+        GenericEntity<List<CircuitBreakerStatistics>> entity =
+                new GenericEntity<List<CircuitBreakerStatistics>>(statistics) { };
+        return ok(entity);
+    }
+
+    /**
+     * Drops execution statistics of SQL statements.
+     * 
+     * @return if success returns HTTP_STATUS 204
+     */
+    @DELETE
+    @Path("/sql")
+    public Response resetSqlStatistics() {
+        sqlMetrics.reset();
+        return NO_CONTENT;
+    }
+
+    /**
+     * Drops statistics of profiled requests.
+     * 
+     * @return if success returns HTTP_STATUS 204
+     */
+    @DELETE
+    @Path("/profiles")
+    public Response resetProfiles() {
+        requestProfiler.reset();
+        return NO_CONTENT;
+    }
+}
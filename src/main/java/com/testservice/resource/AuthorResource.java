@@ -5,22 +5,35 @@ import java.util.List;
 import javax.annotation.security.RolesAllowed;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.GenericEntity;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
+import org.glassfish.jersey.media.sse.EventOutput;
+import org.glassfish.jersey.media.sse.SseFeature;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import com.testservice.domain.Author;
+import com.testservice.domain.AuthorStatistics;
+import com.testservice.event.ChangeFeeds;
 import com.testservice.domain.Book;
+import com.testservice.membership.EntityMembership;
+import com.testservice.provider.BinaryMediaType;
+import com.testservice.resilience.Deadline;
 import com.testservice.service.AuthorService;
 import com.testservice.service.BookService;
+import com.testservice.search.EntitySearch;
+import com.testservice.stats.EntityStatistics;
 
 /**
  * AuthorResource handles requests, which URL starts with '/authors'.
@@ -36,6 +49,21 @@ public class AuthorResource extends GeneralResource {
     @Autowired
     private AuthorService authorService;
 
+    @Autowired
+    private ChangeFeeds changeFeeds;
+
+    @Autowired
+    private EntityStatistics statistics;
+
+    @Autowired
+    private EntitySearch search;
+
+    @Autowired
+    private EntityMembership membership;
+
+    @Value("${search.maxResults:100}")
+    private int maxSearchResults;
+
     @Autowired
     private BookService bookService;
 
@@ -45,13 +73,74 @@ public class AuthorResource extends GeneralResource {
      * @return {@link Response} entity with Authors List
      */
     @GET
-    @Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+    @Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, BinaryMediaType.APPLICATION_SMILE,
+            BinaryMediaType.APPLICATION_CBOR })
+    @Deadline(millis = 10000)
     public Response getAuthors() {
         List<Author> authors = authorService.loadAll();
         GenericEntity<List<Author>> entity = new GenericEntity<List<Author>>(authors) { };
         return ok(entity);
     }
 
+    /**
+     * Finds authors whose first or last name contains the query, case insensitive. Queries shorter than three
+     * characters match beginnings of words. Results are ranked by the position of the match and found in an in-memory
+     * index without reading authors from the database.
+     * 
+     * @param query text to search
+     * @param limit maximum number of results, at most 'search.maxResults'
+     * @return {@link Response} entity with Authors List, HTTP_STATUS 400 if the query is empty or HTTP_STATUS 503 if
+     *         the index is not built yet
+     */
+    @GET
+    @Path("/search")
+    @Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, BinaryMediaType.APPLICATION_SMILE,
+            BinaryMediaType.APPLICATION_CBOR })
+    public Response searchAuthors(@QueryParam("q") String query, @QueryParam("limit") @DefaultValue("10") int limit) {
+        if (query == null || query.trim().isEmpty()) {
+            return badRequest();
+        }
+        List<Author> authors = search.searchAuthors(query, Math.min(limit, maxSearchResults));
+        if (authors == null) {
+            return serviceUnavailable();
+        }
+        GenericEntity<List<Author>> entity = new GenericEntity<List<Author>>(authors) { };
+        return ok(entity);
+    }
+
+    /**
+     * Retrieves number of authors, total and average age and salary. Statistics are kept in memory and do not read
+     * authors from the database.
+     * 
+     * @return {@link Response} entity with AuthorStatistics or HTTP_STATUS 503 if statistics are not loaded yet
+     */
+    @GET
+    @Path("/stats")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getAuthorStatistics() {
+        AuthorStatistics authorStatistics = statistics.getAuthorStatistics();
+        if (authorStatistics == null) {
+            return serviceUnavailable();
+        }
+        return ok(authorStatistics);
+    }
+
+    /**
+     * Streams changes of authors as Server-Sent Events. Every event has the change type as its name ('create',
+     * 'update', 'delete' or 'delete_all') and {@link com.testservice.domain.ChangeEvent} as JSON data. A 'reset' event
+     * means that changes were missed and authors should be reloaded.
+     * 
+     * @param lastEventId identifier of the last received event to resume from, sent by clients on reconnect
+     * @return event stream
+     */
+    @GET
+    @Path("/changes")
+    @Produces(SseFeature.SERVER_SENT_EVENTS)
+    public EventOutput getAuthorChanges(
+            @HeaderParam(SseFeature.LAST_EVENT_ID_HEADER) @DefaultValue("-1") long lastEventId) {
+        return changeFeeds.subscribe(Author.class, lastEventId);
+    }
+
     /**
      * Handles saving new author.
      * 
@@ -59,7 +148,10 @@ public class AuthorResource extends GeneralResource {
      * @return {@link Response} entity with saved {@link Author} instance
      */
     @POST
-    @Consumes({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+    @Consumes({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, BinaryMediaType.APPLICATION_SMILE,
+            BinaryMediaType.APPLICATION_CBOR })
+    @Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, BinaryMediaType.APPLICATION_SMILE,
+            BinaryMediaType.APPLICATION_CBOR })
     public Response saveAuthor(Author author) {
         author = authorService.save(author);
         if (logging) {
@@ -83,21 +175,22 @@ public class AuthorResource extends GeneralResource {
      * Retrieves {@link Author} instance with the identifier.
      * 
      * @param id identifier of {@link Author} instance should be retrieved
-     * @return {@link Response} entity with requested Author instance
+     * @return {@link Response} entity with requested Author instance, HTTP_STATUS 404 without a database query if the
+     *         identifier is certainly unknown
      */
     @GET
     @Path("/{id}")
-    @Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+    @Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, BinaryMediaType.APPLICATION_SMILE,
+            BinaryMediaType.APPLICATION_CBOR })
     public Response getAuthor(@PathParam("id") int id) {
-        Author author = null;
-        try {
-            author = authorService.load(id);
-        } catch (Exception e) {
-            e.printStackTrace();
+        if (!membership.mightContainAuthor(id)) {
+            return NOT_FOUND;
         }
+        Author author = authorService.load(id);
         if (author == null) {
             return NOT_FOUND;
         }
+        membership.foundAuthor(id);
         return ok(author);
     }
 
@@ -110,8 +203,10 @@ public class AuthorResource extends GeneralResource {
      */
     @POST
     @Path("/{id}")
-    @Consumes({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
-    @Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+    @Consumes({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, BinaryMediaType.APPLICATION_SMILE,
+            BinaryMediaType.APPLICATION_CBOR })
+    @Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, BinaryMediaType.APPLICATION_SMILE,
+            BinaryMediaType.APPLICATION_CBOR })
     public Response updateAuthor(Author author, @PathParam("id") int id) {
         author.setId(id);
         authorService.update(author);
@@ -142,7 +237,8 @@ public class AuthorResource extends GeneralResource {
      */
     @GET
     @Path("/{id}/books")
-    @Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+    @Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, BinaryMediaType.APPLICATION_SMILE,
+            BinaryMediaType.APPLICATION_CBOR })
     public Response getBooksByAuthor(@PathParam("id") int id) {
         List<Book> books = bookService.getBooksByAuthor(id);
         GenericEntity<List<Book>> entity = new GenericEntity<List<Book>>(books) { };
@@ -5,21 +5,34 @@ import java.util.List;
 import javax.annotation.security.RolesAllowed;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.GenericEntity;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
+import org.glassfish.jersey.media.sse.EventOutput;
+import org.glassfish.jersey.media.sse.SseFeature;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.dao.DataAccessException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Component;
 
 import com.testservice.domain.Book;
+import com.testservice.domain.BookStatistics;
+import com.testservice.event.ChangeFeeds;
+import com.testservice.membership.EntityMembership;
+import com.testservice.provider.BinaryMediaType;
+import com.testservice.resilience.Deadline;
 import com.testservice.service.BookService;
+import com.testservice.search.EntitySearch;
+import com.testservice.stats.EntityStatistics;
 
 /**
  * BookResource handles requests, which URL starts with '/books'.
@@ -35,19 +48,95 @@ public class BookResource extends GeneralResource {
     @Autowired
     private BookService bookService;
 
+    @Autowired
+    private ChangeFeeds changeFeeds;
+
+    @Autowired
+    private EntityStatistics statistics;
+
+    @Autowired
+    private EntitySearch search;
+
+    @Autowired
+    private EntityMembership membership;
+
+    @Value("${search.maxResults:100}")
+    private int maxSearchResults;
+
     /**
      * Retrieves all books.
      * 
      * @return {@link Response} entity with Books List
      */
     @GET
-    @Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+    @Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, BinaryMediaType.APPLICATION_SMILE,
+            BinaryMediaType.APPLICATION_CBOR })
+    @Deadline(millis = 10000)
     public Response getBooks() {
         List<Book> books = bookService.loadAll();
         GenericEntity<List<Book>> entity = new GenericEntity<List<Book>>(books) {};
         return ok(entity);
     }
 
+    /**
+     * Finds books whose name contains the query, case insensitive. Queries shorter than three characters match
+     * beginnings of words. Results are ranked by the position of the match and found in an in-memory index without
+     * reading books from the database.
+     * 
+     * @param query text to search
+     * @param limit maximum number of results, at most 'search.maxResults'
+     * @return {@link Response} entity with Books List, HTTP_STATUS 400 if the query is empty or HTTP_STATUS 503 if
+     *         the index is not built yet
+     */
+    @GET
+    @Path("/search")
+    @Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, BinaryMediaType.APPLICATION_SMILE,
+            BinaryMediaType.APPLICATION_CBOR })
+    public Response searchBooks(@QueryParam("q") String query, @QueryParam("limit") @DefaultValue("10") int limit) {
+        if (query == null || query.trim().isEmpty()) {
+            return badRequest();
+        }
+        List<Book> books = search.searchBooks(query, Math.min(limit, maxSearchResults));
+        if (books == null) {
+            return serviceUnavailable();
+        }
+        GenericEntity<List<Book>> entity = new GenericEntity<List<Book>>(books) { };
+        return ok(entity);
+    }
+
+    /**
+     * Retrieves number of books, number of books per author identifier and per year. Statistics are kept in memory and
+     * do not read books from the database.
+     * 
+     * @return {@link Response} entity with BookStatistics or HTTP_STATUS 503 if statistics are not loaded yet
+     */
+    @GET
+    @Path("/stats")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getBookStatistics() {
+        BookStatistics bookStatistics = statistics.getBookStatistics();
+        if (bookStatistics == null) {
+            return serviceUnavailable();
+        }
+        return ok(bookStatistics);
+    }
+
+    /**
+     * Streams changes of books as Server-Sent Events. Every event has the change type as its name ('create', 'update',
+     * 'delete' or 'delete_all') and {@link com.testservice.domain.ChangeEvent} as JSON data. A 'reset' event means
+     * that changes were missed and books should be reloaded.
+     * 
+     * @param lastEventId identifier of the last received event to resume from, sent by clients on reconnect
+     * @return event stream
+     */
+    @GET
+    @Path("/changes")
+    @Produces(SseFeature.SERVER_SENT_EVENTS)
+    public EventOutput getBookChanges(
+            @HeaderParam(SseFeature.LAST_EVENT_ID_HEADER) @DefaultValue("-1") long lastEventId) {
+        return changeFeeds.subscribe(Book.class, lastEventId);
+    }
+
     /**
      * Handles saving new book.
      * 
@@ -55,7 +144,10 @@ public class BookResource extends GeneralResource {
      * @return {@link Response} entity with saved {@link Book} instance
      */
     @POST
-    @Consumes({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+    @Consumes({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, BinaryMediaType.APPLICATION_SMILE,
+            BinaryMediaType.APPLICATION_CBOR })
+    @Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, BinaryMediaType.APPLICATION_SMILE,
+            BinaryMediaType.APPLICATION_CBOR })
     public Response saveBook(Book book) {
         book = bookService.save(book);
         if (logging) {
@@ -79,21 +171,22 @@ public class BookResource extends GeneralResource {
      * Retrieves {@link Book} instance with the identifier.
      * 
      * @param id identifier of {@link Book} instance should be retrieved
-     * @return {@link Response} entity with requested Book instance
+     * @return {@link Response} entity with requested Book instance, HTTP_STATUS 404 without a database query if the
+     *         identifier is certainly unknown
      */
     @GET
     @Path("/{id}")
-    @Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+    @Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, BinaryMediaType.APPLICATION_SMILE,
+            BinaryMediaType.APPLICATION_CBOR })
     public Response getBook(@PathParam("id") int id) {
-        Book book = null;
-        try {
-            book = bookService.load(id);
-        } catch (DataAccessException e) {
-            e.printStackTrace();
+        if (!membership.mightContainBook(id)) {
+            return NOT_FOUND;
         }
+        Book book = bookService.load(id);
         if (book == null) {
             return NOT_FOUND;
         }
+        membership.foundBook(id);
         return ok(book);
     }
 
@@ -102,14 +195,19 @@ public class BookResource extends GeneralResource {
      * 
      * @param book {@link Book} instance should be updated
      * @param id identifier of {@link Book} instance should be retrieved
-     * @return if success returns HTTP_STATUS 204.
+     * @return if success returns HTTP_STATUS 204, HTTP_STATUS 409 if the book is moved to an author on another shard.
      */
     @POST
     @Path("/{id}")
-    @Consumes({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+    @Consumes({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, BinaryMediaType.APPLICATION_SMILE,
+            BinaryMediaType.APPLICATION_CBOR })
     public Response updateBook(Book book, @PathParam("id") int id) {
         book.setId(id);
-        bookService.update(book);
+        try {
+            bookService.update(book);
+        } catch (DataIntegrityViolationException e) {
+            return conflict();
+        }
         if (logging) {
             bookService.saveLogs(book);
         }
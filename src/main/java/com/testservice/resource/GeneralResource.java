@@ -4,6 +4,7 @@ import java.util.concurrent.TimeUnit;
 
 import javax.annotation.PostConstruct;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.Response;
 
 import org.springframework.web.context.support.SpringBeanAutowiringSupport;
@@ -47,4 +48,20 @@ public abstract class GeneralResource {
     protected Response ok(Object entity) {
         return Response.ok().entity(entity).build();
     }
+
+    protected Response badRequest() {
+        return Response.status(Response.Status.BAD_REQUEST).build();
+    }
+
+    protected Response forbidden() {
+        return Response.status(Response.Status.FORBIDDEN).build();
+    }
+
+    protected Response conflict() {
+        return Response.status(Response.Status.CONFLICT).build();
+    }
+
+    protected Response serviceUnavailable() {
+        return Response.status(Response.Status.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, 1).build();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,54 @@
+package com.testservice.resource;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.testservice.warmup.WarmUp;
+
+/**
+ * HealthResource handles requests, which URL starts with '/health'. Requests do not require authentication, they are
+ * used by load balancers and orchestrators.
+ * 
+ * @author taras
+ *
+ */
+@Path("/health")
+@Component
+public class HealthResource extends GeneralResource {
+
+    @Autowired
+    private WarmUp warmUp;
+
+    /**
+     * Checks that the service is running.
+     * 
+     * @return HTTP_STATUS 200
+     */
+    @GET
+    @Path("/live")
+    @Produces(MediaType.TEXT_PLAIN)
+    public Response getLiveness() {
+        return ok("UP");
+    }
+
+    /**
+     * Checks that the service is ready for traffic: the schema is migrated and the warm-up has finished.
+     * 
+     * @return {@link Response} entity with WarmUpStatistics or HTTP_STATUS 503 if the service is not ready yet
+     */
+    @GET
+    @Path("/ready")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getReadiness() {
+        if (!warmUp.isReady()) {
+            return serviceUnavailable();
+        }
+        return ok(warmUp.getStatistics());
+    }
+}
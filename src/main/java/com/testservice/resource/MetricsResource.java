@@ -0,0 +1,60 @@
+package com.testservice.resource;
+
+import javax.annotation.security.RolesAllowed;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Response;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.testservice.limit.ConcurrencyLimiter;
+import com.testservice.metrics.MetricsRegistry;
+import com.testservice.metrics.PrometheusWriter;
+import com.testservice.resilience.CircuitBreaker;
+import com.testservice.service.RequestCoalescer;
+
+/**
+ * MetricsResource handles requests, which URL starts with '/metrics'.
+ * 
+ * @author taras
+ *
+ */
+@Path("/metrics")
+@RolesAllowed("admin")
+@Component
+public class MetricsResource extends GeneralResource {
+
+    private static final String PROMETHEUS_TEXT = "text/plain; version=0.0.4";
+
+    @Autowired
+    private MetricsRegistry metricsRegistry;
+
+    @Autowired
+    private RequestCoalescer coalescer;
+
+    @Autowired
+    private ConcurrencyLimiter concurrencyLimiter;
+
+    @Autowired
+    private CircuitBreaker circuitBreaker;
+
+    /**
+     * Retrieves request, service call, coalescing, concurrency limit and circuit breaker metrics in Prometheus text
+     * format.
+     * 
+     * @return {@link Response} entity with metrics
+     */
+    @GET
+    @Produces(PROMETHEUS_TEXT)
+    public Response getMetrics() {
+        String metrics = new PrometheusWriter().writeEndpoints(metricsRegistry.getEndpoints())
+                                               .writeServiceCalls(metricsRegistry.getServiceCalls())
+                                               .writeCoalescing(coalescer.getStatistics())
+                                               .writeConcurrencyLimits(concurrencyLimiter.getStatistics())
+                                               .writeCircuitBreakers(circuitBreaker.getStatistics())
+                                               .toString();
+        return ok(metrics);
+    }
+}
@@ -0,0 +1,50 @@
+package com.testservice.resource;
+
+import javax.annotation.security.RolesAllowed;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.SecurityContext;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.testservice.domain.User;
+import com.testservice.service.AccessTokenService;
+
+/**
+ * TokenResource handles requests, which URL starts with '/tokens'.
+ * 
+ * @author taras
+ *
+ */
+@Path("/tokens")
+@RolesAllowed({ "user", "admin" })
+@Component
+public class TokenResource extends GeneralResource {
+
+    @Autowired
+    private AccessTokenService accessTokenService;
+
+    /**
+     * Issues a signed access token for the user authenticated with Basic access authentication. The token is sent in
+     * 'Authorization: Bearer ...' header of following requests. A token does not issue new tokens, otherwise a leaked
+     * token could be renewed forever.
+     * 
+     * @param securityContext security context with the authenticated user
+     * @return {@link Response} entity with AccessToken, HTTP_STATUS 403 if the user is not authenticated with Basic
+     *         access authentication
+     */
+    @POST
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response issueToken(@Context SecurityContext securityContext) {
+        if (!SecurityContext.BASIC_AUTH.equals(securityContext.getAuthenticationScheme())) {
+            return forbidden();
+        }
+        User user = (User) securityContext.getUserPrincipal();
+        return ok(accessTokenService.issue(user));
+    }
+}
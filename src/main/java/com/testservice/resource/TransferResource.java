@@ -0,0 +1,77 @@
+package com.testservice.resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.annotation.security.RolesAllowed;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.testservice.domain.ImportStatistics;
+import com.testservice.transfer.DataTransfer;
+
+/**
+ * TransferResource handles requests to '/export' and '/import', which move authors, books and change logs in bulk as
+ * newline-delimited JSON.
+ * 
+ * @author taras
+ *
+ */
+@Path("/")
+@RolesAllowed("admin")
+@Component
+public class TransferResource extends GeneralResource {
+
+    private static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    @Autowired
+    private DataTransfer dataTransfer;
+
+    /**
+     * Streams all authors and books, one row per line.
+     * 
+     * @param logs whether AuthorLogs and BookLogs rows should be exported too
+     * @return {@link Response} entity with the rows
+     */
+    @GET
+    @Path("/export")
+    @Produces(APPLICATION_NDJSON)
+    public Response exportRows(@QueryParam("logs") boolean logs) {
+        StreamingOutput rows = out -> dataTransfer.export(out, logs);
+        return ok(rows);
+    }
+
+    /**
+     * Imports rows in the format of '/export', identifiers of rows are preserved.
+     * 
+     * @param in rows, one per line
+     * @return {@link Response} entity with ImportStatistics, HTTP_STATUS 400 with ImportStatistics of committed rows if
+     *         the input is malformed or rejected by the database or HTTP_STATUS 409 if another import is running
+     * @throws IOException if the request cannot be read
+     */
+    @POST
+    @Path("/import")
+    @Consumes(APPLICATION_NDJSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response importRows(InputStream in) throws IOException {
+        ImportStatistics statistics = dataTransfer.importRows(in);
+        if (statistics == null) {
+            return Response.status(Response.Status.CONFLICT).entity("Import is already running.")
+                           .type(MediaType.TEXT_PLAIN).build();
+        }
+        if (statistics.getError() != null) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(statistics).build();
+        }
+        return ok(statistics);
+    }
+}
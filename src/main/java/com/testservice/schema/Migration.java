@@ -0,0 +1,82 @@
+package com.testservice.schema;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+import org.apache.commons.io.IOUtils;
+import org.springframework.core.io.Resource;
+
+/**
+ * The Migration class represents one versioned SQL script named 'V&lt;version&gt;__&lt;description&gt;.sql'.
+ * 
+ * @author taras
+ *
+ */
+public class Migration implements Comparable<Migration> {
+
+    private static final Pattern NAME_PATTERN = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+
+    private final int version;
+    private final String description;
+    private final long checksum;
+    private final Resource script;
+
+    private Migration(int version, String description, long checksum, Resource script) {
+        this.version = version;
+        this.description = description;
+        this.checksum = checksum;
+        this.script = script;
+    }
+
+    /**
+     * Creates migration from the script resource.
+     * 
+     * @param script SQL script named 'V&lt;version&gt;__&lt;description&gt;.sql'
+     * @return Migration instance
+     * @throws IOException if the script cannot be read
+     */
+    public static Migration of(Resource script) throws IOException {
+        Matcher matcher = NAME_PATTERN.matcher(script.getFilename());
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Illegal migration name: " + script.getFilename());
+        }
+        String content;
+        try (InputStream is = script.getInputStream()) {
+            content = IOUtils.toString(is, StandardCharsets.UTF_8).replace("\r\n", "\n");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(content.getBytes(StandardCharsets.UTF_8));
+        return new Migration(Integer.parseInt(matcher.group(1)), matcher.group(2).replace('_', ' '), crc.getValue(),
+                script);
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public long getChecksum() {
+        return checksum;
+    }
+
+    public Resource getScript() {
+        return script;
+    }
+
+    @Override
+    public int compareTo(Migration other) {
+        return Integer.compare(version, other.version);
+    }
+
+    @Override
+    public String toString() {
+        return "V" + version + " " + description;
+    }
+}
@@ -0,0 +1,245 @@
+package com.testservice.schema;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+
+import org.apache.commons.dbcp.BasicDataSource;
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.stereotype.Component;
+
+import com.testservice.datasource.ReadWriteRoutingDataSource;
+import com.testservice.datasource.ShardRouting;
+import com.testservice.datasource.ShardedDataSource;
+
+/**
+ * SchemaMigrator creates and evolves the database schema at context startup. Applies versioned scripts from
+ * 'db/migration' which are not recorded in {@code SchemaVersion} table yet, verifies checksums of already applied
+ * scripts and holds a lock row in {@code SchemaLock} table, so only one node migrates the schema at a time. Every
+ * shard is migrated in turn, auto-increment counters of additional shards start at their identifier ranges.
+ * 
+ * @author taras
+ *
+ */
+@Component
+public class SchemaMigrator {
+
+    private static final Logger LOGGER = Logger.getLogger(SchemaMigrator.class);
+
+    private static final String LOCATION = "classpath*:db/migration/V*__*.sql";
+    private static final int LOCK_ID = 1;
+    private static final List<String> SHARDED_TABLES = Arrays.asList("Author", "Book");
+
+    private static final String CREATE_VERSION_TABLE = "create table if not exists SchemaVersion ("
+            + "version int not null, description varchar(200), checksum bigint not null, "
+            + "installedOn timestamp not null, executionTime int not null, primary key (version))";
+    private static final String CREATE_LOCK_TABLE = "create table if not exists SchemaLock ("
+            + "id int not null, lockedBy varchar(200) not null, lockedAt timestamp not null, primary key (id))";
+
+    @Autowired
+    private ShardedDataSource shardedDataSource;
+
+    @Autowired
+    private ShardRouting shardRouting;
+
+    @Value("${schema.migration.enabled:true}")
+    private boolean enabled;
+
+    @Value("${schema.migration.lockWaitSeconds:60}")
+    private int lockWaitSeconds;
+
+    @Value("${schema.migration.staleLockSeconds:600}")
+    private int staleLockSeconds;
+
+    @Value("${schema.migration.async:false}")
+    private boolean async;
+
+    private final CompletableFuture<Void> completion = new CompletableFuture<>();
+
+    /**
+     * Migrates the schema at context startup. With 'schema.migration.async' enabled the migration runs in background
+     * in parallel with the rest of the startup, callers should {@link #awaitCompletion()} before using the database.
+     */
+    @PostConstruct
+    public void init() {
+        if (!async) {
+            run();
+            awaitCompletion();
+            return;
+        }
+        Thread thread = new Thread(this::run, "schema-migrator");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Waits until the schema is migrated.
+     * 
+     * @throws IllegalStateException if the migration has failed
+     */
+    public void awaitCompletion() {
+        try {
+            completion.join();
+        } catch (CompletionException e) {
+            throw new IllegalStateException("Schema migration has failed", e.getCause());
+        }
+    }
+
+    private void run() {
+        try {
+            migrate();
+            completion.complete(null);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.error("Unable to migrate schema", e);
+            completion.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Applies pending migrations to the primary database of every shard.
+     * 
+     * @throws IOException if migration scripts cannot be read
+     * @throws IllegalStateException if an applied migration has been changed or the lock cannot be acquired
+     */
+    public void migrate() throws IOException {
+        if (!enabled) {
+            LOGGER.info("schema migration is disabled");
+            return;
+        }
+        List<Migration> migrations = findMigrations();
+        List<ReadWriteRoutingDataSource> shards = shardedDataSource.getShards();
+        for (int shard = 0; shard < shards.size(); shard++) {
+            migrate(shards.get(shard).getPrimary(), shard, migrations);
+        }
+    }
+
+    private void migrate(BasicDataSource dataSource, int shard, List<Migration> migrations) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute(CREATE_VERSION_TABLE);
+        jdbcTemplate.execute(CREATE_LOCK_TABLE);
+
+        acquireLock(jdbcTemplate);
+        try {
+            Map<Integer, Long> applied = loadAppliedChecksums(jdbcTemplate);
+            for (Migration migration : migrations) {
+                Long checksum = applied.get(migration.getVersion());
+                if (checksum == null) {
+                    apply(dataSource, jdbcTemplate, migration);
+                } else if (checksum != migration.getChecksum()) {
+                    throw new IllegalStateException("Checksum mismatch of applied migration " + migration
+                            + ": expected " + checksum + ", found " + migration.getChecksum());
+                }
+            }
+            startIdentities(jdbcTemplate, shard);
+        } finally {
+            releaseLock(jdbcTemplate);
+        }
+    }
+
+    /**
+     * Moves auto-increment counters of sharded tables to the identifier range of the shard, unless the shard already
+     * has rows in its range.
+     */
+    private void startIdentities(JdbcTemplate jdbcTemplate, int shard) {
+        if (shard == 0) {
+            return;
+        }
+        int firstId = shardRouting.firstId(shard);
+        for (String table : SHARDED_TABLES) {
+            Integer maxId = jdbcTemplate.queryForObject("select max(id) from " + table, Integer.class);
+            if (maxId == null || maxId < firstId) {
+                jdbcTemplate.execute("alter table " + table + " auto_increment = " + firstId);
+                LOGGER.info("identifiers of " + table + " on shard " + shard + " start at " + firstId);
+            }
+        }
+    }
+
+    private List<Migration> findMigrations() throws IOException {
+        List<Migration> migrations = new ArrayList<>();
+        for (Resource resource : new PathMatchingResourcePatternResolver().getResources(LOCATION)) {
+            migrations.add(Migration.of(resource));
+        }
+        Collections.sort(migrations);
+        for (int i = 1; i < migrations.size(); i++) {
+            if (migrations.get(i).getVersion() == migrations.get(i - 1).getVersion()) {
+                throw new IllegalStateException("Duplicate migration version " + migrations.get(i));
+            }
+        }
+        return migrations;
+    }
+
+    private Map<Integer, Long> loadAppliedChecksums(JdbcTemplate jdbcTemplate) {
+        Map<Integer, Long> applied = new TreeMap<>();
+        jdbcTemplate.query("select version, checksum from SchemaVersion",
+                rs -> { applied.put(rs.getInt("version"), rs.getLong("checksum")); });
+        return applied;
+    }
+
+    private void apply(BasicDataSource dataSource, JdbcTemplate jdbcTemplate, Migration migration) {
+        LOGGER.info("applying migration " + migration);
+        long start = System.nanoTime();
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            ScriptUtils.executeSqlScript(connection, migration.getScript());
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+        long executionTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        jdbcTemplate.update("insert into SchemaVersion (version, description, checksum, installedOn, executionTime) "
+                + "values (?, ?, ?, ?, ?)", migration.getVersion(), migration.getDescription(),
+                migration.getChecksum(), new Timestamp(System.currentTimeMillis()), executionTime);
+        LOGGER.info("applied migration " + migration + " in " + executionTime + " ms");
+    }
+
+    private void acquireLock(JdbcTemplate jdbcTemplate) {
+        String owner = ManagementFactory.getRuntimeMXBean().getName();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(lockWaitSeconds);
+        while (true) {
+            try {
+                jdbcTemplate.update("insert into SchemaLock (id, lockedBy, lockedAt) values (?, ?, ?)", LOCK_ID,
+                        owner, new Timestamp(System.currentTimeMillis()));
+                return;
+            } catch (DataIntegrityViolationException e) {
+                LOGGER.info("schema is locked by another node, waiting");
+            }
+            Timestamp stale = new Timestamp(System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(staleLockSeconds));
+            if (jdbcTemplate.update("delete from SchemaLock where id=? and lockedAt<?", LOCK_ID, stale) > 0) {
+                LOGGER.warn("removed stale schema lock");
+                continue;
+            }
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("Unable to acquire schema lock in " + lockWaitSeconds + " seconds");
+            }
+            try {
+                TimeUnit.SECONDS.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for schema lock", e);
+            }
+        }
+    }
+
+    private void releaseLock(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.update("delete from SchemaLock where id=?", LOCK_ID);
+    }
+}
@@ -0,0 +1,253 @@
+package com.testservice.search;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationListener;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.testservice.datasource.ShardRouting;
+import com.testservice.domain.Author;
+import com.testservice.domain.Book;
+import com.testservice.event.ChangeType;
+import com.testservice.event.EntityChangedEvent;
+import com.testservice.schema.SchemaMigrator;
+
+/**
+ * EntitySearch keeps {@link SearchIndex}es of book names and author names, so searches do not scan the tables.
+ * Indexes are built from the primary database in background at startup, kept in sync by {@link EntityChangedEvent}s
+ * published by the services and periodically rebuilt to pick up changes made by other nodes; changes applied while a
+ * rebuild is running are applied to the index being built too, so the rebuilt index replaces the current one.
+ *
+ * @author taras
+ *
+ */
+@Component
+public class EntitySearch implements ApplicationListener<EntityChangedEvent>, DisposableBean {
+
+    private static final Logger LOGGER = Logger.getLogger(EntitySearch.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SchemaMigrator schemaMigrator;
+
+    @Autowired
+    private ShardRouting shards;
+
+    @Value("${search.rebuildMinutes:30}")
+    private int rebuildMinutes;
+
+    private ScheduledExecutorService rebuilder;
+
+    // guarded by this, indexes synchronize their own content
+    private SearchIndex<Book> books = bookIndex();
+    private SearchIndex<Author> authors = authorIndex();
+    private boolean booksLoaded;
+    private boolean authorsLoaded;
+
+    // indexes being rebuilt, guarded by this: they receive changes made during the rebuild
+    private Rebuild<Book> rebuiltBooks;
+    private Rebuild<Author> rebuiltAuthors;
+
+    @PostConstruct
+    public void init() {
+        rebuilder = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "search-index-rebuilder");
+            thread.setDaemon(true);
+            return thread;
+        });
+        rebuilder.scheduleWithFixedDelay(this::rebuild, 0, rebuildMinutes, TimeUnit.MINUTES);
+    }
+
+    @Override
+    public synchronized void onApplicationEvent(EntityChangedEvent event) {
+        if (event.getEntityType() == Book.class) {
+            apply(books, event);
+            if (rebuiltBooks != null) {
+                rebuiltBooks.apply(event);
+            }
+        } else if (event.getEntityType() == Author.class) {
+            apply(authors, event);
+            if (rebuiltAuthors != null) {
+                rebuiltAuthors.apply(event);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void apply(SearchIndex<T> index, EntityChangedEvent event) {
+        switch (event.getChangeType()) {
+        case CREATE:
+        case UPDATE:
+            index.put(event.getEntityId(), (T) event.getEntity());
+            break;
+        case DELETE:
+            index.remove(event.getEntityId());
+            break;
+        case DELETE_ALL:
+            index.clear();
+            break;
+        default:
+            break;
+        }
+    }
+
+    /**
+     * Finds books by name.
+     *
+     * @param query part of the name
+     * @param limit maximum number of books
+     * @return best matching books or null if the index is not built yet
+     */
+    public List<Book> searchBooks(String query, int limit) {
+        SearchIndex<Book> index;
+        synchronized (this) {
+            if (!booksLoaded) {
+                return null;
+            }
+            index = books;
+        }
+        return index.search(query, limit);
+    }
+
+    /**
+     * Finds authors by first and last name.
+     *
+     * @param query part of the first or last name
+     * @param limit maximum number of authors
+     * @return best matching authors or null if the index is not built yet
+     */
+    public List<Author> searchAuthors(String query, int limit) {
+        SearchIndex<Author> index;
+        synchronized (this) {
+            if (!authorsLoaded) {
+                return null;
+            }
+            index = authors;
+        }
+        return index.search(query, limit);
+    }
+
+    /**
+     * Rebuilds indexes from the database.
+     */
+    public void rebuild() {
+        try {
+            schemaMigrator.awaitCompletion();
+            rebuildBooks();
+            rebuildAuthors();
+        } catch (RuntimeException e) {
+            LOGGER.error("Unable to rebuild search indexes", e);
+        }
+    }
+
+    private void rebuildBooks() {
+        Rebuild<Book> rebuild = new Rebuild<>(bookIndex());
+        synchronized (this) {
+            rebuiltBooks = rebuild;
+        }
+        try {
+            for (int shard = 0; shard < shards.getShardCount(); shard++) {
+                for (Book book : shards.on(shard,
+                        () -> jdbcTemplate.query("select * from Book", new BeanPropertyRowMapper<>(Book.class)))) {
+                    rebuild.load(book.getId(), book);
+                }
+            }
+            synchronized (this) {
+                books = rebuild.index;
+                booksLoaded = true;
+            }
+            LOGGER.info("Book search index is built, books: " + rebuild.index.size());
+        } finally {
+            synchronized (this) {
+                rebuiltBooks = null;
+            }
+        }
+    }
+
+    private void rebuildAuthors() {
+        Rebuild<Author> rebuild = new Rebuild<>(authorIndex());
+        synchronized (this) {
+            rebuiltAuthors = rebuild;
+        }
+        try {
+            for (int shard = 0; shard < shards.getShardCount(); shard++) {
+                for (Author author : shards.on(shard,
+                        () -> jdbcTemplate.query("select * from Author", new BeanPropertyRowMapper<>(Author.class)))) {
+                    rebuild.load(author.getId(), author);
+                }
+            }
+            synchronized (this) {
+                authors = rebuild.index;
+                authorsLoaded = true;
+            }
+            LOGGER.info("Author search index is built, authors: " + rebuild.index.size());
+        } finally {
+            synchronized (this) {
+                rebuiltAuthors = null;
+            }
+        }
+    }
+
+    private static SearchIndex<Book> bookIndex() {
+        return new SearchIndex<>(Book::getName);
+    }
+
+    private static SearchIndex<Author> authorIndex() {
+        return new SearchIndex<>(EntitySearch::fullName);
+    }
+
+    private static String fullName(Author author) {
+        return Objects.toString(author.getFirstName(), "") + " " + Objects.toString(author.getLastName(), "");
+    }
+
+    @Override
+    public void destroy() {
+        rebuilder.shutdownNow();
+    }
+
+    /**
+     * Index being rebuilt from the database. Changes applied during the rebuild win over loaded rows, which may have
+     * been read before the change.
+     */
+    private static final class Rebuild<T> {
+
+        private final SearchIndex<T> index;
+        private final Set<Integer> changed = new HashSet<>();
+        private boolean cleared;
+
+        Rebuild(SearchIndex<T> index) {
+            this.index = index;
+        }
+
+        synchronized void load(int id, T entity) {
+            if (!cleared && !changed.contains(id)) {
+                index.put(id, entity);
+            }
+        }
+
+        synchronized void apply(EntityChangedEvent event) {
+            if (event.getChangeType() == ChangeType.DELETE_ALL) {
+                cleared = true;
+            } else {
+                changed.add(event.getEntityId());
+            }
+            EntitySearch.apply(index, event);
+        }
+    }
+}
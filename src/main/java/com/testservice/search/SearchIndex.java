@@ -0,0 +1,271 @@
+package com.testservice.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * SearchIndex finds entities whose text contains a query. Texts are lower-cased and indexed by trigrams and by words:
+ * queries of three or more characters are matched as substrings, candidates are taken from the shortest trigram
+ * posting list and verified; shorter queries are matched as word prefixes. Results are ranked: exact match, prefix of
+ * the text, prefix of a word, other substring; then shorter texts first. Searches run in parallel, changes are
+ * exclusive.
+ *
+ * @param <T> type of indexed entities
+ *
+ * @author taras
+ *
+ */
+public final class SearchIndex<T> {
+
+    private static final int GRAM = 3;
+
+    private static final int EXACT = 0;
+    private static final int TEXT_PREFIX = 1;
+    private static final int WORD_PREFIX = 2;
+    private static final int SUBSTRING = 3;
+
+    private final Function<T, String> text;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // guarded by lock
+    private final Map<Integer, Document<T>> documents = new HashMap<>();
+    private final Map<String, Set<Integer>> grams = new HashMap<>();
+    private final TreeMap<String, Set<Integer>> words = new TreeMap<>();
+
+    /**
+     * @param text function which returns searchable text of an entity, e.g. name of a book
+     */
+    public SearchIndex(Function<T, String> text) {
+        this.text = text;
+    }
+
+    /**
+     * Adds an entity or replaces the indexed text of an existing one.
+     *
+     * @param id identifier of the entity
+     * @param entity entity returned by searches
+     */
+    public void put(int id, T entity) {
+        Document<T> document = new Document<>(id, entity, normalize(text.apply(entity)));
+        lock.writeLock().lock();
+        try {
+            unindex(documents.put(id, document));
+            for (String gram : grams(document.text)) {
+                grams.computeIfAbsent(gram, key -> new HashSet<>()).add(id);
+            }
+            for (String word : words(document.text)) {
+                words.computeIfAbsent(word, key -> new HashSet<>()).add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes an entity from the index.
+     *
+     * @param id identifier of the entity
+     */
+    public void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            unindex(documents.remove(id));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes all entities from the index.
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            documents.clear();
+            grams.clear();
+            words.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return number of indexed entities
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds best matching entities.
+     *
+     * @param query text to search, case insensitive
+     * @param limit maximum number of results
+     * @return entities ordered by rank, empty if the query is blank
+     */
+    public List<T> search(String query, int limit) {
+        String normalized = normalize(query);
+        if (normalized.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        Comparator<Match<T>> worstFirst = Comparator.<Match<T>> comparingInt(match -> match.rank)
+                .thenComparingInt(match -> match.document.text.length())
+                .thenComparingInt(match -> match.document.id)
+                .reversed();
+        PriorityQueue<Match<T>> top = new PriorityQueue<>(limit + 1, worstFirst);
+        lock.readLock().lock();
+        try {
+            for (Integer id : candidates(normalized)) {
+                Document<T> document = documents.get(id);
+                int rank = rank(document.text, normalized);
+                if (rank >= 0) {
+                    top.add(new Match<>(document, rank));
+                    if (top.size() > limit) {
+                        top.poll();
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<T> results = new ArrayList<>(top.size());
+        while (!top.isEmpty()) {
+            results.add(top.poll().document.entity);
+        }
+        Collections.reverse(results);
+        return results;
+    }
+
+    private Set<Integer> candidates(String query) {
+        if (query.length() < GRAM) {
+            Set<Integer> candidates = new HashSet<>();
+            SortedMap<String, Set<Integer>> prefixed = words.subMap(query, query + Character.MAX_VALUE);
+            for (Set<Integer> ids : prefixed.values()) {
+                candidates.addAll(ids);
+            }
+            return candidates;
+        }
+        Set<Integer> shortest = null;
+        for (String gram : grams(query)) {
+            Set<Integer> ids = grams.get(gram);
+            if (ids == null) {
+                return Collections.emptySet();
+            }
+            if (shortest == null || ids.size() < shortest.size()) {
+                shortest = ids;
+            }
+        }
+        return shortest;
+    }
+
+    /**
+     * @return rank of the match, lower is better, or -1 if the text does not match
+     */
+    private static int rank(String text, String query) {
+        int index = text.indexOf(query);
+        if (index < 0) {
+            return -1;
+        }
+        if (index == 0) {
+            return text.length() == query.length() ? EXACT : TEXT_PREFIX;
+        }
+        do {
+            if (text.charAt(index - 1) == ' ') {
+                return WORD_PREFIX;
+            }
+            index = text.indexOf(query, index + 1);
+        } while (index > 0);
+        // queries shorter than a trigram match word prefixes only
+        return query.length() < GRAM ? -1 : SUBSTRING;
+    }
+
+    private void unindex(Document<T> document) {
+        if (document == null) {
+            return;
+        }
+        for (String gram : grams(document.text)) {
+            removePosting(grams, gram, document.id);
+        }
+        for (String word : words(document.text)) {
+            removePosting(words, word, document.id);
+        }
+    }
+
+    private static void removePosting(Map<String, Set<Integer>> postings, String key, int id) {
+        Set<Integer> ids = postings.get(key);
+        if (ids != null && ids.remove(id) && ids.isEmpty()) {
+            postings.remove(key);
+        }
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> result = new HashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            result.add(text.substring(i, i + GRAM));
+        }
+        return result;
+    }
+
+    private static Set<String> words(String text) {
+        Set<String> result = new HashSet<>();
+        for (String word : text.split(" ")) {
+            if (!word.isEmpty()) {
+                result.add(word);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Lower-cases the text and collapses whitespace into single spaces.
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Document<T> {
+
+        private final int id;
+        private final T entity;
+        private final String text;
+
+        Document(int id, T entity, String text) {
+            this.id = id;
+            this.entity = entity;
+            this.text = text;
+        }
+    }
+
+    private static final class Match<T> {
+
+        private final Document<T> document;
+        private final int rank;
+
+        Match(Document<T> document, int rank) {
+            this.document = document;
+            this.rank = rank;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.testservice.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.annotation.PostConstruct;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.testservice.domain.AccessToken;
+import com.testservice.domain.User;
+import com.testservice.metrics.RequestProfile;
+import com.testservice.metrics.Timed;
+
+/**
+ * AccessTokenService issues and verifies stateless access tokens: JSON Web Tokens signed with HMAC-SHA256 which carry
+ * name and role of the user and expire after 'token.ttlSeconds'. Verification needs neither the token cache nor the
+ * database, so any node sharing the keys accepts tokens issued by the others.
+ * <p>
+ * Keys are configured as 'token.keys' ('id:base64 secret' pairs). Tokens are signed with 'token.activeKey' and name
+ * their key in 'kid' header, they are verified with any configured key. To rotate keys add the new key to every node,
+ * then make it active and remove the old key after the token lifetime.
+ *
+ * @author taras
+ *
+ */
+@Timed(phase = RequestProfile.AUTH_PHASE)
+@Component
+public class AccessTokenService {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final String JWT_ALGORITHM = "HS256";
+    private static final String TOKEN_TYPE = "Bearer";
+    private static final int MIN_SECRET_BYTES = 32;
+    private static final String GENERATED_KEY_ID = "generated";
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private static final Logger LOGGER = Logger.getLogger(AccessTokenService.class);
+
+    @Value("${token.keys:}")
+    private String keysProperty;
+
+    @Value("${token.activeKey:}")
+    private String activeKeyId;
+
+    @Value("${token.ttlSeconds:3600}")
+    private long ttlSeconds;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Map<String, SigningKey> keys = new HashMap<>();
+    private SigningKey activeKey;
+
+    @PostConstruct
+    public void init() {
+        for (String entry : StringUtils.commaDelimitedListToStringArray(keysProperty)) {
+            String[] parts = entry.trim().split(":", 2);
+            if (parts.length != 2) {
+                throw new IllegalStateException("Token key should be 'id:base64 secret': " + entry);
+            }
+            byte[] secret = Base64.getDecoder().decode(parts[1].trim());
+            if (secret.length < MIN_SECRET_BYTES) {
+                throw new IllegalStateException("Secret of token key " + parts[0] + " is shorter than "
+                        + MIN_SECRET_BYTES + " bytes");
+            }
+            keys.put(parts[0].trim(), new SigningKey(parts[0].trim(), secret));
+        }
+        if (keys.isEmpty()) {
+            LOGGER.warn("token.keys is not set, access tokens are signed with a random key and are valid "
+                    + "on this node only");
+            byte[] secret = new byte[MIN_SECRET_BYTES];
+            new SecureRandom().nextBytes(secret);
+            keys.put(GENERATED_KEY_ID, new SigningKey(GENERATED_KEY_ID, secret));
+            activeKeyId = GENERATED_KEY_ID;
+        }
+        if (!StringUtils.hasText(activeKeyId) && keys.size() == 1) {
+            activeKeyId = keys.keySet().iterator().next();
+        }
+        activeKey = keys.get(activeKeyId);
+        if (activeKey == null) {
+            throw new IllegalStateException("token.activeKey '" + activeKeyId + "' is not listed in token.keys");
+        }
+    }
+
+    /**
+     * Issues a token for the user.
+     *
+     * @param user authenticated user
+     * @return signed token and its lifetime
+     */
+    public AccessToken issue(User user) {
+        long now = System.currentTimeMillis() / 1000;
+        ObjectNode claims = mapper.createObjectNode();
+        claims.put("sub", user.getName());
+        claims.put("role", user.getRole());
+        claims.put("iat", now);
+        claims.put("exp", now + ttlSeconds);
+        String payload;
+        try {
+            payload = activeKey.header + "." + ENCODER.encodeToString(mapper.writeValueAsBytes(claims));
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to write token claims", e);
+        }
+        String token = payload + "." + ENCODER.encodeToString(activeKey.sign(payload));
+        return new AccessToken(token, TOKEN_TYPE, ttlSeconds);
+    }
+
+    /**
+     * Verifies signature and expiration of the token.
+     *
+     * @param token signed token
+     * @return user with name and role from the token or null if the token is malformed, forged or expired
+     */
+    public User verify(String token) {
+        int headerEnd = token.indexOf('.');
+        int payloadEnd = token.lastIndexOf('.');
+        if (headerEnd <= 0 || payloadEnd <= headerEnd) {
+            return null;
+        }
+        try {
+            JsonNode header = mapper.readTree(DECODER.decode(token.substring(0, headerEnd)));
+            SigningKey key = keys.get(header.path("kid").asText());
+            if (key == null || !JWT_ALGORITHM.equals(header.path("alg").asText())) {
+                LOGGER.info("access token with unknown key: " + header);
+                return null;
+            }
+            byte[] signature = DECODER.decode(token.substring(payloadEnd + 1));
+            if (!MessageDigest.isEqual(signature, key.sign(token.substring(0, payloadEnd)))) {
+                LOGGER.info("access token with invalid signature");
+                return null;
+            }
+            JsonNode claims = mapper.readTree(DECODER.decode(token.substring(headerEnd + 1, payloadEnd)));
+            if (claims.path("exp").asLong() <= System.currentTimeMillis() / 1000) {
+                LOGGER.info("expired access token of user: " + claims.path("sub").asText());
+                return null;
+            }
+            return new User(claims.path("sub").asText(), null, claims.path("role").asText());
+        } catch (IOException | IllegalArgumentException e) {
+            LOGGER.info("malformed access token: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * HMAC key with its encoded JWT header. {@link Mac} instances are not thread-safe, one is kept per thread.
+     */
+    private final class SigningKey {
+
+        private final String header;
+        private final ThreadLocal<Mac> mac;
+
+        SigningKey(String id, byte[] secret) {
+            ObjectNode node = mapper.createObjectNode();
+            node.put("alg", JWT_ALGORITHM);
+            node.put("typ", "JWT");
+            node.put("kid", id);
+            this.header = ENCODER.encodeToString(node.toString().getBytes(StandardCharsets.UTF_8));
+            SecretKeySpec spec = new SecretKeySpec(secret, ALGORITHM);
+            this.mac = ThreadLocal.withInitial(() -> {
+                try {
+                    Mac instance = Mac.getInstance(ALGORITHM);
+                    instance.init(spec);
+                    return instance;
+                } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+                    throw new IllegalStateException("Unable to create " + ALGORITHM, e);
+                }
+            });
+        }
+
+        byte[] sign(String payload) {
+            return mac.get().doFinal(payload.getBytes(StandardCharsets.US_ASCII));
+        }
+    }
+}
@@ -4,11 +4,15 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Comparator;
 import java.util.List;
+import java.util.function.Supplier;
 
 import org.apache.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataAccessException;
+import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.BeanPropertyRowMapper;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.PreparedStatementCreator;
@@ -16,29 +20,59 @@ import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Component;
 
+import com.testservice.datasource.DataSourceRouting;
+import com.testservice.datasource.ShardRouting;
 import com.testservice.domain.Author;
+import com.testservice.event.ChangeType;
+import com.testservice.event.EntityChangedEvent;
+import com.testservice.metrics.Timed;
+import com.testservice.replica.ColumnarReplica;
 
 /**
  * AuthorService is the service for CRUD operation on {@link Author} instance in the database.
  *
  */
+@Timed
 @Component
 public class AuthorService {
 
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    private RequestCoalescer coalescer;
+
+    @Autowired
+    private DataSourceRouting routing;
+
+    @Autowired
+    private ShardRouting shards;
+
+    @Autowired
+    private ApplicationEventPublisher publisher;
+
+    @Autowired
+    private ColumnarReplica replica;
+
     private static final Logger LOGGER = Logger.getLogger(AuthorService.class);
 
+    private static final Comparator<Author> BY_ID = Comparator.comparingInt(Author::getId);
+
     /**
-     * Loads all {@link Author} instances from the database.
+     * Loads all {@link Author} instances from the columnar replica or from the database.
      * 
      * @return List of Author instances
      * @throws DataAccessException
      */
     public List<Author> loadAll() {
+        List<Author> authors = replica.getAuthors();
+        if (authors != null) {
+            return authors;
+        }
         try {
-            return jdbcTemplate.query("select * from Author", new BeanPropertyRowMapper<Author>(Author.class));
+            return read("Author.loadAll", null, () -> shards.gather(
+                    () -> jdbcTemplate.query("select * from Author", new BeanPropertyRowMapper<Author>(Author.class)),
+                    BY_ID));
         } catch (DataAccessException e) {
             LOGGER.error("Unable to load authors", e);
             throw e;
@@ -46,15 +80,22 @@ public class AuthorService {
     }
 
     /**
-     * Loads {@link Author} instance from database by its identifier.
+     * Loads {@link Author} instance from the columnar replica or from database by its identifier.
      * 
      * @param id identifier of Author instance
-     * @return Author instance
+     * @return Author instance or null if there is no author with the identifier
      */
     public Author load(int id) {
+        if (replica.hasAuthors()) {
+            return replica.getAuthor(id);
+        }
         try {
-            return jdbcTemplate.queryForObject("select * from Author where id=?", new Object[] { id },
-                    new BeanPropertyRowMapper<Author>(Author.class));
+            return read("Author.load", id, () -> shards.on(shards.shardOf(id), () -> jdbcTemplate.queryForObject(
+                    "select * from Author where id=?", new Object[] { id },
+                    new BeanPropertyRowMapper<Author>(Author.class))));
+        } catch (EmptyResultDataAccessException e) {
+            LOGGER.debug("Author with id=" + id + " is not found");
+            return null;
         } catch (DataAccessException e) {
             LOGGER.error("Unable to load author with id=" + id, e);
             throw e;
@@ -68,7 +109,8 @@ public class AuthorService {
      */
     public void deleteAll() {
         try {
-            jdbcTemplate.update("delete from Author");
+            shards.scatter(() -> jdbcTemplate.update("delete from Author"));
+            changed(ChangeType.DELETE_ALL, null, null);
         } catch (DataAccessException e) {
             LOGGER.error("Unable to delete authors", e);
             throw e;
@@ -83,7 +125,11 @@ public class AuthorService {
      */
     public void delete(int id) {
         try {
-            jdbcTemplate.update("delete from Author where id=?", new Object[] { id });
+            int deleted = shards.on(shards.shardOf(id),
+                    () -> jdbcTemplate.update("delete from Author where id=?", new Object[] { id }));
+            if (deleted > 0) {
+                changed(ChangeType.DELETE, id, null);
+            }
         } catch (DataAccessException e) {
             LOGGER.error("Unable to delete author with id=" + id, e);
             throw e;
@@ -100,21 +146,24 @@ public class AuthorService {
     public Author save(Author author) {
         try {
             KeyHolder keyHolder = new GeneratedKeyHolder();
-            jdbcTemplate.update(new PreparedStatementCreator() {
+            PreparedStatementCreator insert = new PreparedStatementCreator() {
 
                 @Override
                 public PreparedStatement createPreparedStatement(Connection con) throws SQLException {
-                    PreparedStatement ps = con.prepareStatement("insert into Author values (?, ?, ?, ?, ?)",
+                    PreparedStatement ps = con.prepareStatement(
+                            "insert into Author (firstName, lastName, age, salary) values (?, ?, ?, ?)",
                             Statement.RETURN_GENERATED_KEYS);
-                    ps.setInt(1, 0);
-                    ps.setString(2, author.getFirstName());
-                    ps.setString(3, author.getLastName());
-                    ps.setInt(4, author.getAge());
-                    ps.setDouble(5, author.getSalary());
+                    ps.setString(1, author.getFirstName());
+                    ps.setString(2, author.getLastName());
+                    ps.setInt(3, author.getAge());
+                    ps.setDouble(4, author.getSalary());
                     return ps;
                 }
-            }, keyHolder);
+            };
+            // new authors are spread over the shards, their books follow them
+            shards.on(shards.nextShard(), () -> jdbcTemplate.update(insert, keyHolder));
             author.setId(keyHolder.getKey().intValue());
+            changed(ChangeType.CREATE, author.getId(), author);
             return author;
         } catch (DataAccessException e) {
             LOGGER.error("Unable to save author with lastName=" + author.getLastName(), e);
@@ -130,8 +179,13 @@ public class AuthorService {
      */
     public void update(Author author) {
         try {
-            jdbcTemplate.update("update Author set firstName=?, lastName=?, age=?, salary=? where id=?", new Object[] {
-                    author.getFirstName(), author.getLastName(), author.getAge(), author.getSalary(), author.getId() });
+            int updated = shards.on(shards.shardOf(author.getId()), () -> jdbcTemplate.update(
+                    "update Author set firstName=?, lastName=?, age=?, salary=? where id=?",
+                    new Object[] { author.getFirstName(), author.getLastName(), author.getAge(), author.getSalary(),
+                            author.getId() }));
+            if (updated > 0) {
+                changed(ChangeType.UPDATE, author.getId(), author);
+            }
         } catch (DataAccessException e) {
             LOGGER.error("Unable to update author with id=" + author.getId(), e);
             throw e;
@@ -145,11 +199,26 @@ public class AuthorService {
      */
     public void saveLogs(Author author) {
         try {
-            jdbcTemplate.update("insert into AuthorLogs values (?, ?, ?, ?)",
-                    new Object[] { null, author.getId(), author.getFirstName(), author.getLastName() });
+            shards.on(shards.shardOf(author.getId()), () -> jdbcTemplate.update(
+                    "insert into AuthorLogs (authorId, firstName, lastName) values (?, ?, ?)",
+                    new Object[] { author.getId(), author.getFirstName(), author.getLastName() }));
         } catch (DataAccessException e) {
             LOGGER.error("Unable to save author's logs, author id=" + author.getId(), e);
             throw e;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Notifies listeners, e.g. change feeds, about the written author.
+     */
+    private void changed(ChangeType type, Integer id, Author author) {
+        publisher.publishEvent(new EntityChangedEvent(this, Author.class, type, id, author));
+    }
+
+    /**
+     * Executes read-only loader on a read replica and shares its result with concurrent identical calls.
+     */
+    private <T> T read(String operation, Object argument, Supplier<T> loader) {
+        return routing.readOnly(() -> coalescer.execute(operation, argument, loader));
+    }
+}
@@ -4,11 +4,15 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Comparator;
 import java.util.List;
+import java.util.function.Supplier;
 
 import org.apache.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.BeanPropertyRowMapper;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -17,29 +21,59 @@ import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Component;
 
+import com.testservice.datasource.DataSourceRouting;
+import com.testservice.datasource.ShardRouting;
 import com.testservice.domain.Book;
+import com.testservice.event.ChangeType;
+import com.testservice.event.EntityChangedEvent;
+import com.testservice.metrics.Timed;
+import com.testservice.replica.ColumnarReplica;
 
 /**
  * BookService is the service for CRUD operation on {@link Book} instance in the database.
  *
  */
+@Timed
 @Component
 public class BookService {
 
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    private RequestCoalescer coalescer;
+
+    @Autowired
+    private DataSourceRouting routing;
+
+    @Autowired
+    private ShardRouting shards;
+
+    @Autowired
+    private ApplicationEventPublisher publisher;
+
+    @Autowired
+    private ColumnarReplica replica;
+
     private static final Logger LOGGER = Logger.getLogger(BookService.class);
 
+    private static final Comparator<Book> BY_ID = Comparator.comparingInt(Book::getId);
+
     /**
-     * Loads all {@link Book} instances from the database.
+     * Loads all {@link Book} instances from the columnar replica or from the database.
      * 
      * @return List of Book instances
      * @throws DataAccessException
      */
     public List<Book> loadAll() {
+        List<Book> books = replica.getBooks();
+        if (books != null) {
+            return books;
+        }
         try {
-            return jdbcTemplate.query("select * from Book", new BeanPropertyRowMapper<Book>(Book.class));
+            return read("Book.loadAll", null, () -> shards.gather(
+                    () -> jdbcTemplate.query("select * from Book", new BeanPropertyRowMapper<Book>(Book.class)),
+                    BY_ID));
         } catch (DataAccessException e) {
             LOGGER.error("Unable to load books", e);
             throw e;
@@ -47,18 +81,22 @@ public class BookService {
     }
 
     /**
-     * Loads {@link Book} instance from database by its identifier.
+     * Loads {@link Book} instance from the columnar replica or from database by its identifier.
      * 
      * @param id identifier of Book instance
-     * @return Book instance
+     * @return Book instance or null if there is no book with the identifier
      */
     public Book load(int id) {
+        if (replica.hasBooks()) {
+            return replica.getBook(id);
+        }
         try {
-            return jdbcTemplate.queryForObject("select * from Book where id=?", new Object[] { id },
-                    new BeanPropertyRowMapper<Book>(Book.class));
+            return read("Book.load", id, () -> shards.on(shards.shardOf(id), () -> jdbcTemplate.queryForObject(
+                    "select * from Book where id=?", new Object[] { id },
+                    new BeanPropertyRowMapper<Book>(Book.class))));
         } catch (EmptyResultDataAccessException e) {
-            LOGGER.error("Unable to load book with id=" + id, e);
-            throw e;
+            LOGGER.debug("Book with id=" + id + " is not found");
+            return null;
         }
     }
 
@@ -69,7 +107,8 @@ public class BookService {
      */
     public void deleteAll() {
         try {
-            jdbcTemplate.update("delete from Book");
+            shards.scatter(() -> jdbcTemplate.update("delete from Book"));
+            changed(ChangeType.DELETE_ALL, null, null);
         } catch (DataAccessException e) {
             LOGGER.error("Unable to delete books", e);
             throw e;
@@ -84,7 +123,11 @@ public class BookService {
      */
     public void delete(int id) {
         try {
-            jdbcTemplate.update("delete from Book where id=?", new Object[] { id });
+            int deleted = shards.on(shards.shardOf(id),
+                    () -> jdbcTemplate.update("delete from Book where id=?", new Object[] { id }));
+            if (deleted > 0) {
+                changed(ChangeType.DELETE, id, null);
+            }
         } catch (DataAccessException e) {
             LOGGER.error("Unable to delete book with id=" + id, e);
             throw e;
@@ -100,20 +143,23 @@ public class BookService {
     public Book save(Book book) {
         try {
             KeyHolder keyHolder = new GeneratedKeyHolder();
-            jdbcTemplate.update(new PreparedStatementCreator() {
+            PreparedStatementCreator insert = new PreparedStatementCreator() {
 
                 @Override
                 public PreparedStatement createPreparedStatement(Connection con) throws SQLException {
-                    PreparedStatement ps = con.prepareStatement("insert into Book values (?, ?, ?, ?)",
+                    PreparedStatement ps = con.prepareStatement(
+                            "insert into Book (name, year, authorId) values (?, ?, ?)",
                             Statement.RETURN_GENERATED_KEYS);
-                    ps.setInt(1, 0);
-                    ps.setString(2, book.getName());
-                    ps.setInt(3, book.getYear());
-                    ps.setInt(4, book.getAuthorId());
+                    ps.setString(1, book.getName());
+                    ps.setInt(2, book.getYear());
+                    ps.setInt(3, book.getAuthorId());
                     return ps;
                 }
-            }, keyHolder);
+            };
+            // books live on the shard of their author
+            shards.on(shards.shardOf(book.getAuthorId()), () -> jdbcTemplate.update(insert, keyHolder));
             book.setId(keyHolder.getKey().intValue());
+            changed(ChangeType.CREATE, book.getId(), book);
             return book;
         } catch (DataAccessException e) {
             LOGGER.error("Unable to save book with name=" + book.getName(), e);
@@ -126,11 +172,21 @@ public class BookService {
      * 
      * @param book Book instance should be updated
      * @throws DataAccessException
+     * @throws DataIntegrityViolationException if the book is moved to an author on another shard
      */
     public void update(Book book) {
         try {
-            jdbcTemplate.update("update Book set name=?, year=?, authorId=? where id=?",
-                    new Object[] { book.getName(), book.getYear(), book.getAuthorId(), book.getId() });
+            int shard = shards.shardOf(book.getId());
+            if (shards.shardOf(book.getAuthorId()) != shard) {
+                throw new DataIntegrityViolationException("Book with id=" + book.getId()
+                        + " cannot be moved to author with id=" + book.getAuthorId() + " on another shard");
+            }
+            int updated = shards.on(shard, () -> jdbcTemplate.update(
+                    "update Book set name=?, year=?, authorId=? where id=?",
+                    new Object[] { book.getName(), book.getYear(), book.getAuthorId(), book.getId() }));
+            if (updated > 0) {
+                changed(ChangeType.UPDATE, book.getId(), book);
+            }
         } catch (DataAccessException e) {
             LOGGER.error("Unable to update book with id=" + book.getId(), e);
             throw e;
@@ -144,8 +200,9 @@ public class BookService {
      */
     public void saveLogs(Book book) {
         try {
-            jdbcTemplate.update("insert into BookLogs values (?, ?, ?)",
-                    new Object[] { null, book.getId(), book.getName() });
+            shards.on(shards.shardOf(book.getId()), () -> jdbcTemplate.update(
+                    "insert into BookLogs (bookId, name) values (?, ?)",
+                    new Object[] { book.getId(), book.getName() }));
         } catch (DataAccessException e) {
             LOGGER.error("Unable to save book's logs, author id=" + book.getId(), e);
             throw e;
@@ -153,19 +210,39 @@ public class BookService {
     }
 
     /**
-     * Loads all {@link Book} instances for the Author from the database.
+     * Loads all {@link Book} instances for the Author from the columnar replica or from the database.
      * 
      * @param id identifier of Author which Books should be loaded
      * @return List of Book instances
      * @throws DataAccessException
      */
     public List<Book> getBooksByAuthor(int id) {
+        List<Book> books = replica.getBooksByAuthor(id);
+        if (books != null) {
+            return books;
+        }
         try {
-            return jdbcTemplate.query("select * from Book where authorId=?",
-                    new BeanPropertyRowMapper<Book>(Book.class), new Object[] { id });
+            // books of an author live on its shard
+            return read("Book.getBooksByAuthor", id, () -> shards.on(shards.shardOf(id), () -> jdbcTemplate.query(
+                    "select * from Book where authorId=?", new BeanPropertyRowMapper<Book>(Book.class),
+                    new Object[] { id })));
         } catch (DataAccessException e) {
             LOGGER.error("Unable to load book's for author with id=" + id, e);
             throw e;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Notifies listeners, e.g. change feeds, about the written book.
+     */
+    private void changed(ChangeType type, Integer id, Book book) {
+        publisher.publishEvent(new EntityChangedEvent(this, Book.class, type, id, book));
+    }
+
+    /**
+     * Executes read-only loader on a read replica and shares its result with concurrent identical calls.
+     */
+    private <T> T read(String operation, Object argument, Supplier<T> loader) {
+        return routing.readOnly(() -> coalescer.execute(operation, argument, loader));
+    }
+}
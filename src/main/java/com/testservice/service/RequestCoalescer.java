@@ -0,0 +1,131 @@
+package com.testservice.service;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Component;
+
+import com.testservice.datasource.DataSourceRouting;
+import com.testservice.domain.CoalescingStatistics;
+import com.testservice.resilience.RequestDeadline;
+
+/**
+ * RequestCoalescer collapses concurrent identical reads into a single in-flight call. The first caller for a key
+ * executes the loader, every caller arriving while it is running waits for and shares its result or exception. Calls
+ * of a principal pinned to the primary database are never collapsed to keep its reads consistent with its writes. A
+ * waiting caller does not wait beyond the deadline of its own request.
+ * 
+ * @author taras
+ *
+ */
+@Component
+public class RequestCoalescer {
+
+    private final ConcurrentMap<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Counters> counters = new ConcurrentHashMap<>();
+
+    @Autowired
+    private DataSourceRouting routing;
+
+    @Autowired
+    private RequestDeadline requestDeadline;
+
+    /**
+     * Executes the loader unless an identical call is already in flight, in which case waits for its result.
+     * 
+     * @param operation name of the operation, e.g. 'Book.load'
+     * @param argument argument of the operation, may be null
+     * @param loader loads the result
+     * @return result of the loader
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String operation, Object argument, Supplier<T> loader) {
+        Counters operationCounters = counters.computeIfAbsent(operation, key -> new Counters());
+        operationCounters.calls.increment();
+        if (routing.isPinnedToPrimary()) {
+            return loader.get();
+        }
+
+        Object key = new SimpleImmutableEntry<>(operation, argument);
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            operationCounters.collapsed.increment();
+            return (T) join(existing);
+        }
+        try {
+            T result = loader.get();
+            inFlight.remove(key, future);
+            future.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            inFlight.remove(key, future);
+            future.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private Object join(CompletableFuture<Object> future) {
+        try {
+            if (requestDeadline.isSet()) {
+                return future.get(Math.max(requestDeadline.remainingMillis(), 0), TimeUnit.MILLISECONDS);
+            }
+            return future.get();
+        } catch (TimeoutException e) {
+            throw new QueryTimeoutException("Request deadline exceeded while waiting for a coalesced call", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a coalesced call", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException("Coalesced call has failed", cause);
+        }
+    }
+
+    /**
+     * Retrieves number of calls and collapsed calls per operation.
+     * 
+     * @return List of {@link CoalescingStatistics} instances
+     */
+    public List<CoalescingStatistics> getStatistics() {
+        List<CoalescingStatistics> statistics = new ArrayList<>();
+        for (Map.Entry<String, Counters> entry : counters.entrySet()) {
+            statistics.add(new CoalescingStatistics(entry.getKey(), entry.getValue().calls.sum(),
+                    entry.getValue().collapsed.sum(), inFlightCount(entry.getKey())));
+        }
+        return statistics;
+    }
+
+    private int inFlightCount(String operation) {
+        int count = 0;
+        for (Object key : inFlight.keySet()) {
+            if (operation.equals(((SimpleImmutableEntry<?, ?>) key).getKey())) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static final class Counters {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder collapsed = new LongAdder();
+    }
+}
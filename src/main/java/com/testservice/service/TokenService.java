@@ -10,6 +10,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import com.testservice.domain.User;
+import com.testservice.metrics.RequestProfile;
+import com.testservice.metrics.RequestRecording;
+import com.testservice.metrics.Timed;
 
 /**
  * TokenService is the service for user authenticating and caching authentication tokens.
@@ -17,6 +20,7 @@ import com.testservice.domain.User;
  * @author taras
  *
  */
+@Timed(phase = RequestProfile.AUTH_PHASE)
 @Component
 public class TokenService {
 
@@ -28,6 +32,9 @@ public class TokenService {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private RequestRecording requestRecording;
+
     /**
      * Checks availability of user token in cache.
      * 
@@ -48,16 +55,16 @@ public class TokenService {
         String decodedToken = null;
         try {
             decodedToken = new String(Base64.getDecoder().decode(token));
-            LOGGER.info("(TRY AUTHENTICATE) decoded token: " + decodedToken);
+            log("(TRY AUTHENTICATE) decoded token: " + decodedToken);
         } catch (IllegalArgumentException e) {
-            LOGGER.info("bad token: " + token);
+            log("bad token: " + token);
             return false;
         }
         String[] data = decodedToken.split(":");
         String name = data[0];
         String password = data[1];
         User user = userService.load(name, password);
-        LOGGER.info("(TRY AUTHENTICATE) user: " + user);
+        log("(TRY AUTHENTICATE) user: " + user);
         if (user != null) {
             map.put(token, user);
             return true;
@@ -74,4 +81,33 @@ public class TokenService {
     public User get(String token) {
         return map.get(token);
     }
-}
\ No newline at end of file
+
+    /**
+     * Caches the principal of an internally issued token, e.g. for warm-up requests. The token expires like tokens of
+     * authenticated users.
+     * 
+     * @param token identifier of user
+     * @param user user principal
+     */
+    public void put(String token, User user) {
+        map.put(token, user);
+    }
+
+    /**
+     * Removes the token from cache.
+     * 
+     * @param token identifier of user
+     */
+    public void remove(String token) {
+        map.remove(token);
+    }
+
+    /**
+     * Authentication of warm-up requests is not logged.
+     */
+    private void log(String message) {
+        if (requestRecording.isRecorded()) {
+            LOGGER.info(message);
+        }
+    }
+}
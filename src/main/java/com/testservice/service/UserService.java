@@ -3,11 +3,15 @@ package com.testservice.service;
 import org.apache.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataAccessException;
+import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.BeanPropertyRowMapper;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 
+import com.testservice.datasource.DataSourceRouting;
 import com.testservice.domain.User;
+import com.testservice.metrics.RequestProfile;
+import com.testservice.metrics.Timed;
 
 /**
  * UserService is the service for loading {@link User} instance from the database.
@@ -15,12 +19,16 @@ import com.testservice.domain.User;
  * @author taras
  *
  */
+@Timed(phase = RequestProfile.AUTH_PHASE)
 @Component
 public class UserService {
 
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    private DataSourceRouting routing;
+
     private static final Logger LOGGER = Logger.getLogger(UserService.class);
 
     /**
@@ -28,12 +36,16 @@ public class UserService {
      * 
      * @param name name of User instance
      * @param password password of User instance
-     * @return User instance
+     * @return User instance or null if there is no such user
      */
     public User load(String name, String password) {
         try {
-            return jdbcTemplate.queryForObject("select * from User where name=? and password=?",
-                    new Object[] { name, password }, new BeanPropertyRowMapper<User>(User.class));
+            return routing.readOnly(() -> jdbcTemplate.queryForObject("select * from User where name=? and password=?",
+                    new Object[] { name, password }, new BeanPropertyRowMapper<User>(User.class)));
+        } catch (EmptyResultDataAccessException e) {
+            // unknown credentials are an outcome of the authentication rather than an error
+            LOGGER.debug("User with name=" + name + " and the given password is not found");
+            return null;
         } catch (DataAccessException e) {
             LOGGER.error("Unable to load user with name=" + name, e);
             return null;
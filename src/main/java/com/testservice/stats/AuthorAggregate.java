@@ -0,0 +1,58 @@
+package com.testservice.stats;
+
+import com.testservice.domain.AuthorStatistics;
+
+/**
+ * Running sums of age and salary of authors. Age and salary of every author are kept by identifier, so a change can
+ * subtract the previous values and repeated changes of one author are applied once. Not thread-safe.
+ * 
+ * @author taras
+ *
+ */
+final class AuthorAggregate {
+
+    private final IntLongMap ages = new IntLongMap();
+    // raw bits of salaries
+    private final IntLongMap salaries = new IntLongMap();
+    private long totalAge;
+    private double totalSalary;
+
+    /**
+     * Adds an author or replaces the values of an existing one.
+     */
+    void put(int id, int age, double salary) {
+        remove(id);
+        ages.put(id, age);
+        salaries.put(id, Double.doubleToRawLongBits(salary));
+        totalAge += age;
+        totalSalary += salary;
+    }
+
+    void remove(int id) {
+        if (ages.containsKey(id)) {
+            totalAge -= ages.remove(id);
+            totalSalary -= Double.longBitsToDouble(salaries.remove(id));
+        }
+    }
+
+    void clear() {
+        ages.clear();
+        salaries.clear();
+        totalAge = 0;
+        totalSalary = 0;
+    }
+
+    /**
+     * Checks whether both aggregates have the same count and sums, salary sums may differ by rounding errors.
+     */
+    boolean matches(AuthorAggregate other) {
+        return ages.size() == other.ages.size() && totalAge == other.totalAge
+                && Math.abs(totalSalary - other.totalSalary) <= Math.ulp(Math.abs(totalSalary)) * ages.size();
+    }
+
+    AuthorStatistics toStatistics() {
+        int count = ages.size();
+        return new AuthorStatistics(count, totalAge, count == 0 ? 0 : (double) totalAge / count, totalSalary,
+                count == 0 ? 0 : totalSalary / count);
+    }
+}
@@ -0,0 +1,67 @@
+package com.testservice.stats;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.testservice.domain.BookStatistics;
+
+/**
+ * Number of books per author and per year. Year and author of every book are kept by identifier, packed into one
+ * long, so a change can move the book between counters and repeated changes of one book are applied once. Not
+ * thread-safe.
+ * 
+ * @author taras
+ *
+ */
+final class BookAggregate {
+
+    private final IntLongMap books = new IntLongMap();
+    private final IntLongMap booksPerAuthor = new IntLongMap();
+    private final IntLongMap booksPerYear = new IntLongMap();
+
+    /**
+     * Adds a book or replaces the year and author of an existing one.
+     */
+    void put(int id, int year, int authorId) {
+        remove(id);
+        books.put(id, ((long) year << 32) | (authorId & 0xFFFFFFFFL));
+        booksPerAuthor.add(authorId, 1);
+        booksPerYear.add(year, 1);
+    }
+
+    void remove(int id) {
+        if (books.containsKey(id)) {
+            long previous = books.remove(id);
+            booksPerAuthor.add((int) previous, -1);
+            booksPerYear.add((int) (previous >>> 32), -1);
+        }
+    }
+
+    void clear() {
+        books.clear();
+        booksPerAuthor.clear();
+        booksPerYear.clear();
+    }
+
+    /**
+     * Checks whether both aggregates have the same counters.
+     */
+    boolean matches(BookAggregate other) {
+        return books.size() == other.books.size() && booksPerAuthor.matches(other.booksPerAuthor)
+                && booksPerYear.matches(other.booksPerYear);
+    }
+
+    /**
+     * @return immutable snapshot of the counters
+     */
+    BookStatistics toStatistics() {
+        return new BookStatistics(books.size(), toMap(booksPerAuthor), toMap(booksPerYear));
+    }
+
+    private static Map<Integer, Integer> toMap(IntLongMap counters) {
+        Map<Integer, Integer> map = new TreeMap<>();
+        counters.forEach((key, count) -> map.put(key, (int) count));
+        return Collections.unmodifiableMap(map);
+    }
+}
@@ -0,0 +1,228 @@
+package com.testservice.stats;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import com.testservice.datasource.ShardRouting;
+import com.testservice.domain.Author;
+import com.testservice.domain.AuthorStatistics;
+import com.testservice.domain.Book;
+import com.testservice.domain.BookStatistics;
+import com.testservice.event.EntityChangedEvent;
+import com.testservice.schema.SchemaMigrator;
+
+/**
+ * EntityStatistics keeps aggregates of authors and books in memory, so statistics are answered without reading the
+ * tables. Aggregates are loaded from the primary database in background at startup and updated by
+ * {@link EntityChangedEvent}s published by the services. They are periodically reloaded to repair drift, e.g. from
+ * changes made by other nodes; a reload is discarded if a change has been applied while it was running. Readers get
+ * immutable snapshots without locking: the author snapshot is published on every change, the book snapshot, whose
+ * size grows with the number of authors and years, is built once by the first reader after a change.
+ *
+ * @author taras
+ *
+ */
+@Component
+public class EntityStatistics implements ApplicationListener<EntityChangedEvent>, DisposableBean {
+
+    private static final int RELOAD_ATTEMPTS = 3;
+
+    private static final Logger LOGGER = Logger.getLogger(EntityStatistics.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SchemaMigrator schemaMigrator;
+
+    @Autowired
+    private ShardRouting shards;
+
+    @Value("${stats.reconcileMinutes:10}")
+    private int reconcileMinutes;
+
+    private ScheduledExecutorService reconciler;
+
+    // guarded by this
+    private AuthorAggregate authors = new AuthorAggregate();
+    private BookAggregate books = new BookAggregate();
+    private long authorChanges;
+    private long bookChanges;
+    private boolean authorsLoaded;
+    private boolean booksLoaded;
+
+    // null until loaded, book statistics also after a change
+    private volatile AuthorStatistics authorStatistics;
+    private volatile BookStatistics bookStatistics;
+
+    @PostConstruct
+    public void init() {
+        reconciler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "statistics-reconciler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reconciler.scheduleWithFixedDelay(this::reconcile, 0, reconcileMinutes, TimeUnit.MINUTES);
+    }
+
+    @Override
+    public synchronized void onApplicationEvent(EntityChangedEvent event) {
+        if (event.getEntityType() == Author.class) {
+            authorChanges++;
+            switch (event.getChangeType()) {
+            case CREATE:
+            case UPDATE:
+                Author author = (Author) event.getEntity();
+                authors.put(author.getId(), author.getAge(), author.getSalary());
+                break;
+            case DELETE:
+                authors.remove(event.getEntityId());
+                break;
+            case DELETE_ALL:
+                authors.clear();
+                break;
+            default:
+                break;
+            }
+            if (authorsLoaded) {
+                authorStatistics = authors.toStatistics();
+            }
+        } else if (event.getEntityType() == Book.class) {
+            bookChanges++;
+            switch (event.getChangeType()) {
+            case CREATE:
+            case UPDATE:
+                Book book = (Book) event.getEntity();
+                books.put(book.getId(), book.getYear(), book.getAuthorId());
+                break;
+            case DELETE:
+                books.remove(event.getEntityId());
+                break;
+            case DELETE_ALL:
+                books.clear();
+                break;
+            default:
+                break;
+            }
+            bookStatistics = null;
+        }
+    }
+
+    /**
+     * @return count, total and average age and salary of authors or null if they are not loaded yet
+     */
+    public AuthorStatistics getAuthorStatistics() {
+        return authorStatistics;
+    }
+
+    /**
+     * @return count of books, books per author and per year or null if they are not loaded yet
+     */
+    public BookStatistics getBookStatistics() {
+        BookStatistics statistics = bookStatistics;
+        if (statistics == null) {
+            synchronized (this) {
+                if (booksLoaded && bookStatistics == null) {
+                    bookStatistics = books.toStatistics();
+                }
+                statistics = bookStatistics;
+            }
+        }
+        return statistics;
+    }
+
+    /**
+     * Reloads aggregates from the database.
+     */
+    public void reconcile() {
+        try {
+            schemaMigrator.awaitCompletion();
+            reconcileAuthors();
+            reconcileBooks();
+        } catch (RuntimeException e) {
+            LOGGER.error("Unable to reconcile statistics", e);
+        }
+    }
+
+    private void reconcileAuthors() {
+        for (int attempt = 0; attempt < RELOAD_ATTEMPTS; attempt++) {
+            long changes;
+            synchronized (this) {
+                changes = authorChanges;
+            }
+            AuthorAggregate loaded = loadAuthors();
+            synchronized (this) {
+                if (changes == authorChanges) {
+                    if (authorsLoaded && !authors.matches(loaded)) {
+                        LOGGER.warn("Author statistics drifted: " + authors.toStatistics() + ", database: "
+                                + loaded.toStatistics());
+                    }
+                    authors = loaded;
+                    authorsLoaded = true;
+                    authorStatistics = authors.toStatistics();
+                    return;
+                }
+            }
+        }
+        LOGGER.info("Author statistics are not reconciled, authors are changing");
+    }
+
+    private void reconcileBooks() {
+        for (int attempt = 0; attempt < RELOAD_ATTEMPTS; attempt++) {
+            long changes;
+            synchronized (this) {
+                changes = bookChanges;
+            }
+            BookAggregate loaded = loadBooks();
+            synchronized (this) {
+                if (changes == bookChanges) {
+                    if (booksLoaded && !books.matches(loaded)) {
+                        LOGGER.warn("Book statistics drifted: " + books.toStatistics() + ", database: "
+                                + loaded.toStatistics());
+                    }
+                    books = loaded;
+                    booksLoaded = true;
+                    bookStatistics = null;
+                    return;
+                }
+            }
+        }
+        LOGGER.info("Book statistics are not reconciled, books are changing");
+    }
+
+    private AuthorAggregate loadAuthors() throws DataAccessException {
+        AuthorAggregate aggregate = new AuthorAggregate();
+        RowCallbackHandler handler = rs -> aggregate.put(rs.getInt(1), rs.getInt(2), rs.getDouble(3));
+        for (int shard = 0; shard < shards.getShardCount(); shard++) {
+            shards.on(shard, () -> jdbcTemplate.query("select id, age, salary from Author", handler));
+        }
+        return aggregate;
+    }
+
+    private BookAggregate loadBooks() throws DataAccessException {
+        BookAggregate aggregate = new BookAggregate();
+        RowCallbackHandler handler = rs -> aggregate.put(rs.getInt(1), rs.getInt(2), rs.getInt(3));
+        for (int shard = 0; shard < shards.getShardCount(); shard++) {
+            shards.on(shard, () -> jdbcTemplate.query("select id, year, authorId from Book", handler));
+        }
+        return aggregate;
+    }
+
+    @Override
+    public void destroy() {
+        reconciler.shutdownNow();
+    }
+}
@@ -0,0 +1,151 @@
+package com.testservice.stats;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash map from int keys to long values kept in primitive arrays, so counters and values of the
+ * aggregates are updated without boxing. Removal shifts following entries back instead of leaving tombstones. Not
+ * thread-safe.
+ * 
+ * @author taras
+ *
+ */
+final class IntLongMap {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] keys = new int[INITIAL_CAPACITY];
+    private long[] values = new long[INITIAL_CAPACITY];
+    private boolean[] used = new boolean[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Visits entries of the map.
+     */
+    interface Visitor {
+        void visit(int key, long value);
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean containsKey(int key) {
+        return used[slotOf(key)];
+    }
+
+    /**
+     * @return value of the key, zero if there is no such key
+     */
+    long get(int key) {
+        int slot = slotOf(key);
+        return used[slot] ? values[slot] : 0;
+    }
+
+    void put(int key, long value) {
+        int slot = slotOf(key);
+        if (!used[slot]) {
+            if (size + 1 > keys.length * 3 / 4) {
+                grow();
+                slot = slotOf(key);
+            }
+            used[slot] = true;
+            keys[slot] = key;
+            size++;
+        }
+        values[slot] = value;
+    }
+
+    /**
+     * Adds the delta to the value of the key, the key is removed when its value becomes zero.
+     */
+    void add(int key, long delta) {
+        long value = get(key) + delta;
+        if (value == 0) {
+            remove(key);
+        } else {
+            put(key, value);
+        }
+    }
+
+    /**
+     * @return removed value of the key, zero if there is no such key
+     */
+    long remove(int key) {
+        int slot = slotOf(key);
+        if (!used[slot]) {
+            return 0;
+        }
+        long value = values[slot];
+        int mask = keys.length - 1;
+        int free = slot;
+        for (int i = (slot + 1) & mask; used[i]; i = (i + 1) & mask) {
+            int home = home(keys[i], mask);
+            if (((i - home) & mask) >= ((i - free) & mask)) {
+                keys[free] = keys[i];
+                values[free] = values[i];
+                free = i;
+            }
+        }
+        used[free] = false;
+        size--;
+        return value;
+    }
+
+    void clear() {
+        Arrays.fill(used, false);
+        size = 0;
+    }
+
+    void forEach(Visitor visitor) {
+        for (int i = 0; i < keys.length; i++) {
+            if (used[i]) {
+                visitor.visit(keys[i], values[i]);
+            }
+        }
+    }
+
+    /**
+     * Checks whether both maps have the same keys with the same values.
+     */
+    boolean matches(IntLongMap other) {
+        if (size != other.size) {
+            return false;
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (used[i] && (!other.containsKey(keys[i]) || other.get(keys[i]) != values[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int slotOf(int key) {
+        int mask = keys.length - 1;
+        int slot = home(key, mask);
+        while (used[slot] && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int home(int key, int mask) {
+        int hash = key * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        long[] oldValues = values;
+        boolean[] oldUsed = used;
+        keys = new int[oldKeys.length * 2];
+        values = new long[oldKeys.length * 2];
+        used = new boolean[oldKeys.length * 2];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+}
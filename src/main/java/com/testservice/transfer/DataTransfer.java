@@ -0,0 +1,463 @@
+package com.testservice.transfer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.SqlTypeValue;
+import org.springframework.jdbc.core.StatementCreatorUtils;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.testservice.datasource.ShardRouting;
+import com.testservice.domain.ImportStatistics;
+import com.testservice.membership.EntityMembership;
+import com.testservice.replica.ColumnarReplica;
+import com.testservice.search.EntitySearch;
+import com.testservice.stats.EntityStatistics;
+
+/**
+ * DataTransfer moves authors, books and change logs in bulk as newline-delimited JSON, one row per line (see
+ * {@link TransferTable}). Export reads every table from the primary database with a forward-only, read-only cursor
+ * and writes rows to the stream as they are fetched; MySQL streams rows one by one unless the URL enables server side
+ * cursors with 'useCursorFetch=true'. Import parses the stream row by row, groups rows of a table into
+ * chunks of 'transfer.batchSize' and writes every chunk as one JDBC batch in its own transaction on one of
+ * 'transfer.writers' parallel writers; identifiers of rows are preserved and decide the shard of every row. Only one
+ * import runs at a time.
+ * <p>
+ * Imported rows are not published as {@link com.testservice.event.EntityChangedEvent}s, statistics, search indexes,
+ * the columnar replica and identifier filters are reloaded after the import instead.
+ *
+ * @author taras
+ *
+ */
+@Component
+public class DataTransfer {
+
+    private static final Logger LOGGER = Logger.getLogger(DataTransfer.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ShardRouting shards;
+
+    @Autowired
+    private EntityStatistics entityStatistics;
+
+    @Autowired
+    private EntitySearch entitySearch;
+
+    @Autowired
+    private ColumnarReplica columnarReplica;
+
+    @Autowired
+    private EntityMembership entityMembership;
+
+    @Value("${transfer.fetchSize:1000}")
+    private int fetchSize;
+
+    @Value("${transfer.batchSize:5000}")
+    private int batchSize;
+
+    @Value("${transfer.writers:4}")
+    private int writers;
+
+    @Value("${transfer.progressRows:100000}")
+    private long progressRows;
+
+    private final JsonFactory jsonFactory = new JsonFactory()
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+            .disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+
+    private final AtomicBoolean importing = new AtomicBoolean();
+
+    /**
+     * Writes rows of authors and books, and optionally of change logs, to the stream.
+     *
+     * @param out stream of the response
+     * @param logs whether AuthorLogs and BookLogs should be exported
+     * @throws IOException if the stream cannot be written, e.g. the client has disconnected
+     */
+    public void export(OutputStream out, boolean logs) throws IOException {
+        long start = System.nanoTime();
+        long rows = 0;
+        try (JsonGenerator generator = jsonFactory.createGenerator(out)) {
+            generator.setRootValueSeparator(null);
+            for (TransferTable table : TransferTable.values()) {
+                if (logs || !table.isLog()) {
+                    rows += export(table, generator);
+                }
+            }
+        }
+        LOGGER.info("Exported rows: " + rows + " in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+                + " ms");
+    }
+
+    private long export(TransferTable table, JsonGenerator generator) throws IOException {
+        AtomicLong rows = new AtomicLong();
+        PreparedStatementCreator select = connection -> {
+            PreparedStatement statement = connection.prepareStatement(table.getSelectSql(),
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize(connection));
+            return statement;
+        };
+        RowCallbackHandler writer = resultSet -> {
+            try {
+                write(table, resultSet, generator);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            rows.incrementAndGet();
+        };
+        try {
+            // shards are exported in turn, so rows stay in identifier order
+            for (int shard = 0; shard < shards.getShardCount(); shard++) {
+                shards.on(shard, () -> jdbcTemplate.query(select, writer));
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return rows.get();
+    }
+
+    /**
+     * MySQL Connector/J reads the whole result into memory unless the fetch size is {@link Integer#MIN_VALUE}, which
+     * streams rows one by one, or server side cursors are enabled by 'useCursorFetch=true', which fetch 'fetchSize'
+     * rows per round trip.
+     */
+    private int fetchSize(Connection connection) throws SQLException {
+        String url = connection.getMetaData().getURL();
+        if (url != null && url.startsWith("jdbc:mysql:") && !url.contains("useCursorFetch=true")) {
+            return Integer.MIN_VALUE;
+        }
+        return fetchSize;
+    }
+
+    private static void write(TransferTable table, ResultSet resultSet, JsonGenerator generator)
+            throws IOException, SQLException {
+        generator.writeStartObject();
+        generator.writeStringField(TransferTable.TABLE_FIELD, table.getTable());
+        List<String> columns = table.getColumns();
+        for (int i = 0; i < columns.size(); i++) {
+            Object value = resultSet.getObject(i + 1);
+            generator.writeFieldName(columns.get(i));
+            if (value == null) {
+                generator.writeNull();
+            } else if (value instanceof Double || value instanceof Float) {
+                generator.writeNumber(((Number) value).doubleValue());
+            } else if (value instanceof BigDecimal) {
+                generator.writeNumber((BigDecimal) value);
+            } else if (value instanceof Number) {
+                generator.writeNumber(((Number) value).longValue());
+            } else {
+                generator.writeString(value.toString());
+            }
+        }
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    /**
+     * Reads rows from the stream and inserts them into their tables. Rows read before malformed input or rows rejected
+     * by the database, e.g. duplicate identifiers, are committed and the error is reported in the result.
+     *
+     * @param in stream of the request
+     * @return number of imported rows per table or null if another import is running
+     * @throws IOException if the stream cannot be read
+     * @throws org.springframework.dao.DataAccessException if a batch cannot be written, batches written before are
+     *             committed
+     */
+    public ImportStatistics importRows(InputStream in) throws IOException {
+        if (!importing.compareAndSet(false, true)) {
+            return null;
+        }
+        try {
+            ImportStatistics statistics = new Import().run(in);
+            LOGGER.info("Import finished: " + statistics);
+            if (statistics.getBatches() > 0) {
+                CompletableFuture.runAsync(() -> {
+                    entityStatistics.reconcile();
+                    entitySearch.rebuild();
+                    columnarReplica.rebuild();
+                    entityMembership.rebuild();
+                });
+            }
+            return statistics;
+        } finally {
+            importing.set(false);
+        }
+    }
+
+    /**
+     * State of one import: the parser thread fills chunks and hands them to writers; at most two chunks per writer
+     * wait in the queue, so memory use does not depend on the size of the input.
+     */
+    private final class Import {
+
+        private final AtomicInteger threads = new AtomicInteger();
+        private final ExecutorService executor = Executors.newFixedThreadPool(writers, runnable -> {
+            Thread thread = new Thread(runnable, "import-writer-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        private final Semaphore slots = new Semaphore(writers * 2);
+        private final AtomicReference<DataAccessException> failure = new AtomicReference<>();
+        private final Map<TransferTable, LongAdder> rows = new EnumMap<>(TransferTable.class);
+        private final LongAdder batches = new LongAdder();
+        private final AtomicLong written = new AtomicLong();
+
+        Import() {
+            for (TransferTable table : TransferTable.values()) {
+                rows.put(table, new LongAdder());
+            }
+        }
+
+        ImportStatistics run(InputStream in) throws IOException {
+            long start = System.nanoTime();
+            String error = null;
+            Map<Integer, Chunk> chunks = new HashMap<>();
+            try (JsonParser parser = jsonFactory.createParser(in)) {
+                JsonToken token;
+                while ((token = parser.nextToken()) != null && failure.get() == null) {
+                    if (token != JsonToken.START_OBJECT) {
+                        throw new LineException(parser, "row should be a JSON object");
+                    }
+                    Chunk chunk = read(parser, chunks);
+                    if (chunk.rows.size() >= batchSize) {
+                        submit(chunk.table, chunk.shard, chunk.take());
+                    }
+                }
+            } catch (JsonProcessingException e) {
+                error = e.getOriginalMessage() + " at line " + e.getLocation().getLineNr();
+            } catch (LineException e) {
+                error = e.getMessage();
+            } finally {
+                // rows read before malformed input are committed too
+                for (Chunk chunk : chunks.values()) {
+                    if (!chunk.rows.isEmpty()) {
+                        submit(chunk.table, chunk.shard, chunk.take());
+                    }
+                }
+                awaitWriters();
+            }
+            DataAccessException failed = failure.get();
+            if (failed instanceof DataIntegrityViolationException) {
+                error = "rows rejected by the database: " + failed.getMostSpecificCause().getMessage();
+            } else if (failed != null) {
+                throw failed;
+            }
+            Map<String, Long> imported = new LinkedHashMap<>();
+            for (Map.Entry<TransferTable, LongAdder> table : rows.entrySet()) {
+                imported.put(table.getKey().getTable(), table.getValue().sum());
+            }
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            return new ImportStatistics(imported, batches.sum(), millis, written.get() * 1000 / Math.max(1, millis),
+                    error);
+        }
+
+        /**
+         * Reads one row and adds it to the chunk of its table. The table field is expected first, other fields seen
+         * before it are kept aside.
+         */
+        private Chunk read(JsonParser parser, Map<Integer, Chunk> chunks) throws IOException {
+            TransferTable table = null;
+            Object[] values = null;
+            Map<String, Object> pending = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                if (TransferTable.TABLE_FIELD.equals(name)) {
+                    table = TransferTable.forName(parser.getText());
+                    if (table == null) {
+                        throw new LineException(parser, "unknown table '" + parser.getText() + "'");
+                    }
+                    values = new Object[table.getColumns().size()];
+                    if (pending != null) {
+                        for (Map.Entry<String, Object> field : pending.entrySet()) {
+                            set(parser, table, values, field.getKey(), field.getValue());
+                        }
+                    }
+                } else if (table != null) {
+                    set(parser, table, values, name, value(parser, token));
+                } else {
+                    if (pending == null) {
+                        pending = new HashMap<>();
+                    }
+                    pending.put(name, value(parser, token));
+                }
+            }
+            if (table == null) {
+                throw new LineException(parser, "row has no '" + TransferTable.TABLE_FIELD + "' field");
+            }
+            int shard = shardOf(parser, table, values);
+            TransferTable chunkTable = table;
+            Chunk chunk = chunks.computeIfAbsent(table.ordinal() * shards.getShardCount() + shard,
+                    key -> new Chunk(chunkTable, shard));
+            chunk.rows.add(values);
+            return chunk;
+        }
+
+        private int shardOf(JsonParser parser, TransferTable table, Object[] values) {
+            if (shards.getShardCount() == 1) {
+                return 0;
+            }
+            Object id = values[table.getShardColumn()];
+            if (!(id instanceof Number)) {
+                throw new LineException(parser, "'" + table.getColumns().get(table.getShardColumn())
+                        + "' of " + table.getTable() + " is required to find its shard");
+            }
+            return shards.shardOf(((Number) id).intValue());
+        }
+
+        private void set(JsonParser parser, TransferTable table, Object[] values, String column, Object value) {
+            int index = table.indexOf(column);
+            if (index < 0) {
+                throw new LineException(parser, "unknown column '" + column + "' of " + table.getTable());
+            }
+            values[index] = value;
+        }
+
+        private Object value(JsonParser parser, JsonToken token) throws IOException {
+            switch (token) {
+            case VALUE_STRING:
+                return parser.getText();
+            case VALUE_NUMBER_INT:
+                return parser.getNumberValue();
+            case VALUE_NUMBER_FLOAT:
+                return parser.getDoubleValue();
+            case VALUE_TRUE:
+            case VALUE_FALSE:
+                return parser.getBooleanValue();
+            case VALUE_NULL:
+                return null;
+            default:
+                throw new LineException(parser, "value of '" + parser.getCurrentName() + "' should be scalar");
+            }
+        }
+
+        private void submit(TransferTable table, int shard, List<Object[]> chunk) {
+            slots.acquireUninterruptibly();
+            executor.execute(() -> {
+                try {
+                    if (failure.get() == null) {
+                        shards.on(shard, () -> write(table, chunk));
+                    }
+                } catch (DataAccessException e) {
+                    LOGGER.error("Unable to import batch of " + table.getTable(), e);
+                    failure.compareAndSet(null, e);
+                } finally {
+                    slots.release();
+                }
+            });
+        }
+
+        private void write(TransferTable table, List<Object[]> chunk) {
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                boolean autoCommit = connection.getAutoCommit();
+                connection.setAutoCommit(false);
+                try (PreparedStatement statement = connection.prepareStatement(table.getInsertSql())) {
+                    for (Object[] values : chunk) {
+                        for (int i = 0; i < values.length; i++) {
+                            StatementCreatorUtils.setParameterValue(statement, i + 1, SqlTypeValue.TYPE_UNKNOWN,
+                                    values[i]);
+                        }
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                    connection.commit();
+                } catch (SQLException | RuntimeException e) {
+                    connection.rollback();
+                    throw e;
+                } finally {
+                    connection.setAutoCommit(autoCommit);
+                }
+                return null;
+            });
+            rows.get(table).add(chunk.size());
+            batches.increment();
+            long total = written.addAndGet(chunk.size());
+            if (total / progressRows > (total - chunk.size()) / progressRows) {
+                LOGGER.info("Imported rows: " + total);
+            }
+        }
+
+        private void awaitWriters() {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Rows of a table read for one shard and not handed to a writer yet.
+     */
+    private final class Chunk {
+
+        private final TransferTable table;
+        private final int shard;
+        private List<Object[]> rows = new ArrayList<>(batchSize);
+
+        Chunk(TransferTable table, int shard) {
+            this.table = table;
+            this.shard = shard;
+        }
+
+        List<Object[]> take() {
+            List<Object[]> taken = rows;
+            rows = new ArrayList<>(batchSize);
+            return taken;
+        }
+    }
+
+    /**
+     * Malformed row, the message names its line.
+     */
+    private static final class LineException extends IllegalArgumentException {
+
+        private static final long serialVersionUID = 1L;
+
+        LineException(JsonParser parser, String message) {
+            super(message + " at line " + parser.getCurrentLocation().getLineNr());
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.testservice.transfer;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tables moved by {@link DataTransfer} with their columns. Every NDJSON line is one row: an object with the table name
+ * in 'table' field and the columns as fields, e.g. {"table":"Book","id":1,"name":"...","year":2000,"authorId":1}.
+ *
+ * @author taras
+ *
+ */
+enum TransferTable {
+
+    AUTHOR("Author", "id", "id", "firstName", "lastName", "age", "salary"),
+    BOOK("Book", "id", "id", "name", "year", "authorId"),
+    AUTHOR_LOGS("AuthorLogs", "authorId", "id", "authorId", "firstName", "lastName"),
+    BOOK_LOGS("BookLogs", "bookId", "id", "bookId", "name");
+
+    static final String TABLE_FIELD = "table";
+
+    private final String table;
+    private final List<String> columns;
+    private final int shardColumn;
+    private final String selectSql;
+    private final String insertSql;
+
+    TransferTable(String table, String shardColumn, String... columns) {
+        this.table = table;
+        this.columns = Collections.unmodifiableList(Arrays.asList(columns));
+        this.shardColumn = this.columns.indexOf(shardColumn);
+        String list = String.join(", ", columns);
+        this.selectSql = "select " + list + " from " + table + " order by id";
+        this.insertSql = "insert into " + table + " (" + list + ") values ("
+                + String.join(", ", Collections.nCopies(columns.length, "?")) + ")";
+    }
+
+    String getTable() {
+        return table;
+    }
+
+    List<String> getColumns() {
+        return columns;
+    }
+
+    /**
+     * @return index of the column or -1 if the table has no such column
+     */
+    int indexOf(String column) {
+        return columns.indexOf(column);
+    }
+
+    /**
+     * @return index of the column with the identifier of the author or the book, which decides the shard of a row
+     */
+    int getShardColumn() {
+        return shardColumn;
+    }
+
+    /**
+     * @return true for tables of change logs, which are exported on request only
+     */
+    boolean isLog() {
+        return this == AUTHOR_LOGS || this == BOOK_LOGS;
+    }
+
+    String getSelectSql() {
+        return selectSql;
+    }
+
+    /**
+     * @return insert statement of all columns, identifiers of rows are preserved
+     */
+    String getInsertSql() {
+        return insertSql;
+    }
+
+    /**
+     * @return table with the name or null if it is not transferred
+     */
+    static TransferTable forName(String table) {
+        for (TransferTable value : values()) {
+            if (value.table.equals(table)) {
+                return value;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,311 @@
+package com.testservice.warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import org.apache.commons.dbcp.BasicDataSource;
+import org.apache.log4j.Logger;
+import org.glassfish.jersey.internal.MapPropertiesDelegate;
+import org.glassfish.jersey.server.ApplicationHandler;
+import org.glassfish.jersey.server.ContainerRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.testservice.datasource.ReadWriteRoutingDataSource;
+import com.testservice.datasource.ShardedDataSource;
+import com.testservice.domain.User;
+import com.testservice.domain.WarmUpStatistics;
+import com.testservice.metrics.RequestRecording;
+import com.testservice.provider.BinaryMediaType;
+import com.testservice.schema.SchemaMigrator;
+import com.testservice.service.TokenService;
+
+/**
+ * WarmUp prepares the service for traffic after startup. It fills connection pools of the primary and replica
+ * databases to their minimum idle size, prepares the SQL statements of the services on each pooled connection, so
+ * the pools cache them, and sends representative read requests in every supported media type through Jersey in
+ * memory, so row mappers, message body writers and the JIT are warm before the first client request. The service
+ * reports readiness when the warm-up has finished; a failed warm-up is logged and does not keep the service unready.
+ *
+ * @author taras
+ *
+ */
+@Component
+public class WarmUp {
+
+    /**
+     * Parameterized statements of AuthorService, BookService and UserService. Statements without parameters run as
+     * plain statements and the pools do not cache statements returning generated keys, so inserts of books and
+     * authors are not listed.
+     */
+    private static final List<String> STATEMENTS = Arrays.asList(
+            "select * from Author where id=?",
+            "update Author set firstName=?, lastName=?, age=?, salary=? where id=?",
+            "delete from Author where id=?",
+            "insert into AuthorLogs (authorId, firstName, lastName) values (?, ?, ?)",
+            "select * from Book where id=?",
+            "select * from Book where authorId=?",
+            "update Book set name=?, year=?, authorId=? where id=?",
+            "delete from Book where id=?",
+            "insert into BookLogs (bookId, name) values (?, ?)",
+            "select * from User where name=? and password=?");
+
+    private static final List<String> PATHS = Arrays.asList(
+            "books/%2$d", "authors/%1$d", "authors/%1$d/books", "books/stats", "authors/stats",
+            "books/search?q=a", "authors/search?q=a");
+
+    private static final List<String> MEDIA_TYPES = Arrays.asList(MediaType.APPLICATION_JSON,
+            MediaType.APPLICATION_XML, BinaryMediaType.APPLICATION_SMILE, BinaryMediaType.APPLICATION_CBOR);
+
+    private static final URI BASE_URI = URI.create("http://localhost/");
+
+    /** Marks requests sent by the warm-up, they are neither recorded by the statistics nor logged. */
+    private static final String REQUEST_PROPERTY = WarmUp.class.getName() + ".request";
+
+    private static final Logger LOGGER = Logger.getLogger(WarmUp.class);
+
+    @Autowired
+    private ShardedDataSource shardedDataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SchemaMigrator schemaMigrator;
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private RequestRecording requestRecording;
+
+    @Value("${warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${warmup.iterations:20}")
+    private int iterations;
+
+    @Value("${warmup.timeoutSeconds:60}")
+    private int timeoutSeconds;
+
+    private final CompletableFuture<WarmUpStatistics> completion = new CompletableFuture<>();
+
+    /**
+     * Starts the warm-up in background. It waits for the schema migration first.
+     *
+     * @param application handler of the Jersey application which receives warm-up requests
+     */
+    public void start(ApplicationHandler application) {
+        Thread thread = new Thread(() -> run(application), "warm-up");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Checks whether the service is ready for traffic.
+     *
+     * @return true if the schema is migrated and the warm-up has finished
+     */
+    public boolean isReady() {
+        return completion.isDone();
+    }
+
+    /**
+     * @return result of the warm-up or null if it has not finished yet
+     */
+    public WarmUpStatistics getStatistics() {
+        return completion.getNow(null);
+    }
+
+    /**
+     * Waits until the warm-up has finished.
+     */
+    public void awaitCompletion() {
+        completion.join();
+    }
+
+    /**
+     * Checks whether the request is sent by the warm-up. Warm-up requests are marked by a property of the in-memory
+     * request, clients cannot set it.
+     *
+     * @param requestContext the request
+     * @return true if the request is sent by the warm-up
+     */
+    public static boolean isWarmUpRequest(ContainerRequestContext requestContext) {
+        return requestContext.getProperty(REQUEST_PROPERTY) != null;
+    }
+
+    private void run(ApplicationHandler application) {
+        WarmUpStatistics statistics = new WarmUpStatistics();
+        // neither the warm-up thread nor the requests it sends are recorded
+        requestRecording.bind(false);
+        try {
+            schemaMigrator.awaitCompletion();
+            if (enabled) {
+                long start = System.nanoTime();
+                long deadline = start + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+                fillPools(statistics);
+                sendRequests(application, statistics, deadline);
+                statistics.setDurationMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                LOGGER.info(report(statistics));
+            } else {
+                LOGGER.info("warm-up is disabled");
+            }
+        } catch (RuntimeException e) {
+            LOGGER.error("Warm-up has failed", e);
+        } finally {
+            completion.complete(statistics);
+        }
+    }
+
+    /**
+     * Borrows the minimum idle number of connections from every pool of every shard at once, prepares the statements
+     * on each of them and returns them to the pool.
+     */
+    private void fillPools(WarmUpStatistics statistics) {
+        List<BasicDataSource> pools = new ArrayList<>();
+        for (ReadWriteRoutingDataSource shard : shardedDataSource.getShards()) {
+            pools.add(shard.getPrimary());
+            pools.addAll(shard.getReplicas());
+        }
+        for (BasicDataSource pool : pools) {
+            List<Connection> connections = new ArrayList<>();
+            try {
+                for (int i = 0; i < Math.max(1, pool.getMinIdle()); i++) {
+                    connections.add(pool.getConnection());
+                }
+                for (Connection connection : connections) {
+                    statistics.setStatements(statistics.getStatements() + prepare(connection));
+                }
+            } catch (SQLException e) {
+                LOGGER.warn("Unable to fill connection pool of " + pool.getUrl() + ": " + e.getMessage());
+            } finally {
+                statistics.setConnections(statistics.getConnections() + connections.size());
+                for (Connection connection : connections) {
+                    try {
+                        connection.close();
+                    } catch (SQLException e) {
+                        LOGGER.debug("Unable to return connection to the pool", e);
+                    }
+                }
+            }
+        }
+    }
+
+    private static int prepare(Connection connection) {
+        int prepared = 0;
+        for (String sql : STATEMENTS) {
+            try {
+                // closing a pooled statement returns it to the statement pool of the connection
+                connection.prepareStatement(sql).close();
+                prepared++;
+            } catch (SQLException e) {
+                LOGGER.warn("Unable to prepare statement '" + sql + "': " + e.getMessage());
+            }
+        }
+        return prepared;
+    }
+
+    /**
+     * Sends read requests with a temporary principal till the number of iterations or the deadline is reached. Every
+     * iteration also sends a request with unknown credentials to warm up authentication. Latency of the first and the
+     * last run of every request is recorded.
+     */
+    private void sendRequests(ApplicationHandler application, WarmUpStatistics statistics, long deadline) {
+        int authorId = firstId("select min(id) from Author");
+        int bookId = firstId("select min(id) from Book");
+        String token = UUID.randomUUID().toString();
+        User user = new User("warm-up", token, "user");
+        String unknownCredentials = Base64.getEncoder().encodeToString(
+                ("warm-up:" + UUID.randomUUID()).getBytes(StandardCharsets.UTF_8));
+        Map<String, Long> cold = new LinkedHashMap<>();
+        Map<String, Long> warm = new LinkedHashMap<>();
+        try {
+            for (int iteration = 0; iteration < iterations && System.nanoTime() < deadline; iteration++) {
+                // tokens expire, the principal is cached again on every iteration
+                tokenService.put(token, user);
+                for (String path : PATHS) {
+                    String uri = String.format(path, authorId, bookId);
+                    String endpoint = "GET /" + path.replaceAll("%\\d\\$d", "{id}");
+                    for (String mediaType : MEDIA_TYPES) {
+                        send(application, uri, mediaType, token, endpoint + " " + mediaType, statistics, cold, warm);
+                    }
+                }
+                send(application, "books/stats", MediaType.APPLICATION_JSON, unknownCredentials,
+                        "GET /books/stats unauthenticated", statistics, cold, warm);
+            }
+        } finally {
+            tokenService.remove(token);
+        }
+        statistics.setColdLatencyMicros(cold);
+        statistics.setWarmLatencyMicros(warm);
+    }
+
+    private int firstId(String sql) {
+        Integer id = jdbcTemplate.queryForObject(sql, Integer.class);
+        return id == null ? 1 : id;
+    }
+
+    private static void send(ApplicationHandler application, String uri, String mediaType, String token, String key,
+            WarmUpStatistics statistics, Map<String, Long> cold, Map<String, Long> warm) {
+        ContainerRequest request = new ContainerRequest(BASE_URI, BASE_URI.resolve(uri), "GET", null,
+                new MapPropertiesDelegate());
+        request.header(HttpHeaders.ACCEPT, mediaType);
+        request.header(HttpHeaders.AUTHORIZATION, "Basic " + token);
+        request.setProperty(REQUEST_PROPERTY, Boolean.TRUE);
+        long start = System.nanoTime();
+        int status;
+        try {
+            status = application.apply(request, new ByteArrayOutputStream()).get().getStatus();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Warm-up has been interrupted", e);
+        } catch (ExecutionException e) {
+            LOGGER.debug("Warm-up request " + uri + " has failed", e.getCause());
+            status = Response.Status.INTERNAL_SERVER_ERROR.getStatusCode();
+        }
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+        cold.putIfAbsent(key, micros);
+        warm.put(key, micros);
+        statistics.setRequests(statistics.getRequests() + 1);
+        if (status >= Response.Status.INTERNAL_SERVER_ERROR.getStatusCode()) {
+            statistics.setFailedRequests(statistics.getFailedRequests() + 1);
+        }
+    }
+
+    private static String report(WarmUpStatistics statistics) {
+        StringBuilder out = new StringBuilder("Warm-up finished in ").append(statistics.getDurationMillis())
+                .append(" ms: ").append(statistics.getConnections()).append(" connections, ")
+                .append(statistics.getStatements()).append(" prepared statements, ")
+                .append(statistics.getRequests()).append(" requests (").append(statistics.getFailedRequests())
+                .append(" failed)");
+        if (statistics.getColdLatencyMicros() != null) {
+            out.append("\n  latency of the first and the last request:");
+            for (Map.Entry<String, Long> cold : statistics.getColdLatencyMicros().entrySet()) {
+                out.append("\n    ").append(cold.getKey()).append(": ").append(cold.getValue()).append(" us -> ")
+                   .append(statistics.getWarmLatencyMicros().get(cold.getKey())).append(" us");
+            }
+        }
+        return out.toString();
+    }
+}
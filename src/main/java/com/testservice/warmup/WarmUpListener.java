@@ -0,0 +1,37 @@
+package com.testservice.warmup;
+
+import javax.ws.rs.ext.Provider;
+
+import org.glassfish.jersey.server.spi.Container;
+import org.glassfish.jersey.server.spi.ContainerLifecycleListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.context.support.SpringBeanAutowiringSupport;
+
+/**
+ * Starts the {@link WarmUp} when the Jersey application is initialized.
+ * 
+ * @author taras
+ *
+ */
+@Provider
+public class WarmUpListener implements ContainerLifecycleListener {
+
+    @Autowired
+    private WarmUp warmUp;
+
+    @Override
+    public void onStartup(Container container) {
+        SpringBeanAutowiringSupport.processInjectionBasedOnCurrentContext(this);
+        warmUp.start(container.getApplicationHandler());
+    }
+
+    @Override
+    public void onReload(Container container) {
+        // the application is warmed up once
+    }
+
+    @Override
+    public void onShutdown(Container container) {
+        // nothing to release
+    }
+}
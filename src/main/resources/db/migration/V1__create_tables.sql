@@ -0,0 +1,39 @@
+create table if not exists Author (
+    id int not null auto_increment,
+    firstName varchar(100),
+    lastName varchar(100),
+    age int not null default 0,
+    salary double not null default 0,
+    primary key (id)
+);
+
+create table if not exists Book (
+    id int not null auto_increment,
+    name varchar(255),
+    year int not null default 0,
+    authorId int not null default 0,
+    primary key (id)
+);
+
+create table if not exists User (
+    id int not null auto_increment,
+    name varchar(100) not null,
+    password varchar(100) not null,
+    role varchar(50) not null,
+    primary key (id)
+);
+
+create table if not exists AuthorLogs (
+    id int not null auto_increment,
+    authorId int not null,
+    firstName varchar(100),
+    lastName varchar(100),
+    primary key (id)
+);
+
+create table if not exists BookLogs (
+    id int not null auto_increment,
+    bookId int not null,
+    name varchar(255),
+    primary key (id)
+);
@@ -0,0 +1,9 @@
+-- BookService.getBooksByAuthor: 'select * from Book where authorId=?' is answered from the index alone
+create index Book_authorId_idx on Book (authorId, name, year);
+
+-- UserService.load: 'select * from User where name=? and password=?' is answered from the index alone
+create index User_name_password_idx on User (name, password, role);
+
+create index AuthorLogs_authorId_idx on AuthorLogs (authorId);
+
+create index BookLogs_bookId_idx on BookLogs (bookId);
@@ -0,0 +1,115 @@
+package com.testservice.datasource;
+
+import static org.junit.Assert.assertEquals;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.testservice.config.RootApplicationContextConfiguration;
+import com.testservice.domain.Author;
+import com.testservice.service.AuthorService;
+
+/**
+ * Routes calls of the application context between two in-memory H2 databases: the primary database migrated at
+ * startup and a replica which has a different first name for author 1, so every read shows where it went.
+ * 
+ * @author taras
+ *
+ */
+public class ReadWriteRoutingDataSourceTest {
+
+    private static final String PRIMARY_URL = "jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1;MODE=MySQL";
+    private static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1;MODE=MySQL";
+    private static final long STICKY_WINDOW_MILLIS = 1000;
+
+    private static final String[][] PROPERTIES = {
+        { "jdbc.driverClassName", "org.h2.Driver" },
+        { "jdbc.url", PRIMARY_URL },
+        { "jdbc.username", "sa" },
+        { "jdbc.password", "" },
+        { "jdbc.minIdle", "0" },
+        { "jdbc.replica.urls", REPLICA_URL },
+        { "jdbc.replica.stickyWindowMillis", String.valueOf(STICKY_WINDOW_MILLIS) } };
+
+    private static AnnotationConfigApplicationContext context;
+    private static DataSourceRouting routing;
+    private static AuthorService authorService;
+
+    @BeforeClass
+    public static void startContext() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(REPLICA_URL, "sa", "");
+                Statement statement = connection.createStatement()) {
+            statement.execute("create table Author (id int not null auto_increment, firstName varchar(100), "
+                    + "lastName varchar(100), age int not null default 0, salary double not null default 0, "
+                    + "primary key (id))");
+            statement.execute("insert into Author (firstName, lastName) values ('Replica', 'Author')");
+        }
+        for (String[] property : PROPERTIES) {
+            System.setProperty(property[0], property[1]);
+        }
+        context = new AnnotationConfigApplicationContext(RootApplicationContextConfiguration.class);
+        routing = context.getBean(DataSourceRouting.class);
+        authorService = context.getBean(AuthorService.class);
+
+        Author author = new Author();
+        author.setFirstName("Primary");
+        author.setLastName("Author");
+        assertEquals(1, authorService.save(author).getId());
+    }
+
+    @AfterClass
+    public static void closeContext() {
+        context.close();
+        for (String[] property : PROPERTIES) {
+            System.clearProperty(property[0]);
+        }
+    }
+
+    @After
+    public void unbindPrincipal() {
+        routing.setPrincipal(null);
+    }
+
+    @Test
+    public void readsGoToReplica() {
+        routing.setPrincipal("reader");
+        assertEquals("Replica", authorService.load(1).getFirstName());
+        assertEquals("Replica", authorService.loadAll().get(0).getFirstName());
+    }
+
+    @Test
+    public void callsOutsideReadOnlyGoToPrimary() {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        String sql = "select firstName from Author where id=1";
+        assertEquals("Primary", jdbcTemplate.queryForObject(sql, String.class));
+        assertEquals("Replica", routing.readOnly(() -> jdbcTemplate.queryForObject(sql, String.class)));
+    }
+
+    @Test
+    public void readsOfWriterStayOnPrimaryDuringStickyWindow() throws InterruptedException {
+        routing.setPrincipal("writer");
+        Author author = new Author();
+        author.setFirstName("Written");
+        author.setLastName("Author");
+        int id = authorService.save(author).getId();
+
+        assertEquals("Primary", authorService.load(1).getFirstName());
+        assertEquals("Written", authorService.load(id).getFirstName());
+
+        routing.setPrincipal("reader");
+        assertEquals("Replica", authorService.load(1).getFirstName());
+
+        Thread.sleep(STICKY_WINDOW_MILLIS + 100);
+        routing.setPrincipal("writer");
+        assertEquals("Replica", authorService.load(1).getFirstName());
+    }
+}
@@ -0,0 +1,170 @@
+package com.testservice.datasource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import com.testservice.config.RootApplicationContextConfiguration;
+import com.testservice.domain.Author;
+import com.testservice.domain.Book;
+import com.testservice.service.AuthorService;
+import com.testservice.service.BookService;
+
+/**
+ * Shards authors and books of the application context over two in-memory H2 databases with identifier range 1000.
+ * 
+ * @author taras
+ *
+ */
+public class ShardedDataSourceTest {
+
+    private static final String[] SHARD_URLS = {
+        "jdbc:h2:mem:shard-0;DB_CLOSE_DELAY=-1;MODE=MySQL",
+        "jdbc:h2:mem:shard-1;DB_CLOSE_DELAY=-1;MODE=MySQL" };
+    private static final int ID_RANGE = 1000;
+
+    private static final String[][] PROPERTIES = {
+        { "jdbc.driverClassName", "org.h2.Driver" },
+        { "jdbc.url", SHARD_URLS[0] },
+        { "jdbc.username", "sa" },
+        { "jdbc.password", "" },
+        { "jdbc.minIdle", "0" },
+        { "jdbc.shard.urls", SHARD_URLS[1] },
+        { "jdbc.shard.idRange", String.valueOf(ID_RANGE) } };
+
+    private static AnnotationConfigApplicationContext context;
+    private static ShardRouting shards;
+    private static AuthorService authorService;
+    private static BookService bookService;
+
+    @BeforeClass
+    public static void startContext() {
+        for (String[] property : PROPERTIES) {
+            System.setProperty(property[0], property[1]);
+        }
+        context = new AnnotationConfigApplicationContext(RootApplicationContextConfiguration.class);
+        shards = context.getBean(ShardRouting.class);
+        authorService = context.getBean(AuthorService.class);
+        bookService = context.getBean(BookService.class);
+    }
+
+    @AfterClass
+    public static void closeContext() {
+        context.close();
+        for (String[] property : PROPERTIES) {
+            System.clearProperty(property[0]);
+        }
+    }
+
+    @Test
+    public void newAuthorsGetIdentifiersFromRangesOfAllShards() throws SQLException {
+        Author first = saveAuthor("First");
+        Author second = saveAuthor("Second");
+        assertTrue(shards.shardOf(first.getId()) != shards.shardOf(second.getId()));
+        for (Author author : new Author[] { first, second }) {
+            int shard = shards.shardOf(author.getId());
+            assertTrue(author.getId() >= shard * ID_RANGE + 1 && author.getId() <= (shard + 1) * ID_RANGE);
+            String sql = "select firstName from Author where id=?";
+            assertEquals(author.getFirstName(), select(shard, sql, author.getId()));
+            assertNull(select(1 - shard, sql, author.getId()));
+        }
+    }
+
+    @Test
+    public void booksLiveOnShardOfTheirAuthor() throws SQLException {
+        for (int shard = 0; shard < SHARD_URLS.length; shard++) {
+            Author author = saveAuthorOn(shard);
+            Book book = saveBook("Book of shard " + shard, author.getId());
+            assertEquals(shard, shards.shardOf(book.getId()));
+            assertEquals(book.getName(), select(shard, "select name from Book where id=?", book.getId()));
+            assertEquals(book.getName(), bookService.load(book.getId()).getName());
+            assertEquals(book.getId(), bookService.getBooksByAuthor(author.getId()).get(0).getId());
+        }
+    }
+
+    @Test
+    public void bookIsNotMovedToAuthorOnAnotherShard() throws SQLException {
+        Author author = saveAuthorOn(0);
+        Author other = saveAuthorOn(1);
+        Book book = saveBook("Unmoved", author.getId());
+        book.setAuthorId(other.getId());
+        try {
+            bookService.update(book);
+            fail("Book is moved to another shard");
+        } catch (DataIntegrityViolationException e) {
+            // BookResource answers HTTP_STATUS 409
+        }
+        assertEquals(String.valueOf(author.getId()), select(0, "select authorId from Book where id=?", book.getId()));
+    }
+
+    @Test
+    public void loadAllMergesShardsInIdentifierOrder() {
+        saveAuthorOn(1);
+        saveAuthorOn(0);
+        saveAuthorOn(1);
+        List<Author> authors = authorService.loadAll();
+        boolean[] seen = new boolean[SHARD_URLS.length];
+        for (int i = 0; i < authors.size(); i++) {
+            seen[shards.shardOf(authors.get(i).getId())] = true;
+            if (i > 0) {
+                assertTrue(authors.get(i - 1).getId() < authors.get(i).getId());
+            }
+        }
+        assertTrue(seen[0] && seen[1]);
+    }
+
+    private static Author saveAuthor(String firstName) {
+        Author author = new Author();
+        author.setFirstName(firstName);
+        author.setLastName("Author");
+        return authorService.save(author);
+    }
+
+    /**
+     * Saves authors till one lands on the shard, authors are spread round-robin.
+     */
+    private static Author saveAuthorOn(int shard) {
+        for (int i = 0; i < SHARD_URLS.length; i++) {
+            Author author = saveAuthor("Shard " + shard);
+            if (shards.shardOf(author.getId()) == shard) {
+                return author;
+            }
+        }
+        throw new AssertionError("No author is saved on shard " + shard);
+    }
+
+    private static Book saveBook(String name, int authorId) {
+        Book book = new Book();
+        book.setName(name);
+        book.setYear(2000);
+        book.setAuthorId(authorId);
+        return bookService.save(book);
+    }
+
+    /**
+     * Reads a value of the row straight from the database of the shard.
+     */
+    private static String select(int shard, String sql, int id) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(SHARD_URLS[shard], "sa", "");
+                PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setInt(1, id);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() ? rs.getString(1) : null;
+            }
+        }
+    }
+}
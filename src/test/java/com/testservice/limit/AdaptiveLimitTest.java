@@ -0,0 +1,97 @@
+package com.testservice.limit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Drives the limit of a principal with completed requests of chosen round trip times instead of real requests.
+ * 
+ * @author taras
+ *
+ */
+public class AdaptiveLimitTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(100);
+
+    @Test
+    public void requestsOverLimitAreRejected() {
+        AdaptiveLimit limit = limit(2);
+
+        assertNotNull(limit.tryAcquire());
+        assertNotNull(limit.tryAcquire());
+        assertNull(limit.tryAcquire());
+
+        assertEquals(2, limit.getInFlight());
+        assertEquals(2, limit.getAccepted());
+        assertEquals(1, limit.getRejected());
+    }
+
+    @Test
+    public void failuresShrinkLimitDownToMinimum() {
+        AdaptiveLimit limit = limit(10);
+
+        complete(limit, FAST, true);
+        assertEquals(5, limit.getLimit());
+        complete(limit, FAST, true);
+        assertEquals(2, limit.getLimit());
+        complete(limit, FAST, true);
+        assertEquals(2, limit.getLimit());
+    }
+
+    @Test
+    public void steadyLatencyGrowsUsedLimit() {
+        AdaptiveLimit limit = limit(10);
+
+        for (int i = 0; i < 10; i++) {
+            limit.tryAcquire();
+            limit.release(FAST, limit.getLimit(), false);
+        }
+
+        assertTrue(limit.getLimit() > 10);
+    }
+
+    @Test
+    public void unusedLimitDoesNotGrow() {
+        AdaptiveLimit limit = limit(10);
+
+        for (int i = 0; i < 10; i++) {
+            complete(limit, FAST, false);
+        }
+
+        assertEquals(10, limit.getLimit());
+    }
+
+    @Test
+    public void risingLatencyShrinksLimit() {
+        AdaptiveLimit limit = limit(20);
+        for (int i = 0; i < 10; i++) {
+            complete(limit, FAST, false);
+        }
+        assertEquals(20, limit.getLimit());
+
+        complete(limit, SLOW, false);
+
+        assertTrue(limit.getLimit() < 20);
+        assertTrue(limit.getLimit() >= 2);
+    }
+
+    private static AdaptiveLimit limit(int initialLimit) {
+        return new AdaptiveLimit("reader", "user",
+                new ConcurrencyLimiter.Settings(initialLimit, 2, 100, 1.0, 1.0, 0.5));
+    }
+
+    /**
+     * Completes a request which was the only one of the principal in flight.
+     */
+    private static void complete(AdaptiveLimit limit, long rttNanos, boolean failed) {
+        limit.tryAcquire();
+        limit.release(rttNanos, 1, failed);
+    }
+}
@@ -0,0 +1,85 @@
+package com.testservice.membership;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.testservice.config.RootApplicationContextConfiguration;
+import com.testservice.domain.Author;
+import com.testservice.service.AuthorService;
+
+/**
+ * Checks identifier filters of the application context on an in-memory H2 database, rows inserted with plain SQL stand
+ * for entities created by another node.
+ * 
+ * @author taras
+ *
+ */
+public class EntityMembershipTest {
+
+    private static final String[][] PROPERTIES = {
+        { "jdbc.driverClassName", "org.h2.Driver" },
+        { "jdbc.url", "jdbc:h2:mem:membership;DB_CLOSE_DELAY=-1;MODE=MySQL" },
+        { "jdbc.username", "sa" },
+        { "jdbc.password", "" },
+        { "jdbc.minIdle", "0" },
+        { "membership.enabled", "true" } };
+
+    private static AnnotationConfigApplicationContext context;
+    private static EntityMembership membership;
+    private static AuthorService authorService;
+    private static JdbcTemplate jdbcTemplate;
+
+    @BeforeClass
+    public static void startContext() {
+        for (String[] property : PROPERTIES) {
+            System.setProperty(property[0], property[1]);
+        }
+        context = new AnnotationConfigApplicationContext(RootApplicationContextConfiguration.class);
+        membership = context.getBean(EntityMembership.class);
+        authorService = context.getBean(AuthorService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+    }
+
+    @AfterClass
+    public static void closeContext() {
+        context.close();
+        for (String[] property : PROPERTIES) {
+            System.clearProperty(property[0]);
+        }
+    }
+
+    @Test
+    public void identifiersUpToHighestBuiltOneAreKnown() {
+        int first = saveAuthor().getId();
+        jdbcTemplate.update("delete from Author where id=?", first);
+        int last = saveAuthor().getId();
+        membership.rebuild();
+
+        assertTrue(membership.mightContainAuthor(last));
+        assertFalse(membership.mightContainAuthor(first));
+        assertFalse(membership.mightContainAuthor(0));
+    }
+
+    @Test
+    public void identifiersCreatedByAnotherNodeAreLookedUp() {
+        saveAuthor();
+        membership.rebuild();
+        jdbcTemplate.update("insert into Author (firstName, lastName) values ('Other', 'Node')");
+        int created = jdbcTemplate.queryForObject("select max(id) from Author", Integer.class);
+
+        assertTrue(membership.mightContainAuthor(created));
+    }
+
+    private static Author saveAuthor() {
+        Author author = new Author();
+        author.setFirstName("Known");
+        author.setLastName("Author");
+        return authorService.save(author);
+    }
+}
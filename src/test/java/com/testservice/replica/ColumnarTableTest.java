@@ -0,0 +1,120 @@
+package com.testservice.replica;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.testservice.domain.Book;
+
+/**
+ * Checks that rows of {@link BookColumns} stay sorted by identifier and their columns stay aligned while rows are
+ * inserted out of order, replaced, removed and the columns grow.
+ * 
+ * @author taras
+ *
+ */
+public class ColumnarTableTest {
+
+    private BookColumns books;
+
+    @Before
+    public void createTable() {
+        books = new BookColumns();
+    }
+
+    @Test
+    public void rowsAreKeptInIdentifierOrder() {
+        books.put(30, book(30, "Third", 2003, 1));
+        books.put(10, book(10, "First", 2001, 1));
+        books.put(20, book(20, "Second", 2002, 2));
+
+        assertEquals(ids(10, 20, 30), idsOf(books.getAll()));
+        assertBook(book(20, "Second", 2002, 2), books.get(20));
+        assertNull(books.get(15));
+    }
+
+    @Test
+    public void replacedRowKeepsItsPosition() {
+        books.put(1, book(1, "Draft", 1999, 1));
+        books.put(2, book(2, "Other", 2000, 1));
+
+        books.put(1, book(1, "Final", 2001, 2));
+
+        assertEquals(2, books.size());
+        assertBook(book(1, "Final", 2001, 2), books.get(1));
+        assertEquals(ids(1), idsOf(books.selectByAuthor(2)));
+    }
+
+    @Test
+    public void removedRowShiftsFollowingRows() {
+        for (int id = 1; id <= 5; id++) {
+            books.put(id, book(id, "Book " + id, 2000 + id, id % 2));
+        }
+
+        books.remove(3);
+        books.remove(42);
+
+        assertEquals(ids(1, 2, 4, 5), idsOf(books.getAll()));
+        assertBook(book(4, "Book 4", 2004, 0), books.get(4));
+        assertEquals(ids(1, 5), idsOf(books.selectByAuthor(1)));
+    }
+
+    @Test
+    public void columnsGrowBeyondInitialCapacity() {
+        int count = ColumnarTable.INITIAL_CAPACITY * 3;
+        for (int id = count; id > 0; id--) {
+            books.put(id, book(id, id % 2 == 0 ? "Even" : "Odd", 1900 + id, id));
+        }
+
+        assertEquals(count, books.size());
+        assertEquals(2, books.distinctStrings());
+        for (int id = 1; id <= count; id++) {
+            assertBook(book(id, id % 2 == 0 ? "Even" : "Odd", 1900 + id, id), books.get(id));
+        }
+    }
+
+    @Test
+    public void clearRemovesRowsAndStrings() {
+        books.put(1, book(1, "Gone", 2000, 1));
+
+        books.clear();
+
+        assertEquals(0, books.size());
+        assertEquals(0, books.distinctStrings());
+        assertNull(books.get(1));
+    }
+
+    private static Book book(int id, String name, int year, int authorId) {
+        Book book = new Book();
+        book.setId(id);
+        book.setName(name);
+        book.setYear(year);
+        book.setAuthorId(authorId);
+        return book;
+    }
+
+    private static void assertBook(Book expected, Book actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getYear(), actual.getYear());
+        assertEquals(expected.getAuthorId(), actual.getAuthorId());
+    }
+
+    private static List<Integer> ids(Integer... ids) {
+        return Arrays.asList(ids);
+    }
+
+    private static List<Integer> idsOf(List<Book> books) {
+        List<Integer> ids = new ArrayList<>();
+        for (Book book : books) {
+            ids.add(book.getId());
+        }
+        return ids;
+    }
+}
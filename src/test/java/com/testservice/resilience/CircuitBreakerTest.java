@@ -0,0 +1,134 @@
+package com.testservice.resilience;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+
+import com.testservice.datasource.DataSourceRouting;
+import com.testservice.datasource.ShardRouting;
+import com.testservice.metrics.RequestProfiler;
+import com.testservice.metrics.RequestRecording;
+import com.testservice.resilience.CircuitBreaker.State;
+
+/**
+ * Walks the breaker of a shard through its states. The breaker is started without the database, so outcomes are
+ * recorded by the test only: a fresh context per test keeps the states of the tests apart.
+ * 
+ * @author taras
+ *
+ */
+public class CircuitBreakerTest {
+
+    private static final long OPEN_MILLIS = 100;
+
+    private static final String[][] PROPERTIES = {
+        { "breaker.windowSize", "4" },
+        { "breaker.minimumCalls", "4" },
+        { "breaker.failureRateThreshold", "50" },
+        { "breaker.slowCallMillis", "1000" },
+        { "breaker.openMillis", String.valueOf(OPEN_MILLIS) },
+        { "breaker.halfOpenProbes", "2" } };
+
+    private AnnotationConfigApplicationContext context;
+    private CircuitBreaker breaker;
+
+    @Configuration
+    @Import({ DataSourceRouting.class, ShardRouting.class, RequestDeadline.class, RequestProfiler.class,
+            RequestRecording.class, CircuitBreaker.class })
+    static class BreakerConfiguration {
+
+        @Bean
+        public static PropertySourcesPlaceholderConfigurer propertySourcesPlaceholderConfigurer() {
+            return new PropertySourcesPlaceholderConfigurer();
+        }
+    }
+
+    @Before
+    public void startContext() {
+        for (String[] property : PROPERTIES) {
+            System.setProperty(property[0], property[1]);
+        }
+        context = new AnnotationConfigApplicationContext(BreakerConfiguration.class);
+        breaker = context.getBean(CircuitBreaker.class);
+    }
+
+    @After
+    public void closeContext() {
+        context.close();
+        for (String[] property : PROPERTIES) {
+            System.clearProperty(property[0]);
+        }
+    }
+
+    @Test
+    public void breakerOpensHalfOpensAndCloses() throws InterruptedException {
+        open();
+        assertFalse(breaker.tryAcquire(0));
+
+        Thread.sleep(OPEN_MILLIS + 50);
+        assertTrue(breaker.tryAcquire(0));
+        assertEquals(State.HALF_OPEN, breaker.getState(0));
+        assertTrue(breaker.tryAcquire(0));
+        assertFalse("probes are limited", breaker.tryAcquire(0));
+
+        breaker.record(0, 0, false);
+        assertEquals(State.HALF_OPEN, breaker.getState(0));
+        breaker.record(0, 0, false);
+        assertEquals(State.CLOSED, breaker.getState(0));
+        assertTrue(breaker.tryAcquire(0));
+    }
+
+    @Test
+    public void failedProbeOpensBreakerAgain() throws InterruptedException {
+        open();
+        Thread.sleep(OPEN_MILLIS + 50);
+        assertTrue(breaker.tryAcquire(0));
+
+        breaker.record(0, 0, true);
+
+        assertEquals(State.OPEN, breaker.getState(0));
+        assertFalse(breaker.tryAcquire(0));
+    }
+
+    @Test
+    public void slowCallsCountAsFailures() {
+        for (int i = 0; i < 3; i++) {
+            breaker.record(0, 0, false);
+        }
+        assertEquals(State.CLOSED, breaker.getState(0));
+
+        breaker.record(0, 5000000, false);
+        breaker.record(0, 5000000, false);
+
+        assertEquals(State.OPEN, breaker.getState(0));
+    }
+
+    @Test
+    public void failuresBelowMinimumCallsKeepBreakerClosed() {
+        for (int i = 0; i < 3; i++) {
+            breaker.record(0, 0, true);
+        }
+
+        assertEquals(State.CLOSED, breaker.getState(0));
+        assertTrue(breaker.tryAcquire(0));
+    }
+
+    private void open() {
+        assertEquals(State.CLOSED, breaker.getState(0));
+        breaker.record(0, 0, false);
+        breaker.record(0, 0, false);
+        breaker.record(0, 0, true);
+        assertEquals(State.CLOSED, breaker.getState(0));
+        breaker.record(0, 0, true);
+        assertEquals(State.OPEN, breaker.getState(0));
+    }
+}
@@ -0,0 +1,78 @@
+package com.testservice.search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.function.Function;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks matching and ranking of the index on plain strings which are their own searchable text.
+ * 
+ * @author taras
+ *
+ */
+public class SearchIndexTest {
+
+    private SearchIndex<String> index;
+
+    @Before
+    public void createIndex() {
+        index = new SearchIndex<>(Function.identity());
+    }
+
+    @Test
+    public void matchesAreRankedByPositionThenLength() {
+        index.put(1, "The Lord of the Rings");
+        index.put(2, "Rings");
+        index.put(3, "Rings of Saturn");
+        index.put(4, "Earrings");
+        index.put(5, "Dune");
+
+        assertEquals(Arrays.asList("Rings", "Rings of Saturn", "The Lord of the Rings", "Earrings"),
+                index.search("rings", 10));
+    }
+
+    @Test
+    public void queryIsCaseAndWhitespaceInsensitive() {
+        index.put(1, "War  and\tPeace");
+
+        assertEquals(Arrays.asList("War  and\tPeace"), index.search("  AND peace ", 10));
+    }
+
+    @Test
+    public void shortQueryMatchesWordPrefixesOnly() {
+        index.put(1, "Dune");
+        index.put(2, "Children of Dune");
+        index.put(3, "Redundant");
+
+        assertEquals(Arrays.asList("Dune", "Children of Dune"), index.search("du", 10));
+    }
+
+    @Test
+    public void replacedAndRemovedEntitiesAreNotFound() {
+        index.put(1, "Emma");
+        index.put(2, "Persuasion");
+        index.put(1, "Mansfield Park");
+        index.remove(2);
+
+        assertTrue(index.search("emma", 10).isEmpty());
+        assertTrue(index.search("persuasion", 10).isEmpty());
+        assertEquals(Arrays.asList("Mansfield Park"), index.search("park", 10));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    public void resultsAreLimited() {
+        for (int id = 1; id <= 5; id++) {
+            index.put(id, "Volume " + id);
+        }
+
+        assertEquals(Arrays.asList("Volume 1", "Volume 2"), index.search("volume", 2));
+        assertTrue(index.search(" ", 10).isEmpty());
+        assertTrue(index.search("volume", 0).isEmpty());
+    }
+}
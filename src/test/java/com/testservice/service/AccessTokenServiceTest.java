@@ -0,0 +1,139 @@
+package com.testservice.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import com.testservice.config.RootApplicationContextConfiguration;
+import com.testservice.domain.User;
+
+/**
+ * Checks verification of access tokens issued by the application context and of tokens signed by hand with the
+ * configured secrets: tampered, expired and signed with an unknown key.
+ * 
+ * @author taras
+ *
+ */
+public class AccessTokenServiceTest {
+
+    private static final String ACTIVE_SECRET = "MDEyMzQ1Njc4OTAxMjM0NTY3ODkwMTIzNDU2Nzg5MDE=";
+    private static final String PREVIOUS_SECRET = "YWJjZGVmZ2hpamtsbW5vcHFyc3R1dnd4eXphYmNkZWY=";
+
+    private static final String[][] PROPERTIES = {
+        { "jdbc.driverClassName", "org.h2.Driver" },
+        { "jdbc.url", "jdbc:h2:mem:tokens;DB_CLOSE_DELAY=-1;MODE=MySQL" },
+        { "jdbc.username", "sa" },
+        { "jdbc.password", "" },
+        { "jdbc.minIdle", "0" },
+        { "token.keys", "active:" + ACTIVE_SECRET + ",previous:" + PREVIOUS_SECRET },
+        { "token.activeKey", "active" } };
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static AnnotationConfigApplicationContext context;
+    private static AccessTokenService accessTokenService;
+
+    @BeforeClass
+    public static void startContext() {
+        for (String[] property : PROPERTIES) {
+            System.setProperty(property[0], property[1]);
+        }
+        context = new AnnotationConfigApplicationContext(RootApplicationContextConfiguration.class);
+        accessTokenService = context.getBean(AccessTokenService.class);
+    }
+
+    @AfterClass
+    public static void closeContext() {
+        context.close();
+        for (String[] property : PROPERTIES) {
+            System.clearProperty(property[0]);
+        }
+    }
+
+    @Test
+    public void issuedTokenCarriesNameAndRole() {
+        String token = accessTokenService.issue(new User("reader", null, "user")).getToken();
+
+        User user = accessTokenService.verify(token);
+
+        assertEquals("reader", user.getName());
+        assertEquals("user", user.getRole());
+    }
+
+    @Test
+    public void tokenSignedWithPreviousKeyIsAccepted() {
+        String token = sign("previous", PREVIOUS_SECRET, claims("reader", "user", expiresIn(60)));
+
+        assertEquals("reader", accessTokenService.verify(token).getName());
+    }
+
+    @Test
+    public void tamperedClaimsAreRejected() {
+        String token = accessTokenService.issue(new User("reader", null, "user")).getToken();
+        String[] parts = token.split("\\.");
+        String forged = parts[0] + "." + encode(claims("reader", "admin", expiresIn(60))) + "." + parts[2];
+
+        assertNull(accessTokenService.verify(forged));
+    }
+
+    @Test
+    public void tokenSignedWithAnotherSecretIsRejected() {
+        String token = sign("active", PREVIOUS_SECRET, claims("reader", "admin", expiresIn(60)));
+
+        assertNull(accessTokenService.verify(token));
+    }
+
+    @Test
+    public void expiredTokenIsRejected() {
+        String token = sign("active", ACTIVE_SECRET, claims("reader", "user", expiresIn(-1)));
+
+        assertNull(accessTokenService.verify(token));
+    }
+
+    @Test
+    public void tokenWithUnknownKeyIsRejected() {
+        String token = sign("removed", ACTIVE_SECRET, claims("reader", "user", expiresIn(60)));
+
+        assertNull(accessTokenService.verify(token));
+    }
+
+    @Test
+    public void malformedTokenIsRejected() {
+        assertNull(accessTokenService.verify("not-a-token"));
+        assertNull(accessTokenService.verify("a.b.c"));
+    }
+
+    private static long expiresIn(long seconds) {
+        return System.currentTimeMillis() / 1000 + seconds;
+    }
+
+    private static String claims(String name, String role, long expiration) {
+        return "{\"sub\":\"" + name + "\",\"role\":\"" + role + "\",\"exp\":" + expiration + "}";
+    }
+
+    private static String sign(String keyId, String secret, String claims) {
+        String payload = encode("{\"alg\":\"HS256\",\"typ\":\"JWT\",\"kid\":\"" + keyId + "\"}") + "."
+                + encode(claims);
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(Base64.getDecoder().decode(secret), "HmacSHA256"));
+            return payload + "." + ENCODER.encodeToString(mac.doFinal(payload.getBytes(StandardCharsets.US_ASCII)));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String encode(String json) {
+        return ENCODER.encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,84 @@
+package com.testservice.standalone;
+
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.servlet.ServletHolder;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.glassfish.jersey.server.ServerProperties;
+import org.glassfish.jersey.servlet.ServletContainer;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.web.context.ContextLoaderListener;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+
+import com.testservice.config.RootApplicationContextConfiguration;
+import com.testservice.config.TestServiceApplication;
+import com.testservice.schema.SchemaMigrator;
+import com.testservice.warmup.WarmUp;
+
+/**
+ * Runs the service in an embedded Jetty without a servlet container installation. Resources and filters are
+ * registered explicitly by {@link TestServiceApplication}, the schema is migrated in parallel with Jersey startup and
+ * the HTTP port is opened only when the service is migrated and warmed up. Durations of startup phases are logged.
+ * 
+ * <pre>
+ * java -Dserver.port=8080 -jar test-service-standalone.jar
+ * </pre>
+ * 
+ * @author taras
+ *
+ */
+public final class StandaloneServer {
+
+    private static final String CONTEXT_PATH = "/test-service";
+
+    private StandaloneServer() { }
+
+    public static void main(String[] args) throws Exception {
+        StartupTimer timer = new StartupTimer();
+        timer.mark("jvm");
+        int port = Integer.getInteger("server.port", 8080);
+        if (System.getProperty("schema.migration.async") == null) {
+            System.setProperty("schema.migration.async", "true");
+        }
+
+        AnnotationConfigWebApplicationContext springContext = new AnnotationConfigWebApplicationContext();
+        springContext.register(RootApplicationContextConfiguration.class);
+        springContext.addBeanFactoryPostProcessor(beanFactory -> beanFactory.addBeanPostProcessor(timer));
+        springContext.addApplicationListener(event -> {
+            if (event instanceof ContextRefreshedEvent) {
+                timer.mark("spring context");
+            }
+        });
+
+        ResourceConfig application = new TestServiceApplication();
+        application.property(ServerProperties.WADL_FEATURE_DISABLE, true);
+        ServletHolder jersey = new ServletHolder(new ServletContainer(application));
+        jersey.setInitOrder(1);
+        jersey.setAsyncSupported(true);
+
+        ServletContextHandler handler = new ServletContextHandler(ServletContextHandler.NO_SESSIONS);
+        handler.setContextPath(CONTEXT_PATH);
+        handler.addEventListener(new ContextLoaderListener(springContext));
+        handler.addServlet(jersey, "/*");
+
+        Server server = new Server();
+        server.setHandler(handler);
+        server.start();
+        timer.mark("jersey");
+
+        springContext.getBean(SchemaMigrator.class).awaitCompletion();
+        timer.mark("schema migration");
+
+        springContext.getBean(WarmUp.class).awaitCompletion();
+        timer.mark("warm-up");
+
+        ServerConnector connector = new ServerConnector(server);
+        connector.setPort(port);
+        server.addConnector(connector);
+        connector.start();
+        timer.mark("http connector");
+        timer.log();
+        server.join();
+    }
+}
@@ -0,0 +1,74 @@
+package com.testservice.standalone;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessorAdapter;
+
+/**
+ * StartupTimer records durations of startup phases and creation time of every Spring bean, from its instantiation
+ * till the end of its initialization, including creation of beans it depends on.
+ * 
+ * @author taras
+ *
+ */
+public class StartupTimer extends InstantiationAwareBeanPostProcessorAdapter {
+
+    private static final Logger LOGGER = Logger.getLogger(StartupTimer.class);
+    private static final int SLOWEST_BEANS = 10;
+
+    private final long jvmStart = ManagementFactory.getRuntimeMXBean().getStartTime();
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+    private final Map<String, Long> beanStarts = new ConcurrentHashMap<>();
+    private final Map<String, Long> beanDurations = new ConcurrentHashMap<>();
+    private long last = jvmStart;
+
+    /**
+     * Marks the end of the startup phase.
+     * 
+     * @param phase name of the phase
+     */
+    public synchronized void mark(String phase) {
+        long now = System.currentTimeMillis();
+        phases.put(phase, now - last);
+        last = now;
+    }
+
+    @Override
+    public Object postProcessBeforeInstantiation(Class<?> beanClass, String beanName) {
+        beanStarts.put(beanName, System.nanoTime());
+        return null;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        Long start = beanStarts.remove(beanName);
+        if (start != null) {
+            beanDurations.put(beanName, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+        return bean;
+    }
+
+    /**
+     * Logs durations of startup phases, total startup time and the slowest beans.
+     */
+    public synchronized void log() {
+        StringBuilder out = new StringBuilder("Startup finished in ").append(last - jvmStart).append(" ms");
+        for (Map.Entry<String, Long> phase : phases.entrySet()) {
+            out.append("\n  ").append(phase.getKey()).append(": ").append(phase.getValue()).append(" ms");
+        }
+        List<Map.Entry<String, Long>> beans = new ArrayList<>(beanDurations.entrySet());
+        beans.sort(Map.Entry.<String, Long> comparingByValue().reversed());
+        out.append("\n  slowest beans:");
+        for (Map.Entry<String, Long> bean : beans.subList(0, Math.min(SLOWEST_BEANS, beans.size()))) {
+            out.append("\n    ").append(bean.getKey()).append(": ").append(bean.getValue()).append(" ms");
+        }
+        LOGGER.info(out.toString());
+    }
+}